@@ -1,12 +1,21 @@
 package com.example.game1;
 
+import android.app.Activity;
+import android.app.Application;
 import android.content.Context;
 import android.media.MediaPlayer;
+import android.os.Bundle;
+import android.util.Log;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.game1.data.AbstractDataManager;
+import com.example.game1.data.BinaryFileDataManager;
 import com.example.game1.data.DataManagerIntf;
 import com.example.game1.data.FileDataManager;
+import com.example.game1.data.GameLeaderboards;
+import com.example.game1.data.LazyFileDataManager;
+import com.example.game1.data.WriteBehindDataManager;
 import com.example.game1.domain.UserService;
 import com.example.game1.domain.UserServiceIntf;
 import com.example.game1.presentation.model.Game;
@@ -14,6 +23,12 @@ import com.example.game1.presentation.presenter.GameManagerFactory;
 import com.example.game1.presentation.presenter.GameStateObserver;
 import com.example.game1.presentation.presenter.UserManager;
 import com.example.game1.presentation.presenter.common.GameManager;
+import com.example.game1.presentation.view.common.FrameStats;
+import com.example.game1.presentation.view.common.GameThread;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * A singleton class that is created upon opening the app. This represents the application resource
@@ -22,8 +37,41 @@ import com.example.game1.presentation.presenter.common.GameManager;
  */
 public class AppManager {
 
+    private static final String TAG = "App Manager";
+
     private static AppManager instance = null;
 
+    /**
+     * The formats the users can be persisted in.
+     */
+    public enum DataFormat {
+        /* Every user is loaded from a text journal when the app starts */
+        TEXT,
+        /* The same text journal, but only an index of it is loaded when the app starts, and each
+         * user is loaded when it is first looked up */
+        LAZY_TEXT,
+        /* Fixed-width binary records, converted from the text journal the first time. The text
+         * journal is left as it was, so switching back to TEXT loses the changes made since. If
+         * the conversion fails, the text journal is used instead. */
+        BINARY
+    }
+
+    /* The format the users are persisted in */
+    private DataFormat dataFormat = DataFormat.TEXT;
+
+    /* The data manager shared by every service. It is created on first use. */
+    private volatile DataManagerIntf dataManager;
+
+    /* The per-game leaderboards shared by every service. They are created on first use. */
+    private GameLeaderboards gameLeaderboards;
+
+    /* The frame times of each game, kept for as long as the app runs */
+    private final Map<Game.GameName, FrameStats> frameStats = new EnumMap<>(Game.GameName.class);
+
+    /* The time at which the app was opened, and whether the first game has been built since */
+    private long launchTime;
+    private boolean firstGameBuilt;
+
     private UserManager userManager;
 
     private GameManagerFactory gameManagerFactory;
@@ -33,6 +81,12 @@ public class AppManager {
     /* The context of the application */
     private Context context = null;
 
+    /* Whether the data is flushed whenever the application goes to the background */
+    private boolean flushOnStopRegistered;
+
+    /* The number of the application's activities that are started, read on the main thread */
+    private int startedActivities;
+
     /**
      * Constructs an AppManager
      */
@@ -59,9 +113,109 @@ public class AppManager {
      */
     public void init(Context context) {
         this.context = context;
+        if (launchTime == 0) {
+            launchTime = System.nanoTime();
+        }
         userManager = buildUserManager();
         gameStateObserver = buildGameStateObserver();
         gameManagerFactory = new GameManagerFactory();
+        registerFlushOnStop();
+    }
+
+    /**
+     * Flushes the data whenever the last of the application's started activities stops, since the
+     * process may be killed without warning once none of them is in the foreground. Switching
+     * from one activity to another starts the next one before stopping the previous one, so it
+     * does not flush. The flush is only requested, since the callbacks run on the main thread.
+     */
+    private void registerFlushOnStop() {
+        if (flushOnStopRegistered || !(context instanceof Application)) {
+            return;
+        }
+        flushOnStopRegistered = true;
+        ((Application) context).registerActivityLifecycleCallbacks(
+                new Application.ActivityLifecycleCallbacks() {
+                    @Override
+                    public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+                    }
+
+                    @Override
+                    public void onActivityStarted(Activity activity) {
+                        startedActivities++;
+                    }
+
+                    @Override
+                    public void onActivityResumed(Activity activity) {
+                    }
+
+                    @Override
+                    public void onActivityPaused(Activity activity) {
+                    }
+
+                    @Override
+                    public void onActivityStopped(Activity activity) {
+                        startedActivities--;
+                        if (startedActivities == 0) {
+                            requestDataFlush();
+                        }
+                    }
+
+                    @Override
+                    public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+                    }
+
+                    @Override
+                    public void onActivityDestroyed(Activity activity) {
+                    }
+                });
+    }
+
+    /**
+     * Asks the shared data manager to write everything it has queued, without waiting for it. It
+     * does nothing if the data manager was not created yet or writes synchronously.
+     */
+    private void requestDataFlush() {
+        DataManagerIntf result = dataManager;
+        if (result instanceof WriteBehindDataManager) {
+            ((WriteBehindDataManager) result).requestFlush();
+        }
+    }
+
+    /**
+     * Blocks until every write that the shared data manager has queued is written, so that no
+     * finished game is lost if the process is killed. It returns right away if the data manager
+     * was not created yet or writes synchronously. It must not be called on the main thread.
+     */
+    public void flushData() {
+        DataManagerIntf result = dataManager;
+        if (result instanceof WriteBehindDataManager) {
+            try {
+                ((WriteBehindDataManager) result).flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Log.e(TAG, "Interrupted while waiting for the queued writes to finish");
+            }
+        }
+    }
+
+    /**
+     * Loads the shared data manager on a background thread, so that the persistence file is
+     * parsed while the user is still on the start screen rather than on the main thread. Callers
+     * that need the data manager before the warm-up finishes wait for it instead of loading it a
+     * second time. The per-game leaderboards are then loaded, and the leaderboards of all the
+     * users loaded or built, on the same thread, so that neither the first finished game nor the
+     * first query that ranks the users has to.
+     */
+    public void warmUpDataLayer() {
+        Thread warmUp = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                DataManagerIntf dataManager = lookupDataManager();
+                lookupGameLeaderboards();
+                dataManager.warmUp();
+            }
+        }, "Data Layer Warm-Up");
+        warmUp.start();
     }
 
     /**
@@ -99,6 +253,12 @@ public class AppManager {
      */
     public GameManager buildGameManager(
             Game.GameName game, int height, int width, AppCompatActivity activity) {
+        if (!firstGameBuilt) {
+            firstGameBuilt = true;
+            Log.i(TAG, "Data file loads from launch to first game: "
+                    + AbstractDataManager.getFileLoadCount() + ", time from launch to first game: "
+                    + (System.nanoTime() - launchTime) / 1000000 + " ms");
+        }
         GameManager gameManager = gameManagerFactory.getGameManager(game, height, width, activity);
         gameManager.getGame().setCustomization(userManager.getCurrentUser().getCustomization());
         gameManager.addObserver(gameStateObserver);
@@ -154,12 +314,109 @@ public class AppManager {
     }
 
     /**
-     * Returns an instance of an implementation of DataManagerIntf
+     * Sets the format the users are persisted in. It only takes effect if it is set before the
+     * shared data manager is created.
      *
-     * @return an instance of an implementation of DataManagerIntf
+     * @param dataFormat the format the users are persisted in
+     */
+    public void setDataFormat(DataFormat dataFormat) {
+        this.dataFormat = dataFormat;
+    }
+
+    /**
+     * Returns the instance of an implementation of DataManagerIntf that is shared by every service.
+     * The instance is created, and the persistence file loaded, on the first call.
+     *
+     * @return the shared instance of an implementation of DataManagerIntf
      */
     public DataManagerIntf lookupDataManager() {
-        // Currently we only provide a file based data manager
-        return new FileDataManager();
+        DataManagerIntf result = dataManager;
+        if (result == null) {
+            synchronized (this) {
+                result = dataManager;
+                if (result == null) {
+                    result = buildDataManager();
+                    dataManager = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the per-game leaderboards that are shared by every service. They are created, and
+     * their persistence file loaded, on the first call. Their journal is appended to by the same
+     * writer thread as the users, if the shared data manager has one.
+     *
+     * @return the shared GameLeaderboards
+     */
+    public synchronized GameLeaderboards lookupGameLeaderboards() {
+        if (gameLeaderboards == null) {
+            DataManagerIntf result = lookupDataManager();
+            Executor journalWriter;
+            if (result instanceof WriteBehindDataManager) {
+                journalWriter = (WriteBehindDataManager) result;
+            } else {
+                journalWriter = new Executor() {
+                    @Override
+                    public void execute(Runnable task) {
+                        task.run();
+                    }
+                };
+            }
+            gameLeaderboards = new GameLeaderboards(journalWriter);
+        }
+        return gameLeaderboards;
+    }
+
+    /**
+     * Returns the frame times of the given game, e.g. for a debug overlay. They cover every
+     * session of the game since the app was opened, or since they were last reset.
+     *
+     * @param game the game
+     * @return the FrameStats of the game
+     */
+    public synchronized FrameStats lookupFrameStats(Game.GameName game) {
+        FrameStats stats = frameStats.get(game);
+        if (stats == null) {
+            stats = new FrameStats(GameThread.FRAME_DURATION_NS);
+            frameStats.put(game, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Builds an instance of an implementation of DataManagerIntf and loads its users
+     *
+     * @return an instance of an implementation of DataManagerIntf
+     */
+    private DataManagerIntf buildDataManager() {
+        // Currently we only provide file based data managers, one for each DataFormat
+        AbstractDataManager fileDataManager;
+        switch (dataFormat) {
+            case LAZY_TEXT:
+                fileDataManager = new LazyFileDataManager();
+                fileDataManager.load();
+                break;
+            case BINARY:
+                BinaryFileDataManager binaryDataManager = new BinaryFileDataManager();
+                binaryDataManager.load();
+                fileDataManager = binaryDataManager;
+                if (!binaryDataManager.hasDataFile()) {
+                    // The text file could not be converted, e.g. because a user does not fit in
+                    // a binary record, so keep using it
+                    Log.w(TAG, "Falling back to the text data format");
+                    fileDataManager = new FileDataManager();
+                    fileDataManager.load();
+                }
+                break;
+            default:
+                fileDataManager = new FileDataManager();
+                fileDataManager.load();
+                break;
+        }
+        // Writes are deferred to a background thread so that saving a user never blocks the
+        // thread that finished a game
+        return new WriteBehindDataManager(fileDataManager);
     }
 }
@@ -0,0 +1,668 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.LeaderboardPage;
+import com.example.game1.presentation.model.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The part of a data manager that is independent of how users are persisted. It keeps every user
+ * in memory and applies the rules for updating a user's top statistics, while subclasses decide
+ * how a created or updated user is saved.
+ */
+public abstract class AbstractDataManager implements DataManagerIntf {
+
+    /* The number of times any data manager has loaded a persistence file */
+    private static final AtomicInteger fileLoadCount = new AtomicInteger();
+
+    /* The map that stores all the users */
+    protected Map<String, User> userMap = new HashMap<>();
+
+    /* The leaderboards of all the users, kept up to date as users are created and updated. They
+     * are replaced by the ones warmUp builds. */
+    protected LeaderboardIndex leaderboards = new LeaderboardIndex();
+
+    /* Whether leaderboards has to be built from scratch before it is next used */
+    private boolean leaderboardsStale;
+
+    /* The keys of the users whose latest save failed, so that the persistence file does not hold
+     * their latest values */
+    private final Set<String> unsavedKeys = new HashSet<>();
+
+    /* The keys of the users created or updated since the running warm-up started, or null if no
+     * warm-up is running */
+    private Set<String> changedDuringWarmUp;
+
+    /* Held for the whole of a warm-up, so that only one runs at a time */
+    private final Object warmUpLock = new Object();
+
+    /* The number of times the users have been modified, read from any thread */
+    private volatile long modificationCount;
+
+    /* The number of saves, the number of records they wrote, and the number the latest one wrote */
+    private long saveCount;
+    private long recordsWritten;
+    private int lastSaveRecordCount;
+
+    /**
+     * Records that a persistence file was loaded.
+     */
+    protected static void recordFileLoad() {
+        fileLoadCount.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of times any data manager has loaded a persistence file since the app was
+     * opened.
+     *
+     * @return the number of persistence file loads
+     */
+    public static int getFileLoadCount() {
+        return fileLoadCount.get();
+    }
+
+    /**
+     * Loads the users from where they are persisted, which a subclass that persists them must do
+     * before the data manager is used. A data manager constructor never loads anything itself,
+     * so that a subclass's fields are all set by the time its overrides are called. This one does
+     * nothing, for data managers that only keep users in memory.
+     */
+    public void load() {
+    }
+
+    /**
+     * Saves the given user, which has just been created or updated.
+     *
+     * @param user the User object to be saved
+     * @return true if the user was saved, and false if the save failed
+     */
+    protected abstract boolean saveUser(User user);
+
+    /**
+     * Saves the given users, which have just been created or updated. Subclasses should override
+     * this to save all of them in a single write.
+     *
+     * @param users the User objects to be saved
+     * @return true if every user was saved, and false if the save of any of them failed
+     */
+    protected boolean saveUsers(Collection<User> users) {
+        boolean saved = true;
+        for (User user : users) {
+            saved &= saveUser(user);
+        }
+        return saved;
+    }
+
+    /**
+     * Adds the given user to userMap and saves the user if it has changed since it was last saved
+     * or loaded. If the save fails, the user is left dirty, so that it is saved again later.
+     *
+     * @param user the User object to be added to userMap
+     */
+    public void createUser(User user) {
+        String key = user.getUserName().toLowerCase();
+        boolean added = userMap.put(key, user) == null;
+        updateLeaderboards(user);
+        boolean changed = user.isDirty();
+        int written = 0;
+        if (changed) {
+            // Clear the flag before writing, so that a change made during the write is saved later
+            user.markClean();
+            if (saveUser(user)) {
+                written++;
+                unsavedKeys.remove(key);
+            } else {
+                user.markDirty();
+                unsavedKeys.add(key);
+            }
+        }
+        recordSave(written);
+        if (added || changed) {
+            modificationCount++;
+        }
+    }
+
+    /**
+     * Adds the given users to userMap and saves the ones that have changed since they were last
+     * saved or loaded, in a single write. If the write fails, those users are left dirty, so that
+     * they are saved again later.
+     *
+     * @param users the User objects to be added to userMap
+     */
+    public void createUsers(Collection<User> users) {
+        boolean added = false;
+        List<User> dirtyUsers = new ArrayList<>();
+        for (User user : users) {
+            added |= userMap.put(user.getUserName().toLowerCase(), user) == null;
+            updateLeaderboards(user);
+            if (user.isDirty()) {
+                user.markClean();
+                dirtyUsers.add(user);
+            }
+        }
+        int written = 0;
+        if (!dirtyUsers.isEmpty()) {
+            if (saveUsers(dirtyUsers)) {
+                written = dirtyUsers.size();
+                for (User user : dirtyUsers) {
+                    unsavedKeys.remove(user.getUserName().toLowerCase());
+                }
+            } else {
+                for (User user : dirtyUsers) {
+                    user.markDirty();
+                    unsavedKeys.add(user.getUserName().toLowerCase());
+                }
+            }
+        }
+        recordSave(written);
+        if (added || !dirtyUsers.isEmpty()) {
+            modificationCount++;
+        }
+    }
+
+    /**
+     * Records that a save wrote the given number of records.
+     */
+    private void recordSave(int written) {
+        saveCount++;
+        recordsWritten += written;
+        lastSaveRecordCount = written;
+    }
+
+    /**
+     * Adds the given user's updated information to userMap and saves the user.
+     *
+     * @param user the updated User object to be added to userMap
+     */
+    public void updateUser(User user) {
+        updateUsersTopStats(user);
+        createUser(user);
+    }
+
+    /**
+     * Adds the given users' updated information to userMap and saves the users in a single write.
+     *
+     * @param users the updated User objects to be added to userMap
+     */
+    public void updateUsers(Collection<User> users) {
+        for (User user : users) {
+            updateUsersTopStats(user);
+        }
+        createUsers(users);
+    }
+
+    /**
+     * Updates the statistics of the given user's top game and the given user's top individual
+     * statistics. Applying the update more than once has no further effect.
+     *
+     * @param user the User object whose top statistics are updated
+     */
+    static void updateUsersTopStats(User user) {
+        updateUsersTopGameStats(user);
+        updateUsersTopIndStats(user);
+    }
+
+    /**
+     * Updates the statistics of the given user's top game.
+     */
+    private static void updateUsersTopGameStats(User user) {
+        // If the user's current score is higher than their top score, update the statistics of
+        // their top game
+        if (ScoreCalculator.calculateCurrentScore(user) > ScoreCalculator.calculateTopScore(user)) {
+            user.getStatsOfTopGame().setPoints(user.getStatsOfCurrentGame().getPoints());
+            user.getStatsOfTopGame().setStars(user.getStatsOfCurrentGame().getStars());
+            user.getStatsOfTopGame().setTaps(user.getStatsOfCurrentGame().getTaps());
+        }
+    }
+
+    /**
+     * Updates the given user's top individual statistics.
+     */
+    private static void updateUsersTopIndStats(User user) {
+        int currentPoints = user.getStatsOfCurrentGame().getPoints();
+        int currentStars = user.getStatsOfCurrentGame().getStars();
+        int currentTaps = user.getStatsOfCurrentGame().getTaps();
+
+        // If the user's current individual statistic is higher than their top individual statistic,
+        // update it
+        if (currentPoints > user.getTopIndividualStats().getPoints()) {
+            user.getTopIndividualStats().setPoints(currentPoints);
+        }
+        if (currentStars > user.getTopIndividualStats().getStars()) {
+            user.getTopIndividualStats().setStars(currentStars);
+        }
+        if (currentTaps > user.getTopIndividualStats().getTaps()) {
+            user.getTopIndividualStats().setTaps(currentTaps);
+        }
+    }
+
+    /**
+     * Returns the number of times the users have been modified. It grows whenever a user is added
+     * or a changed user is saved, and whenever the users are loaded.
+     *
+     * @return the modification count
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Returns the number of records the latest save wrote. A save of a user without unsaved changes
+     * writes none.
+     *
+     * @return the number of records written by the latest create or update
+     */
+    public int getLastSaveRecordCount() {
+        return lastSaveRecordCount;
+    }
+
+    /**
+     * Returns the number of records written per save on average.
+     *
+     * @return the number of records written per save, or 0 if nothing was saved yet
+     */
+    public double getRecordsWrittenPerSave() {
+        return saveCount == 0 ? 0 : (double) recordsWritten / saveCount;
+    }
+
+    /**
+     * Returns the number of records written by every save so far, not counting compactions.
+     *
+     * @return the number of records written
+     */
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    /**
+     * Returns whether the given user can be saved. Every user can be, unless a subclass's format
+     * limits it.
+     *
+     * @param user a User object
+     * @return true if the user can be saved, and false otherwise
+     */
+    public boolean canSave(User user) {
+        return true;
+    }
+
+    /**
+     * Returns the user in userMap with the given username. If no such user exists, return null.
+     *
+     * @param username the username of a User
+     * @return the User object with the given username. If no such User object exists, return null
+     */
+    public User getUser(String username) {
+        return userMap.get(username);
+    }
+
+    /**
+     * Returns the given user's top score.
+     *
+     * @param user a User object
+     * @return the top score of the User object
+     */
+    public int getTopScore(User user) {
+        return ScoreCalculator.calculateTopScore(user);
+    }
+
+    /**
+     * Returns the given user's current score.
+     *
+     * @param user a User object
+     * @return the current score of the User object
+     */
+    public int getCurrentScore(User user) {
+        return ScoreCalculator.calculateCurrentScore(user);
+    }
+
+    /**
+     * Discards the leaderboards so that they are built from scratch when they are next used. This
+     * should be called after userMap is loaded, which keeps building them off the startup path.
+     */
+    protected void invalidateLeaderboards() {
+        leaderboards.clear();
+        leaderboardsStale = true;
+        modificationCount++;
+    }
+
+    /**
+     * Adds every user to the given leaderboards, or moves the ones already in them to their
+     * current position.
+     *
+     * @param index the leaderboards to add the users to
+     */
+    protected void buildLeaderboards(LeaderboardIndex index) {
+        for (User user : userMap.values()) {
+            index.update(user);
+        }
+    }
+
+    /**
+     * Returns a task that adds every user to the given leaderboards. It is called while holding
+     * this data manager's lock, and only copies what the task needs, so that the task can be run
+     * without holding it. A user that changes before the task reads it may be added with stale
+     * values, so the users changed in the meantime have to be indexed again afterwards.
+     *
+     * @param index the leaderboards to add the users to
+     * @return the task that adds the users
+     */
+    protected Runnable newLeaderboardsBuilder(final LeaderboardIndex index) {
+        final List<User> users = new ArrayList<>(userMap.values());
+        return new Runnable() {
+            @Override
+            public void run() {
+                for (User user : users) {
+                    index.update(user);
+                }
+            }
+        };
+    }
+
+    /**
+     * Moves the user with the given key to its current position in the given leaderboards, or
+     * adds it if it is not in them yet.
+     *
+     * @param index the leaderboards to update
+     * @param key   the lowercase username of the user
+     */
+    protected void reindexUser(LeaderboardIndex index, String key) {
+        User user = userMap.get(key);
+        if (user != null) {
+            index.update(user);
+        }
+    }
+
+    /**
+     * Returns the leaderboards, adding every user to them first if they were invalidated. The
+     * leaderboards build their trees themselves once a query needs them.
+     *
+     * @return the up to date leaderboards of all the users
+     */
+    protected LeaderboardIndex getLeaderboards() {
+        if (leaderboardsStale) {
+            buildLeaderboards(leaderboards);
+            leaderboardsStale = false;
+        }
+        return leaderboards;
+    }
+
+    /**
+     * Returns the leaderboards with their trees built, which the rank, neighborhood and page
+     * queries need. If they are not built yet, they are loaded from a saved snapshot when
+     * possible, and otherwise built from every user.
+     */
+    private LeaderboardIndex getBuiltLeaderboards() {
+        if (leaderboardsStale || !leaderboards.isBuilt()) {
+            leaderboards.clear();
+            leaderboardsStale = true;
+            if (loadLeaderboards(leaderboards)) {
+                leaderboardsStale = false;
+            } else {
+                getLeaderboards().build();
+                onLeaderboardsBuilt();
+            }
+        }
+        return leaderboards;
+    }
+
+    /**
+     * Loads the leaderboards of all the users into the given empty leaderboards from a saved
+     * snapshot, if there is one that is still up to date. Subclasses that save snapshots should
+     * override this.
+     *
+     * @param index the empty leaderboards to load into
+     * @return true if the leaderboards were loaded, and false if they have to be built instead
+     */
+    protected boolean loadLeaderboards(LeaderboardIndex index) {
+        return false;
+    }
+
+    /**
+     * Loads or builds the leaderboards with their trees, unless that was done already, so that
+     * the first rank, neighborhood or page query does not have to. The slow part is done on new
+     * leaderboards without holding this data manager's lock, so reads and writes that hold it,
+     * as WriteBehindDataManager's do, can go on meanwhile. Only the users created or updated in
+     * the meantime, and for a loaded snapshot the users whose latest save failed, are then
+     * indexed again before the new leaderboards replace the old ones.
+     */
+    public void warmUp() {
+        synchronized (warmUpLock) {
+            synchronized (this) {
+                if (!leaderboardsStale && leaderboards.isBuilt()) {
+                    return;
+                }
+                changedDuringWarmUp = new HashSet<>();
+            }
+            try {
+                warmUpLeaderboards();
+            } finally {
+                synchronized (this) {
+                    changedDuringWarmUp = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads or builds new leaderboards while changedDuringWarmUp collects the users that change
+     * meanwhile, and replaces the leaderboards with them.
+     */
+    private void warmUpLeaderboards() {
+        LeaderboardIndex index = new LeaderboardIndex();
+        index.clear();
+        // A snapshot holds the users as they are in the file, which has every user's latest
+        // values apart from the unsaved users and the ones changed since the warm-up started
+        boolean loaded = loadLeaderboards(index);
+        if (!loaded) {
+            index.clear();
+            Runnable builder;
+            synchronized (this) {
+                builder = newLeaderboardsBuilder(index);
+                // The builder copied every change made so far
+                changedDuringWarmUp.clear();
+            }
+            builder.run();
+        }
+        index.build();
+
+        synchronized (this) {
+            if (!leaderboardsStale && leaderboards.isBuilt()) {
+                // A query built them while these were being built
+                return;
+            }
+            for (String key : changedDuringWarmUp) {
+                reindexUser(index, key);
+            }
+            if (loaded) {
+                for (String key : unsavedKeys) {
+                    reindexUser(index, key);
+                }
+            }
+            leaderboards = index;
+            leaderboardsStale = false;
+            if (!loaded) {
+                onLeaderboardsBuilt();
+            }
+        }
+    }
+
+    /**
+     * Called after the leaderboards were built from every user, e.g. to save a snapshot of them.
+     */
+    protected void onLeaderboardsBuilt() {
+    }
+
+    /**
+     * Moves the given user to its new position in the leaderboards, unless they are going to be
+     * built from scratch anyway, and records it as changed for the running warm-up, if any.
+     */
+    private void updateLeaderboards(User user) {
+        if (!leaderboardsStale) {
+            leaderboards.update(user);
+        }
+        if (changedDuringWarmUp != null) {
+            changedDuringWarmUp.add(user.getUserName().toLowerCase());
+        }
+    }
+
+    /**
+     * Returns the top k users (sorted in non-increasing order) under the given criterion. They are
+     * read off the leaderboards if those are up to date, and otherwise selected in a single pass
+     * over all the users, so a query never waits for the leaderboards to be built.
+     *
+     * @param k         the maximum number of users to return
+     * @param criterion the criterion to rank the users by
+     * @return a list of at most k User objects sorted (in non-increasing order) under the criterion
+     */
+    public List<User> topK(int k, Criterion criterion) {
+        List<String> keys;
+        if (leaderboardsStale || !leaderboards.isBuilt()) {
+            keys = selectTopKeys(k, criterion);
+        } else {
+            keys = leaderboards.topKeys(k, criterion);
+        }
+
+        List<User> users = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            users.add(getUser(key));
+        }
+        return users;
+    }
+
+    /**
+     * Returns the rank of the user with the given username under the given criterion, in
+     * logarithmic time once the leaderboards are built.
+     *
+     * @param username  the username of a User
+     * @param criterion the criterion to rank the users by
+     * @return the rank of the User, starting from 1, or 0 if no such User exists
+     */
+    public int getRank(String username, Criterion criterion) {
+        return getBuiltLeaderboards().rank(username.toLowerCase(), criterion);
+    }
+
+    /**
+     * Returns the users around the user with the given username under the given criterion, in
+     * O(radius log n) time once the leaderboards are built.
+     *
+     * @param username  the username of a User
+     * @param criterion the criterion to rank the users by
+     * @param radius    the maximum number of users to return on either side of the User
+     * @return a list of User objects sorted (in non-increasing order) under the criterion, or an
+     * empty list if no such User exists
+     */
+    public List<User> getNeighborhood(String username, Criterion criterion, int radius) {
+        LeaderboardIndex leaderboardIndex = getBuiltLeaderboards();
+        int position = leaderboardIndex.positionOf(username.toLowerCase(), criterion);
+        List<User> users = new ArrayList<>();
+        if (position >= 0) {
+            radius = Math.max(0, radius);
+            for (String key : leaderboardIndex.keysInRange(
+                    criterion, position - radius, position + radius + 1)) {
+                users.add(getUser(key));
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Returns the page of up to pageSize users (sorted in non-increasing order) under the given
+     * criterion that follows the given cursor, in O(pageSize log n) time once the leaderboards are
+     * built, however deep the page is.
+     *
+     * @param criterion the criterion to rank the users by
+     * @param cursor    the cursor of a previous page, or null for the first page
+     * @param pageSize  the maximum number of users on the page
+     * @return the page of users, with the cursor of the page after it
+     * @throws IllegalArgumentException if the cursor is malformed or pageSize is not positive
+     */
+    public LeaderboardPage getLeaderboardPage(Criterion criterion, String cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        LeaderboardIndex.Entry after =
+                cursor == null ? null : LeaderboardIndex.decodeCursor(cursor);
+        // Fetch one extra entry to find out whether there is a page after this one
+        List<LeaderboardIndex.Entry> entries =
+                getBuiltLeaderboards().entriesAfter(criterion, after, pageSize + 1);
+
+        List<User> users = new ArrayList<>();
+        String nextCursor = null;
+        for (LeaderboardIndex.Entry entry : entries) {
+            if (users.size() == pageSize) {
+                nextCursor = LeaderboardIndex.encodeCursor(entries.get(pageSize - 1));
+                break;
+            }
+            users.add(getUser(entry.key));
+        }
+        return new LeaderboardPage(users, nextCursor);
+    }
+
+    /**
+     * Returns the percentage of the other users that the user with the given username beats under
+     * the given criterion, read off a histogram in logarithmic time. Users whose value is within
+     * about 3% of the user's value are not counted as beaten.
+     *
+     * @param username  the username of a User
+     * @param criterion the criterion to compare the users by
+     * @return the percentage of the other users with a lower value, from 0 to 100, or 0 if no such
+     * User exists
+     */
+    public double getPercentile(String username, Criterion criterion) {
+        return getLeaderboards().percentileOf(username.toLowerCase(), criterion);
+    }
+
+    /**
+     * Returns the number of users whose value under the given criterion falls in each of the
+     * given ranges, read off a histogram. Range i holds the values from boundaries[i], inclusive,
+     * to boundaries[i + 1], exclusive, and the last range has no upper end. Each boundary is
+     * accurate to within about 3%.
+     *
+     * @param criterion  the criterion to count the users by
+     * @param boundaries the lower end of each range, in increasing order
+     * @return the number of users in each range
+     */
+    public int[] getHistogram(Criterion criterion, int[] boundaries) {
+        return getLeaderboards().histogram(criterion, boundaries);
+    }
+
+    /**
+     * Returns every user (sorted in non-increasing order) under the given criterion. The values
+     * are sorted as packed primitives with a parallel sort, and each user is only looked up once
+     * the returned list is read at the user's position.
+     *
+     * @param criterion the criterion to rank the users by
+     * @return a list of every User sorted (in non-increasing order) under the criterion
+     */
+    public List<User> getFullRanking(Criterion criterion) {
+        FullRanking ranking = new FullRanking(this, userMap.size());
+        for (Map.Entry<String, User> entry : userMap.entrySet()) {
+            ranking.add(entry.getKey(), criterion.getValue(entry.getValue()));
+        }
+        ranking.sort();
+        return ranking;
+    }
+
+    /**
+     * Returns the keys of the top k users (in non-increasing order) under the given criterion,
+     * selected with a bounded heap in a single pass over all the users.
+     *
+     * @param k         the maximum number of keys to return
+     * @param criterion the criterion to rank the users by
+     * @return the lowercase usernames of at most k users, highest value first
+     */
+    protected List<String> selectTopKeys(int k, Criterion criterion) {
+        TopKSelector selector = new TopKSelector(k);
+        for (Map.Entry<String, User> entry : userMap.entrySet()) {
+            selector.offer(criterion.getValue(entry.getValue()), entry.getKey());
+        }
+        return selector.getKeys();
+    }
+}
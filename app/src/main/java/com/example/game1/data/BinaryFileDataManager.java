@@ -0,0 +1,444 @@
+package com.example.game1.data;
+
+import android.util.Log;
+
+import com.example.game1.presentation.model.Customization;
+import com.example.game1.presentation.model.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A file based data manager that stores each user as a fixed-width binary record. Records are read
+ * through a memory-mapped view of the file, and a saved user is written in place over its own
+ * slot, so neither loading nor saving has to parse or rewrite any text.
+ *
+ * <p>A record consists of the length-prefixed username and password, the ordinals of the user's
+ * customization choices, the nine statistics of the user's top individual statistics, top game
+ * and current game, the user's last completed level, a sequence number and a CRC-32 checksum of
+ * everything before it.
+ *
+ * <p>Each user's slot holds two copies of its record, and a save overwrites the older copy with a
+ * higher sequence number. A write torn by a crash fails its checksum, so loading falls back to the
+ * other copy, which holds the user as it was before that save.
+ */
+public class BinaryFileDataManager extends AbstractDataManager {
+
+    /* The file to write and read */
+    private static final String DATA_FILE = "game_data.bin";
+
+    /* The text file that is converted the first time the binary file is created */
+    private static final String TEXT_DATA_FILE = "game_data.txt";
+
+    private static final String TAG = "Binary Data Manager";
+
+    /* The header of the file: a magic number followed by the format version */
+    private static final int MAGIC = 0x47444231;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 8;
+
+    /* The maximum number of bytes in the UTF-8 encoding of a username or password */
+    private static final int MAX_STRING_BYTES = 62;
+
+    /* The size of a length-prefixed string field */
+    private static final int STRING_FIELD_SIZE = 2 + MAX_STRING_BYTES;
+
+    /* The offsets of a record's sequence number and checksum, after two string fields, three
+     * enum ordinals and a padding byte, and ten ints */
+    private static final int SEQUENCE_OFFSET = 2 * STRING_FIELD_SIZE + 4 + 10 * 4;
+    private static final int CHECKSUM_OFFSET = SEQUENCE_OFFSET + 4;
+
+    /* The size of a record, and of a slot holding two copies of it */
+    static final int RECORD_SIZE = CHECKSUM_OFFSET + 4;
+    private static final int SLOT_SIZE = 2 * RECORD_SIZE;
+
+    /* The binary persistence file, and the text file converted into it */
+    private final File dataFile;
+    private final File textDataFile;
+
+    /* The slot of each user's record in the file, keyed by lowercase username */
+    private Map<String, Integer> slots = new HashMap<>();
+
+    /* The sequence number of the newer copy of each user's record, keyed by lowercase username */
+    private Map<String, Integer> sequences = new HashMap<>();
+
+    /* The buffer a record is encoded into before it is written */
+    private ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_SIZE);
+
+    /**
+     * Constructs a BinaryFileDataManager that keeps the users in DATA_FILE.
+     */
+    public BinaryFileDataManager() {
+        this(FileDataManager.getAppFile(DATA_FILE), FileDataManager.getAppFile(TEXT_DATA_FILE));
+    }
+
+    /**
+     * Constructs a BinaryFileDataManager that keeps the users in the given binary file, converting
+     * the users in the given text file into it if it does not exist yet.
+     *
+     * @param dataFile     the binary persistence file
+     * @param textDataFile the text persistence file of FileDataManager
+     */
+    BinaryFileDataManager(File dataFile, File textDataFile) {
+        this.dataFile = dataFile;
+        this.textDataFile = textDataFile;
+    }
+
+    /**
+     * Reads the users in the binary file into userMap. If the binary file does not exist yet, the
+     * users in the text file used by FileDataManager are converted into it. If the conversion
+     * fails, the users of the text file are loaded but none can be saved, so hasDataFile should be
+     * checked afterwards.
+     */
+    @Override
+    public void load() {
+        if (dataFile.exists()) {
+            readFromFile(dataFile);
+        } else {
+            convertTextFile(dataFile);
+        }
+    }
+
+    /**
+     * Returns whether the binary file exists, i.e. whether it was loaded or the text file was
+     * converted into it. Until it does, no user can be saved.
+     *
+     * @return true if the binary file exists, and false otherwise
+     */
+    public boolean hasDataFile() {
+        return dataFile.exists();
+    }
+
+    /**
+     * Reads every slot in the given file through a memory-mapped buffer and stores the user in the
+     * newer intact copy of each into userMap.
+     *
+     * @param file the binary persistence file
+     */
+    private void readFromFile(File file) {
+        userMap.clear();
+        slots.clear();
+        sequences.clear();
+        recordFileLoad();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE
+                    || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                Log.e(TAG, "Invalid header: " + DATA_FILE);
+                return;
+            }
+
+            // The last slot may only hold its first copy, or only part of it
+            int numSlots = (buffer.capacity() - HEADER_SIZE + SLOT_SIZE - 1) / SLOT_SIZE;
+            for (int slot = 0; slot < numSlots; slot++) {
+                int offset = HEADER_SIZE + slot * SLOT_SIZE;
+                int newest = newerCopy(buffer, offset, offset + RECORD_SIZE);
+                if (newest < 0) {
+                    Log.e(TAG, "Discarded a slot without an intact record: " + slot);
+                    continue;
+                }
+                buffer.position(newest);
+                User user = decodeUser(buffer);
+                String key = user.getUserName().toLowerCase();
+                userMap.put(key, user);
+                slots.put(key, slot);
+                sequences.put(key, buffer.getInt(newest + SEQUENCE_OFFSET));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.e(TAG, "Error encountered trying to read file: " + DATA_FILE);
+        }
+        invalidateLeaderboards();
+    }
+
+    /**
+     * Returns the offset of the newer of the two intact copies of a record at the given offsets,
+     * or of the only one that is intact. Returns -1 if neither is.
+     */
+    private static int newerCopy(ByteBuffer buffer, int first, int second) {
+        boolean firstIntact = isIntact(buffer, first);
+        boolean secondIntact = isIntact(buffer, second);
+        if (firstIntact && secondIntact) {
+            int firstSequence = buffer.getInt(first + SEQUENCE_OFFSET);
+            int secondSequence = buffer.getInt(second + SEQUENCE_OFFSET);
+            return secondSequence - firstSequence > 0 ? second : first;
+        } else if (firstIntact) {
+            return first;
+        } else if (secondIntact) {
+            return second;
+        } else {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns whether the record at the given offset lies within the buffer and matches its
+     * checksum.
+     */
+    private static boolean isIntact(ByteBuffer buffer, int offset) {
+        return offset + RECORD_SIZE <= buffer.limit()
+                && checksum(buffer, offset) == buffer.getInt(offset + CHECKSUM_OFFSET);
+    }
+
+    /**
+     * Returns the CRC-32 checksum of the record at the given offset, up to its checksum field.
+     */
+    private static int checksum(ByteBuffer buffer, int offset) {
+        ByteBuffer record = buffer.duplicate();
+        record.limit(offset + CHECKSUM_OFFSET);
+        record.position(offset);
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Converts the users in TEXT_DATA_FILE into a new binary file. If there is no text file, an
+     * empty binary file is created. The file is written through a SnapshotWriter, so a conversion
+     * that fails leaves no binary file behind. It fails if any user does not fit in a record,
+     * rather than leaving that user out, and is then tried again the next time.
+     *
+     * @param file the binary persistence file to create
+     */
+    private void convertTextFile(File file) {
+        userMap.clear();
+        slots.clear();
+        sequences.clear();
+        if (textDataFile.exists()) {
+            FileDataManager textDataManager = new FileDataManager(textDataFile, 1);
+            textDataManager.load();
+            userMap.putAll(textDataManager.userMap);
+        }
+        invalidateLeaderboards();
+
+        Map<String, Integer> convertedSlots = new HashMap<>();
+        try (SnapshotWriter writer =
+                     new SnapshotWriter(file, SnapshotWriter.DurabilityPolicy.DATA)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION);
+            writer.write(header.array());
+            // Each user's first copy gets sequence number 0, and its second copy stays empty
+            byte[] emptyCopy = new byte[RECORD_SIZE];
+            for (Map.Entry<String, User> entry : userMap.entrySet()) {
+                if (!fitsInRecord(entry.getValue())) {
+                    throw new IOException("User does not fit in a record: " + entry.getKey());
+                }
+                encodeRecord(entry.getValue(), 0);
+                writer.write(recordBuffer.array());
+                writer.write(emptyCopy);
+                convertedSlots.put(entry.getKey(), convertedSlots.size());
+            }
+            writer.commit();
+            slots.putAll(convertedSlots);
+            for (String key : convertedSlots.keySet()) {
+                sequences.put(key, 0);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            Log.e(TAG, "Error encountered trying to convert file: " + TEXT_DATA_FILE);
+        }
+    }
+
+    /**
+     * Writes the given user's record over the older copy in its slot in DATA_FILE, or into a new
+     * slot at the end of the file if the user has no record yet.
+     *
+     * @param user the User object to be saved
+     * @return true if the record was written, and false if the write failed
+     */
+    @Override
+    protected boolean saveUser(User user) {
+        return saveUsers(Collections.singletonList(user));
+    }
+
+    /**
+     * Writes the records of the given users over the older copies in their slots in DATA_FILE,
+     * opening the file only once. A user without a record yet gets a new slot at the end of the
+     * file. A user whose username or password is too long for a record, which canSave keeps from
+     * being registered, is not written.
+     *
+     * @param users the User objects to be saved
+     * @return true if every record was written, and false if any user was not written
+     */
+    @Override
+    protected boolean saveUsers(Collection<User> users) {
+        if (!dataFile.exists()) {
+            // The conversion failed, so the file has no header yet; it is converted again next time
+            Log.e(TAG, "Cannot write to unconverted file: " + DATA_FILE);
+            return false;
+        }
+        boolean saved = true;
+        try (RandomAccessFile raf = new RandomAccessFile(dataFile, "rw");
+             FileChannel channel = raf.getChannel()) {
+            for (User user : users) {
+                if (!fitsInRecord(user)) {
+                    saved = false;
+                    continue;
+                }
+                String key = user.getUserName().toLowerCase();
+                Integer slot = slots.get(key);
+                Integer sequence = sequences.get(key);
+                if (slot == null) {
+                    slot = slots.size();
+                    sequence = -1;
+                }
+                writeRecord(channel, slot, sequence + 1, user);
+                slots.put(key, slot);
+                sequences.put(key, sequence + 1);
+            }
+            return saved;
+        } catch (IOException e) {
+            e.printStackTrace();
+            Log.e(TAG, "Error encountered trying to open file for writing: " + DATA_FILE);
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether the given user's username and password fit in a record, i.e. neither is
+     * longer than MAX_STRING_BYTES bytes in UTF-8.
+     *
+     * @param user a User object
+     * @return true if the user fits in a record, and false otherwise
+     */
+    @Override
+    public boolean canSave(User user) {
+        return fits(user.getUserName()) && fits(user.getPassword());
+    }
+
+    /**
+     * Returns whether the given string fits in a string field.
+     */
+    private static boolean fits(String str) {
+        return str.getBytes(StandardCharsets.UTF_8).length <= MAX_STRING_BYTES;
+    }
+
+    /**
+     * Returns whether the given user fits in a record, logging the user if it does not.
+     */
+    private boolean fitsInRecord(User user) {
+        if (!canSave(user)) {
+            Log.e(TAG, "Username or password too long to save: " + user.getUserName());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes the given user's record with the given sequence number over the copy in the given
+     * slot that the sequence number selects, which is the older one.
+     */
+    private void writeRecord(FileChannel channel, int slot, int sequence, User user)
+            throws IOException {
+        encodeRecord(user, sequence);
+        recordBuffer.flip();
+        long position = HEADER_SIZE + (long) slot * SLOT_SIZE + (sequence & 1) * RECORD_SIZE;
+        while (recordBuffer.hasRemaining()) {
+            position += channel.write(recordBuffer, position);
+        }
+    }
+
+    /**
+     * Encodes the given user's record with the given sequence number into recordBuffer, followed
+     * by its checksum.
+     */
+    private void encodeRecord(User user, int sequence) throws IOException {
+        recordBuffer.clear();
+        encodeUser(recordBuffer, user);
+        recordBuffer.putInt(sequence);
+        recordBuffer.putInt(checksum(recordBuffer, 0));
+    }
+
+    /**
+     * Encodes the given user into the bytes of a record before its sequence number.
+     *
+     * @param buffer the buffer to write the record to
+     * @param user   the User object to encode
+     * @throws IOException if the username or password is longer than MAX_STRING_BYTES bytes in
+     *                     UTF-8
+     */
+    static void encodeUser(ByteBuffer buffer, User user) throws IOException {
+        putString(buffer, user.getUserName());
+        putString(buffer, user.getPassword());
+        buffer.put((byte) user.getCustomization().getCharacterColour().ordinal());
+        buffer.put((byte) user.getCustomization().getColourScheme().ordinal());
+        buffer.put((byte) user.getCustomization().getMusicPath().ordinal());
+        buffer.put((byte) 0);
+        buffer.putInt(user.getTopIndividualStats().getPoints());
+        buffer.putInt(user.getTopIndividualStats().getStars());
+        buffer.putInt(user.getTopIndividualStats().getTaps());
+        buffer.putInt(user.getStatsOfTopGame().getPoints());
+        buffer.putInt(user.getStatsOfTopGame().getStars());
+        buffer.putInt(user.getStatsOfTopGame().getTaps());
+        buffer.putInt(user.getStatsOfCurrentGame().getPoints());
+        buffer.putInt(user.getStatsOfCurrentGame().getStars());
+        buffer.putInt(user.getStatsOfCurrentGame().getTaps());
+        buffer.putInt(user.getLastCompletedLevel());
+    }
+
+    /**
+     * Decodes a user from the record at the current position of the given buffer.
+     *
+     * @param buffer the buffer to read the record from
+     * @return the decoded User object
+     */
+    static User decodeUser(ByteBuffer buffer) {
+        User user = new User(getString(buffer), getString(buffer));
+        Customization customization = user.getCustomization();
+        customization.setCharacterColour(Customization.CharacterColour.values()[buffer.get()]);
+        customization.setColourScheme(Customization.ColourScheme.values()[buffer.get()]);
+        customization.setMusicPath(Customization.MusicPath.values()[buffer.get()]);
+        buffer.get();
+        user.getTopIndividualStats().setPoints(buffer.getInt());
+        user.getTopIndividualStats().setStars(buffer.getInt());
+        user.getTopIndividualStats().setTaps(buffer.getInt());
+        user.getStatsOfTopGame().setPoints(buffer.getInt());
+        user.getStatsOfTopGame().setStars(buffer.getInt());
+        user.getStatsOfTopGame().setTaps(buffer.getInt());
+        user.getStatsOfCurrentGame().setPoints(buffer.getInt());
+        user.getStatsOfCurrentGame().setStars(buffer.getInt());
+        user.getStatsOfCurrentGame().setTaps(buffer.getInt());
+        user.setLastCompletedLevel(buffer.getInt());
+        user.markClean();
+        return user;
+    }
+
+    /**
+     * Writes the given string as a length-prefixed field of STRING_FIELD_SIZE bytes.
+     *
+     * @throws IOException if the string is too long to fit in the field
+     */
+    private static void putString(ByteBuffer buffer, String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IOException(
+                    "String is longer than " + MAX_STRING_BYTES + " bytes: " + str);
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+        buffer.position(buffer.position() + MAX_STRING_BYTES - bytes.length);
+    }
+
+    /**
+     * Reads a length-prefixed field of STRING_FIELD_SIZE bytes.
+     */
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        buffer.position(buffer.position() + MAX_STRING_BYTES - length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
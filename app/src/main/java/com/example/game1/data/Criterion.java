@@ -0,0 +1,49 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+/**
+ * The criteria users can be ranked by on the scoreboard.
+ */
+public enum Criterion {
+
+    /* The score of the user's top game */
+    SCORE {
+        @Override
+        public int getValue(User user) {
+            return ScoreCalculator.calculateTopScore(user);
+        }
+    },
+
+    /* The user's top individual number of points */
+    POINTS {
+        @Override
+        public int getValue(User user) {
+            return user.getTopIndividualStats().getPoints();
+        }
+    },
+
+    /* The user's top individual number of stars */
+    STARS {
+        @Override
+        public int getValue(User user) {
+            return user.getTopIndividualStats().getStars();
+        }
+    },
+
+    /* The user's top individual number of taps */
+    TAPS {
+        @Override
+        public int getValue(User user) {
+            return user.getTopIndividualStats().getTaps();
+        }
+    };
+
+    /**
+     * Returns the value the given user is ranked by under this criterion.
+     *
+     * @param user a User object
+     * @return the value of the User object under this criterion
+     */
+    public abstract int getValue(User user);
+}
@@ -1,7 +1,9 @@
 package com.example.game1.data;
 
+import com.example.game1.presentation.model.LeaderboardPage;
 import com.example.game1.presentation.model.User;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -25,6 +27,30 @@ public interface DataManagerIntf {
      */
     void updateUser(User user);
 
+    /**
+     * Adds the given users in a single write. In the app, only WriteBehindDataManager writes users
+     * in batches, when it flushes the users it queued; every other caller saves one user at a time.
+     *
+     * @param users the User objects to be added
+     */
+    void createUsers(Collection<User> users);
+
+    /**
+     * Updates the given users' information in a single write.
+     *
+     * @param users the User objects to be updated
+     */
+    void updateUsers(Collection<User> users);
+
+    /**
+     * Returns whether the given user can be saved, e.g. whether its username and password fit in
+     * the format the users are persisted in.
+     *
+     * @param user a User object
+     * @return true if the user can be saved, and false otherwise
+     */
+    boolean canSave(User user);
+
     /**
      * Returns the user with the given username. If no such user exists, return null.
      *
@@ -50,30 +76,96 @@ public interface DataManagerIntf {
     int getCurrentScore(User user);
 
     /**
-     * Returns a list of users sorted (in non-decreasing order) by score
+     * Returns the top k users (sorted in non-increasing order) under the given criterion. Users
+     * with equal values are sorted alphabetically by username.
+     *
+     * @param k         the maximum number of users to return
+     * @param criterion the criterion to rank the users by
+     * @return a list of at most k User objects sorted (in non-increasing order) under the criterion
+     */
+    List<User> topK(int k, Criterion criterion);
+
+    /**
+     * Returns the rank of the user with the given username under the given criterion. Users with
+     * equal values share a rank, so the rank is one more than the number of users with a higher
+     * value.
+     *
+     * @param username  the username of a User
+     * @param criterion the criterion to rank the users by
+     * @return the rank of the User, starting from 1, or 0 if no such User exists
+     */
+    int getRank(String username, Criterion criterion);
+
+    /**
+     * Returns the users around the user with the given username under the given criterion: up to
+     * radius users ranked directly above the user, the user, and up to radius users ranked directly
+     * below the user.
+     *
+     * @param username  the username of a User
+     * @param criterion the criterion to rank the users by
+     * @param radius    the maximum number of users to return on either side of the User
+     * @return a list of User objects sorted (in non-increasing order) under the criterion, or an
+     * empty list if no such User exists
+     */
+    List<User> getNeighborhood(String username, Criterion criterion, int radius);
+
+    /**
+     * Returns the page of up to pageSize users (sorted in non-increasing order) under the given
+     * criterion that follows the given cursor.
+     *
+     * @param criterion the criterion to rank the users by
+     * @param cursor    the cursor of a previous page, or null for the first page
+     * @param pageSize  the maximum number of users on the page
+     * @return the page of users, with the cursor of the page after it
+     * @throws IllegalArgumentException if the cursor is malformed or pageSize is not positive
+     */
+    LeaderboardPage getLeaderboardPage(Criterion criterion, String cursor, int pageSize);
+
+    /**
+     * Returns every user (sorted in non-increasing order) under the given criterion, e.g. for an
+     * export or a report. The users may only be looked up as the list is read.
      *
-     * @return a list of User objects sorted (in non-decreasing order) by score
+     * @param criterion the criterion to rank the users by
+     * @return a list of every User sorted (in non-increasing order) under the criterion
      */
-    List sortUsersByScore();
+    List<User> getFullRanking(Criterion criterion);
 
     /**
-     * Returns a list of users sorted (in non-decreasing order) by number of points
+     * Returns the percentage of the other users that the user with the given username beats under
+     * the given criterion, i.e. that have a lower value. The result may be slightly low, as users
+     * with nearly the same value are not counted as beaten.
      *
-     * @return a list of User objects sorted (in non-decreasing order) by number of points
+     * @param username  the username of a User
+     * @param criterion the criterion to compare the users by
+     * @return the percentage of the other users with a lower value, from 0 to 100, or 0 if no such
+     * User exists
      */
-    List sortUsersByPoints();
+    double getPercentile(String username, Criterion criterion);
 
     /**
-     * Returns a list of users sorted (in non-decreasing order) by number of stars
+     * Returns the number of users whose value under the given criterion falls in each of the
+     * given ranges. Range i holds the values from boundaries[i], inclusive, to boundaries[i + 1],
+     * exclusive, and the last range has no upper end. Each boundary is accurate to within about
+     * 3%.
      *
-     * @return a list of User objects sorted (in non-decreasing order) by number of stars
+     * @param criterion  the criterion to count the users by
+     * @param boundaries the lower end of each range, in increasing order
+     * @return the number of users in each range
      */
-    List sortUsersByStars();
+    int[] getHistogram(Criterion criterion, int[] boundaries);
 
     /**
-     * Returns a list of users sorted (in non-decreasing order) by number of taps
+     * Returns the number of times the users have been modified. Results computed from the users
+     * remain valid as long as it stays the same.
      *
-     * @return a list of User objects sorted (in non-decreasing order) by number of taps
+     * @return the modification count
+     */
+    long getModificationCount();
+
+    /**
+     * Prepares whatever the queries need and is not ready yet, such as the leaderboards, so that
+     * the first query does not have to. It may take seconds, so it should be called on a
+     * background thread.
      */
-    List sortUsersByTaps();
+    void warmUp();
 }
@@ -3,323 +3,586 @@ package com.example.game1.data;
 import android.util.Log;
 
 import com.example.game1.AppManager;
-import com.example.game1.presentation.model.Customization;
 import com.example.game1.presentation.model.User;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * This is the file based data manager that implements the DataManagerIntf interface in the
  * persistence layer. It is responsible for storing, retrieving, and loading data in the persistence
  * file.
+ *
+ * <p>The persistence file is a journal: it starts with a snapshot of every user, followed by the
+ * records of users that were created or updated since the snapshot was taken. Saving a user only
+ * appends that user's record, and loading replays the file so that the last record of each user
+ * wins. Once the superseded records outnumber the live users, the file is compacted into a fresh
+ * snapshot, which keeps the amortized cost of a save constant.
+ *
+ * <p>Once the leaderboards have been built, they are saved as a LeaderboardSnapshot next to the
+ * persistence file, and saved again whenever the file is compacted. The next time they are needed,
+ * possibly after a restart, they are loaded from the snapshot and only the records appended to the
+ * journal since are replayed on top of it.
+ *
+ * <p>A FileDataManager starts without any user; the persistence file is only read by load.
  */
-public class FileDataManager implements DataManagerIntf {
-
-    /* Keys for writing to and reading from the file */
-    private static final String USERNAME = "UserName";
-    private static final String PASSWORD = "Password";
-    private static final String CHARAC_COLOUR = "CharacterColour";
-    private static final String COLOUR_SCHEME = "ColourScheme";
-    private static final String MUSIC = "Music";
-    private static final String TOP_GAME_POINTS = "PointsOfTopGame";
-    private static final String TOP_GAME_STARS = "StarsOfTopGame";
-    private static final String TOP_GAME_TAPS = "TapsOfTopGame";
-    private static final String CURR_GAME_POINTS = "PointsOfCurrentGame";
-    private static final String CURR_GAME_STARS = "StarsOfCurrentGame";
-    private static final String CURR_GAME_TAPS = "TapsOfCurrentGame";
-    private static final String TOP_IND_POINTS = "TopPoints";
-    private static final String TOP_IND_STARS = "TopStars";
-    private static final String TOP_IND_TAPS = "TopTaps";
-    private static final String LAST_COMP_LVL = "LastCompletedLevel";
+public class FileDataManager extends AbstractDataManager {
+
+    /* Keys for writing to and reading from the file, shared with UserRecordParser */
+    static final String USERNAME = "UserName";
+    static final String PASSWORD = "Password";
+    static final String CHARAC_COLOUR = "CharacterColour";
+    static final String COLOUR_SCHEME = "ColourScheme";
+    static final String MUSIC = "Music";
+    static final String TOP_GAME_POINTS = "PointsOfTopGame";
+    static final String TOP_GAME_STARS = "StarsOfTopGame";
+    static final String TOP_GAME_TAPS = "TapsOfTopGame";
+    static final String CURR_GAME_POINTS = "PointsOfCurrentGame";
+    static final String CURR_GAME_STARS = "StarsOfCurrentGame";
+    static final String CURR_GAME_TAPS = "TapsOfCurrentGame";
+    static final String TOP_IND_POINTS = "TopPoints";
+    static final String TOP_IND_STARS = "TopStars";
+    static final String TOP_IND_TAPS = "TopTaps";
+    static final String LAST_COMP_LVL = "LastCompletedLevel";
     private static final String TAG = "Data Manager";
 
     /* The file to write and read */
-    private static final String DATA_FILE = "game_data.txt";
+    static final String DATA_FILE = "game_data.txt";
+
+    /* The minimum number of superseded records in DATA_FILE before it is compacted */
+    private static final int MIN_COMPACTION_THRESHOLD = 64;
+
+    /* The minimum size of DATA_FILE, in bytes, for it to be parsed by more than one thread */
+    private static final int MIN_PARALLEL_LOAD_SIZE = 4 * 1024 * 1024;
+
+    /* The persistence file, DATA_FILE in the application's files directory unless a test gives
+     * another one */
+    private final File dataFile;
+
+    /* The number of threads that parse DATA_FILE */
+    private final int loadParallelism;
+
+    /* The number of user records in DATA_FILE, including the ones superseded by later records */
+    private int recordsInFile;
+
+    /* Whether DATA_FILE is known to end with a line break, as it does after a successful write */
+    private boolean endsWithLineBreak;
+
+    /* How far a new snapshot of DATA_FILE is forced to storage before it replaces the old one */
+    private SnapshotWriter.DurabilityPolicy durabilityPolicy =
+            SnapshotWriter.DurabilityPolicy.DATA;
 
-    /* The map that stores all the users */
-    private Map<String, User> userMap = new HashMap<>();
+    /* The average bytes per write call and the duration of the latest snapshot */
+    private double lastSnapshotBytesPerWrite;
+    private long lastSnapshotTimeNs;
 
     /**
-     * Constructs a FileDataManager
+     * Constructs a FileDataManager that parses a large persistence file with one thread per
+     * available processor.
      */
     public FileDataManager() {
-        readFromFile();
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a FileDataManager that parses a large persistence file with the given number of
+     * threads.
+     *
+     * @param loadParallelism the number of threads that parse the persistence file
+     */
+    public FileDataManager(int loadParallelism) {
+        this(getAppFile(DATA_FILE), loadParallelism);
+    }
+
+    /**
+     * Constructs a FileDataManager that keeps the users in the given persistence file and parses
+     * it with the given number of threads.
+     *
+     * @param dataFile        the persistence file
+     * @param loadParallelism the number of threads that parse the persistence file
+     */
+    FileDataManager(File dataFile, int loadParallelism) {
+        this.dataFile = dataFile;
+        this.loadParallelism = Math.max(1, loadParallelism);
+    }
+
+    /**
+     * Returns the file with the given name in the application's files directory.
+     *
+     * @param fileName the name of the file
+     * @return the file in the application's files directory
+     */
+    static File getAppFile(String fileName) {
+        return new File(AppManager.getInstance().getContext().getFilesDir().getPath() + fileName);
     }
 
     /**
-     * Writes all the users of this application to DATA_FILE.
+     * Returns DATA_FILE.
+     *
+     * @return the persistence file
+     */
+    File getDataFile() {
+        return dataFile;
+    }
+
+    /**
+     * Writes all the users of this application to DATA_FILE, replacing its contents with a fresh
+     * snapshot.
      *
      * @param users the Collection of User objects to write to file
      */
     private void writeToFile(Collection<User> users) {
-        PrintWriter out = null;
+        // The snapshot goes to a temporary file that only replaces DATA_FILE once it is complete
+        try (SnapshotWriter snapshot = openSnapshot()) {
+            PrintWriter out =
+                    new PrintWriter(new OutputStreamWriter(snapshot, StandardCharsets.UTF_8));
+            Iterator<User> iter = users.iterator();
+            while (iter.hasNext()) {
+                writeUser(out, iter.next());
+            }
+            if (out.checkError()) {
+                throw new IOException("Error encountered trying to write snapshot");
+            }
+            commitSnapshot(snapshot, users.size());
+        } catch (IOException e) {
+            e.printStackTrace();
+            Log.e(TAG, "Error encountered trying to write snapshot of file: " + DATA_FILE);
+        }
+    }
+
+    /**
+     * Opens a snapshot that will replace DATA_FILE once it is committed.
+     *
+     * @return a SnapshotWriter for DATA_FILE
+     * @throws IOException if the snapshot could not be opened
+     */
+    SnapshotWriter openSnapshot() throws IOException {
+        return new SnapshotWriter(getDataFile(), durabilityPolicy);
+    }
 
+    /**
+     * Commits the given snapshot of DATA_FILE and records its statistics.
+     *
+     * @param snapshot the snapshot to commit
+     * @param records  the number of user records in the snapshot
+     * @throws IOException if the snapshot could not be committed
+     */
+    void commitSnapshot(SnapshotWriter snapshot, int records) throws IOException {
+        // The leaderboard snapshot of the old file would not match the new one anyway
+        LeaderboardSnapshot.delete(getDataFile());
+        snapshot.commit();
+        recordsInFile = records;
+        lastSnapshotBytesPerWrite = snapshot.getBytesPerWrite();
+        lastSnapshotTimeNs = snapshot.getElapsedNs();
+        if (leaderboards.isBuilt()) {
+            writeLeaderboardSnapshot();
+        }
+    }
+
+    /**
+     * Saves the leaderboards as a snapshot of the current DATA_FILE, unless a user has changed
+     * since it was last saved or its save failed. The leaderboards and DATA_FILE may then disagree
+     * on that user, and a snapshot must hold exactly the users in the file.
+     */
+    private void writeLeaderboardSnapshot() {
+        for (User user : userMap.values()) {
+            if (user.isDirty()) {
+                return;
+            }
+        }
         try {
-            String filePath = AppManager.getInstance().getContext().getFilesDir().getPath() + DATA_FILE;
-            File file = new File(filePath);
-            FileOutputStream outStream = new FileOutputStream(file);
-            out = new PrintWriter(outStream);
-        } catch (FileNotFoundException e) {
+            LeaderboardSnapshot.write(getDataFile(), leaderboards);
+        } catch (IOException e) {
             e.printStackTrace();
-            Log.e(TAG, "Error encountered trying to open file for writing: " + DATA_FILE);
+            Log.e(TAG, "Error encountered trying to write leaderboard snapshot of: " + DATA_FILE);
         }
+    }
 
-        Iterator<User> iter = users.iterator();
-        while (iter.hasNext()) {
-            User user = iter.next();
-            out.println(USERNAME + ":" + user.getUserName());
-            out.println(PASSWORD + ":" + user.getPassword());
-            out.println(CHARAC_COLOUR + ":" + user.getCustomization().getCharacterColour());
-            out.println(COLOUR_SCHEME + ":" + user.getCustomization().getColourScheme());
-            out.println(MUSIC + ":" + user.getCustomization().getMusicPath());
-            out.println(TOP_IND_POINTS + ":" + user.getTopIndividualStats().getPoints());
-            out.println(TOP_IND_STARS + ":" + user.getTopIndividualStats().getStars());
-            out.println(TOP_IND_TAPS + ":" + user.getTopIndividualStats().getTaps());
-            out.println(TOP_GAME_POINTS + ":" + user.getStatsOfTopGame().getPoints());
-            out.println(TOP_GAME_STARS + ":" + user.getStatsOfTopGame().getStars());
-            out.println(TOP_GAME_TAPS + ":" + user.getStatsOfTopGame().getTaps());
-            out.println(CURR_GAME_POINTS + ":" + user.getStatsOfCurrentGame().getPoints());
-            out.println(CURR_GAME_STARS + ":" + user.getStatsOfCurrentGame().getStars());
-            out.println(CURR_GAME_TAPS + ":" + user.getStatsOfCurrentGame().getTaps());
-            out.println(LAST_COMP_LVL + ":" + user.getLastCompletedLevel());
-        }
-        out.close();
+    /**
+     * Saves a snapshot of the leaderboards that were just built, if they match DATA_FILE, so that
+     * they do not have to be built again.
+     */
+    @Override
+    protected void onLeaderboardsBuilt() {
+        writeLeaderboardSnapshot();
     }
 
     /**
-     * Reads the information in DATA_FILE and stores the information into userMap
+     * Loads the leaderboards from the snapshot of DATA_FILE, if its stamp matches the file, and
+     * replays the records appended to the file since the snapshot was taken.
+     *
+     * @param index the empty leaderboards to load into
+     * @return true if the leaderboards were loaded, and false if they have to be built instead
      */
-    private void readFromFile() {
-        String filePath = AppManager.getInstance().getContext().getFilesDir().getPath() + DATA_FILE;
-        userMap.clear();
+    @Override
+    protected boolean loadLeaderboards(LeaderboardIndex index) {
+        File dataFile = getDataFile();
+        try (RandomAccessFile file = new RandomAccessFile(dataFile, "r");
+             FileChannel channel = file.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            long covered = LeaderboardSnapshot.read(dataFile, buffer, index);
+            if (covered < 0) {
+                return false;
+            }
 
-        try (Scanner scanner = new Scanner(new FileInputStream(filePath))) {
-            User user = null;
-            while (scanner.hasNextLine()) {
-                String str = scanner.nextLine();
-                if (str != null && str.trim().length() > 0 && str.split(":").length > 1) {
-                    String[] line = str.split(":");
-                    String key = line[0];
-                    String value;
-                    if (USERNAME.equals(key)) {
-                        if (line.length > 1) {
-                            value = line[1];
-                            user = new User(value, "");
-                            userMap.put(value.toLowerCase(), user);
-                        } else {
-                            user = null;
-                        }
-                    } else if (user != null && line.length > 1) {
-                        value = line[1];
-                        if (PASSWORD.equals(key)) {
-                            user.setPassword(value);
-                        } else if (CHARAC_COLOUR.equals(key)) {
-                            String characColour = value;
-                            if (characColour.equals(Customization.CharacterColour.RED.toString())) {
-                                user.getCustomization().setCharacterColour(Customization.CharacterColour.RED);
-                            } else if (characColour.equals(Customization.CharacterColour.YELLOW.toString())) {
-                                user.getCustomization().setCharacterColour(Customization.CharacterColour.YELLOW);
-                            } else {
-                                user.getCustomization().setCharacterColour(Customization.CharacterColour.BLUE);
-                            }
-                        } else if (COLOUR_SCHEME.equals(key)) {
-                            String colourScheme = value;
-                            if (colourScheme.equals(Customization.ColourScheme.LIGHT.toString())) {
-                                user.getCustomization().setColourScheme(Customization.ColourScheme.LIGHT);
-                            } else {
-                                user.getCustomization().setColourScheme(Customization.ColourScheme.DARK);
-                            }
-                        } else if (MUSIC.equals(key)) {
-                            String music = value;
-                            if (music.equals(Customization.MusicPath.SONG2.toString())) {
-                                user.getCustomization().setMusicPath(Customization.MusicPath.SONG2);
-                            } else if (music.equals(Customization.MusicPath.SONG3.toString())) {
-                                user.getCustomization().setMusicPath(Customization.MusicPath.SONG3);
-                            } else {
-                                user.getCustomization().setMusicPath(Customization.MusicPath.SONG1);
-                            }
-                        } else if (TOP_GAME_POINTS.equals(key)) {
-                            user.getStatsOfTopGame().setPoints(Integer.parseInt(value));
-                        } else if (TOP_GAME_STARS.equals(key)) {
-                            user.getStatsOfTopGame().setStars(Integer.parseInt(value));
-                        } else if (TOP_GAME_TAPS.equals(key)) {
-                            user.getStatsOfTopGame().setTaps(Integer.parseInt(value));
-                        } else if (CURR_GAME_POINTS.equals(key)) {
-                            user.getStatsOfCurrentGame().setPoints(Integer.parseInt(value));
-                        } else if (CURR_GAME_STARS.equals(key)) {
-                            user.getStatsOfCurrentGame().setStars(Integer.parseInt(value));
-                        } else if (CURR_GAME_TAPS.equals(key)) {
-                            user.getStatsOfCurrentGame().setTaps(Integer.parseInt(value));
-                        } else if (TOP_IND_POINTS.equals(key)) {
-                            user.getTopIndividualStats().setPoints(Integer.parseInt(value));
-                        } else if (TOP_IND_STARS.equals(key)) {
-                            user.getTopIndividualStats().setStars(Integer.parseInt(value));
-                        } else if (TOP_IND_TAPS.equals(key)) {
-                            user.getTopIndividualStats().setTaps(Integer.parseInt(value));
-                        } else if (LAST_COMP_LVL.equals(key)) {
-                            user.setLastCompletedLevel(Integer.parseInt(value));
-                        } else {
-                            Log.e(TAG, "Invalid key: " + DATA_FILE);
-                        }
-                    }
+            // A user's last record in the journal is its latest, so the users parsed from the
+            // appended records are up to date. As when loading, a record cut short by a crash
+            // only counts for a user without any complete record.
+            Map<String, User> appended = new HashMap<>();
+            UserRecordParser parser = new UserRecordParser();
+            parser.parse(buffer, (int) covered, buffer.limit(), appended);
+            for (Map.Entry<String, User> entry : appended.entrySet()) {
+                if (!parser.getIncompleteKeys().contains(entry.getKey())
+                        || !index.contains(entry.getKey())) {
+                    index.update(entry.getValue());
                 }
             }
-        } catch (Exception e) {
+            return true;
+        } catch (IOException e) {
             e.printStackTrace();
-            Log.e(TAG, "Error encountered trying to open file for reading: " + DATA_FILE);
+            Log.e(TAG, "Error encountered trying to read leaderboard snapshot of: " + DATA_FILE);
+            index.clear();
+            return false;
         }
     }
 
     /**
-     * Adds the given user to userMap and write userMap to file.
+     * Replaces DATA_FILE with a fresh snapshot that only holds the latest record of each user.
+     */
+    protected void compact() {
+        writeToFile(userMap.values());
+    }
+
+    /**
+     * Returns the number of users stored in DATA_FILE.
      *
-     * @param user the User object to be added to userMap
+     * @return the number of users
      */
-    public void createUser(User user) {
-        userMap.put(user.getUserName().toLowerCase(), user);
-        Collection<User> users = userMap.values();
-        writeToFile(users);
+    protected int getUserCount() {
+        return userMap.size();
     }
 
     /**
-     * Adds the given user's updated information to userMap and write userMap to file.
+     * Called after a user's record was appended to DATA_FILE.
      *
-     * @param user the updated User object to be added to userMap
+     * @param user   the User object whose record was appended
+     * @param offset the offset of the record in DATA_FILE
+     * @param length the length of the record, in bytes
      */
-    public void updateUser(User user) {
-        updateUsersTopGameStats(user);
-        updateUsersTopIndStats(user);
-        createUser(user);
+    protected void onRecordAppended(User user, long offset, int length) {
     }
 
     /**
-     * Updates the statistics of the given user's top game.
+     * Appends the records of the given users to the journal at the end of DATA_FILE in a single
+     * write. Compacts the file once too many of its records have been superseded.
+     *
+     * @param users the User objects to append to file
+     * @return true if the records were appended, and false if the append failed
      */
-    private void updateUsersTopGameStats(User user) {
-        // If the user's current score is higher than their top score, update the statistics of
-        // their top game
-        if (getCurrentScore(user) > getTopScore(user)) {
-            user.getStatsOfTopGame().setPoints(user.getStatsOfCurrentGame().getPoints());
-            user.getStatsOfTopGame().setStars(user.getStatsOfCurrentGame().getStars());
-            user.getStatsOfTopGame().setTaps(user.getStatsOfCurrentGame().getTaps());
+    private boolean appendToFile(Collection<User> users) {
+        // Encode every record up front, remembering where each one ends
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(records, StandardCharsets.UTF_8));
+        int[] recordEnds = new int[users.size()];
+        int i = 0;
+        for (User user : users) {
+            writeUser(out, user);
+            out.flush();
+            recordEnds[i++] = records.size();
         }
+
+        File file = getDataFile();
+        long offset = file.length();
+        try {
+            // A crash in the middle of an append can leave the last record in the middle of a
+            // line. That line is cut off rather than ended, which would complete the record, and
+            // so that the first record appended after it does not continue it
+            if (!endsWithLineBreak && offset > 0) {
+                long lineEnd = endOfLastLine(file, offset);
+                if (lineEnd < offset) {
+                    truncate(file, lineEnd);
+                    offset = lineEnd;
+                }
+            }
+            try (FileOutputStream outStream = new FileOutputStream(file, true)) {
+                records.writeTo(outStream);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            Log.e(TAG, "Error encountered trying to append to file: " + DATA_FILE);
+            // The append may have stopped in the middle of a record
+            endsWithLineBreak = false;
+            return false;
+        }
+        endsWithLineBreak = true;
+
+        int recordStart = 0;
+        i = 0;
+        for (User user : users) {
+            onRecordAppended(user, offset + recordStart, recordEnds[i] - recordStart);
+            recordStart = recordEnds[i++];
+        }
+        recordsInFile += users.size();
+
+        int userCount = getUserCount();
+        if (recordsInFile - userCount > Math.max(MIN_COMPACTION_THRESHOLD, userCount)) {
+            compact();
+        }
+        return true;
     }
 
     /**
-     * Updates the given user's top individual statistics.
+     * Returns the length of the given file, of the given length, up to and including its last
+     * line break, or 0 if it has none.
      */
-    private void updateUsersTopIndStats(User user) {
-        int currentPoints = user.getStatsOfCurrentGame().getPoints();
-        int currentStars = user.getStatsOfCurrentGame().getStars();
-        int currentTaps = user.getStatsOfCurrentGame().getTaps();
-
-        // If the user's current individual statistic is higher than their top individual statistic,
-        // update it
-        if (currentPoints > user.getTopIndividualStats().getPoints()) {
-            user.getTopIndividualStats().setPoints(currentPoints);
-        }
-        if (currentStars > user.getTopIndividualStats().getStars()) {
-            user.getTopIndividualStats().setStars(currentStars);
+    private static long endOfLastLine(File file, long length) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            byte[] block = new byte[512];
+            long end = length;
+            while (end > 0) {
+                int size = (int) Math.min(block.length, end);
+                in.seek(end - size);
+                in.readFully(block, 0, size);
+                for (int i = size - 1; i >= 0; i--) {
+                    if (block[i] == '\n') {
+                        return end - size + i + 1;
+                    }
+                }
+                end -= size;
+            }
+            return 0;
         }
-        if (currentTaps > user.getTopIndividualStats().getTaps()) {
-            user.getTopIndividualStats().setTaps(currentTaps);
+    }
+
+    /**
+     * Cuts off the given file at the given length.
+     */
+    private void truncate(File file, long length) throws IOException {
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(length);
         }
+        onFileTruncated(length);
     }
 
     /**
-     * Returns the user in userMap with the given username. If no such user exists, return null.
+     * Called after the end of DATA_FILE, from the given length on, was cut off.
      *
-     * @param username the username of a User
-     * @return the User object with the given username. If no such User object exists, return null
+     * @param length the new length of DATA_FILE
      */
-    public User getUser(String username) {
-        return userMap.get(username);
+    protected void onFileTruncated(long length) {
     }
 
     /**
-     * Returns the given user's top score.
+     * Writes the record of the given user.
      *
-     * @param user a User object
-     * @return the top score of the User object
+     * @param out  the PrintWriter to write the record to
+     * @param user the User object to write
      */
-    public int getTopScore(User user) {
-        return ScoreCalculator.calculateScore(
-                user.getStatsOfTopGame().getPoints(),
-                user.getStatsOfTopGame().getStars(),
-                user.getStatsOfTopGame().getTaps());
+    private void writeUser(PrintWriter out, User user) {
+        out.println(USERNAME + ":" + user.getUserName());
+        out.println(PASSWORD + ":" + user.getPassword());
+        out.println(CHARAC_COLOUR + ":" + user.getCustomization().getCharacterColour());
+        out.println(COLOUR_SCHEME + ":" + user.getCustomization().getColourScheme());
+        out.println(MUSIC + ":" + user.getCustomization().getMusicPath());
+        out.println(TOP_IND_POINTS + ":" + user.getTopIndividualStats().getPoints());
+        out.println(TOP_IND_STARS + ":" + user.getTopIndividualStats().getStars());
+        out.println(TOP_IND_TAPS + ":" + user.getTopIndividualStats().getTaps());
+        out.println(TOP_GAME_POINTS + ":" + user.getStatsOfTopGame().getPoints());
+        out.println(TOP_GAME_STARS + ":" + user.getStatsOfTopGame().getStars());
+        out.println(TOP_GAME_TAPS + ":" + user.getStatsOfTopGame().getTaps());
+        out.println(CURR_GAME_POINTS + ":" + user.getStatsOfCurrentGame().getPoints());
+        out.println(CURR_GAME_STARS + ":" + user.getStatsOfCurrentGame().getStars());
+        out.println(CURR_GAME_TAPS + ":" + user.getStatsOfCurrentGame().getTaps());
+        // LAST_COMP_LVL must stay the last key, since it marks the end of a complete record
+        out.println(LAST_COMP_LVL + ":" + user.getLastCompletedLevel());
     }
 
     /**
-     * Returns the given user's current score.
+     * Reads the information in DATA_FILE and stores the information into userMap, replacing any
+     * user loaded before. Records are replayed in order, so a user's last record overrides its
+     * earlier ones, and a record left incomplete by a crash in the middle of an append is ignored.
+     */
+    @Override
+    public void load() {
+        userMap.clear();
+        recordsInFile = 0;
+        recordFileLoad();
+
+        if (SnapshotWriter.recover(getDataFile())) {
+            Log.w(TAG, "Discarded an incomplete snapshot of file: " + DATA_FILE);
+        }
+        LeaderboardSnapshot.recover(getDataFile());
+
+        try (RandomAccessFile file = new RandomAccessFile(getDataFile(), "r");
+             FileChannel channel = file.getChannel()) {
+            // Parse the records straight out of a memory-mapped view of the file
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            recordsInFile = loadRecords(buffer);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.e(TAG, "Error encountered trying to open file for reading: " + DATA_FILE);
+        }
+        invalidateLeaderboards();
+    }
+
+    /**
+     * Loads the records in the given buffer, which holds the contents of DATA_FILE, into userMap.
      *
-     * @param user a User object
-     * @return the current score of the User object
+     * @param buffer the buffer holding the contents of DATA_FILE
+     * @return the number of records in the buffer, including superseded and incomplete ones
+     * @throws InterruptedException if interrupted while waiting for the records to be parsed
+     * @throws ExecutionException   if the records could not be parsed
      */
-    public int getCurrentScore(User user) {
-        return ScoreCalculator.calculateScore(
-                user.getStatsOfCurrentGame().getPoints(),
-                user.getStatsOfCurrentGame().getStars(),
-                user.getStatsOfCurrentGame().getTaps());
+    protected int loadRecords(ByteBuffer buffer) throws InterruptedException, ExecutionException {
+        if (loadParallelism > 1 && buffer.limit() >= MIN_PARALLEL_LOAD_SIZE) {
+            return parseInParallel(buffer);
+        } else {
+            return new UserRecordParser().parse(buffer, 0, buffer.limit(), userMap);
+        }
     }
 
     /**
-     * Returns a list of users sorted (in non-decreasing order) by score
+     * Splits the given buffer into one chunk per thread, each starting at a record boundary,
+     * parses the chunks in parallel on a ForkJoinPool, and merges the users of the chunks into
+     * userMap in file order.
      *
-     * @return a list of User objects sorted (in non-decreasing order) by score
+     * @param buffer the buffer holding the contents of DATA_FILE
+     * @return the number of records in the buffer, including superseded and incomplete ones
      */
-    public List sortUsersByScore() {
-        return sortUsers(new ScoreComparator());
+    private int parseInParallel(ByteBuffer buffer)
+            throws InterruptedException, ExecutionException {
+        int end = buffer.limit();
+        List<ChunkParser> chunks = new ArrayList<>();
+        int chunkStart = 0;
+        for (int i = 1; i <= loadParallelism && chunkStart < end; i++) {
+            int chunkEnd = i == loadParallelism ? end : UserRecordParser.nextRecordStart(
+                    buffer, (int) ((long) end * i / loadParallelism), end);
+            if (chunkEnd > chunkStart) {
+                chunks.add(new ChunkParser(buffer.duplicate(), chunkStart, chunkEnd));
+                chunkStart = chunkEnd;
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(loadParallelism);
+        try {
+            int records = 0;
+            for (Future<ChunkParser> future : pool.invokeAll(chunks)) {
+                ChunkParser chunk = future.get();
+                records += chunk.recordCount;
+                // Merge as if the chunks had been parsed one after another: a user's complete
+                // record overrides earlier ones, while an incomplete one only fills a gap
+                for (Map.Entry<String, User> entry : chunk.users.entrySet()) {
+                    if (!chunk.incompleteKeys.contains(entry.getKey())
+                            || !userMap.containsKey(entry.getKey())) {
+                        userMap.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            return records;
+        } finally {
+            pool.shutdown();
+        }
     }
 
     /**
-     * Returns a list of users sorted (in non-decreasing order) by number of points
+     * Sets how far a new snapshot of the persistence file is forced to storage before it replaces
+     * the old one.
      *
-     * @return a list of User objects sorted (in non-decreasing order) by number of points
+     * @param durabilityPolicy the durability policy of future snapshots
      */
-    public List sortUsersByPoints() {
-        return sortUsers(new PointsComparator());
+    void setDurabilityPolicy(SnapshotWriter.DurabilityPolicy durabilityPolicy) {
+        this.durabilityPolicy = durabilityPolicy;
     }
 
     /**
-     * Returns a list of users sorted (in non-decreasing order) by number of stars
+     * Returns the average number of bytes per write call of the latest snapshot.
      *
-     * @return a list of User objects sorted (in non-decreasing order) by number of stars
+     * @return the bytes written per write call, or 0 if no snapshot was written yet
      */
-    public List sortUsersByStars() {
-        return sortUsers(new StarsComparator());
+    public double getLastSnapshotBytesPerWrite() {
+        return lastSnapshotBytesPerWrite;
     }
 
     /**
-     * Returns a list of users sorted (in non-decreasing order) by number of taps
+     * Returns how long the latest snapshot took, in nanoseconds.
      *
-     * @return a list of User objects sorted (in non-decreasing order) by number of taps
+     * @return the duration of the latest snapshot, or 0 if no snapshot was written yet
      */
-    public List sortUsersByTaps() {
-        return sortUsers(new TapsComparator());
+    public long getLastSnapshotTimeNs() {
+        return lastSnapshotTimeNs;
     }
 
     /**
-     * Returns a list of users sorted (in non-decreasing order) using the given comparator
+     * Appends the given user's record to file.
      *
-     * @param comparator a Comparator object
-     * @return a list of User objects sorted (in non-decreasing order) using the Comparator object
+     * @param user the User object to be saved
+     * @return true if the record was appended, and false if the append failed
      */
-    private List sortUsers(Comparator comparator) {
-        List<User> userList = new ArrayList(userMap.values());
-        Collections.sort(userList, comparator);
-        return userList;
+    @Override
+    protected boolean saveUser(User user) {
+        return appendToFile(Collections.singletonList(user));
+    }
+
+    /**
+     * Appends the records of the given users to file in a single write.
+     *
+     * @param users the User objects to be saved
+     * @return true if the records were appended, and false if the append failed
+     */
+    @Override
+    protected boolean saveUsers(Collection<User> users) {
+        return appendToFile(users);
+    }
+
+    /**
+     * A task that parses one chunk of DATA_FILE into its own map of users.
+     */
+    private static class ChunkParser implements Callable<ChunkParser> {
+
+        private final ByteBuffer buffer;
+        private final int start;
+        private final int end;
+
+        /* The users in this chunk, and the keys of those that only have an incomplete record */
+        private final Map<String, User> users = new HashMap<>();
+        private Set<String> incompleteKeys;
+
+        /* The number of records in this chunk */
+        private int recordCount;
+
+        private ChunkParser(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public ChunkParser call() {
+            UserRecordParser parser = new UserRecordParser();
+            recordCount = parser.parse(buffer, start, end, users);
+            incompleteKeys = parser.getIncompleteKeys();
+            return this;
+        }
     }
 }
@@ -0,0 +1,118 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * A ranking of every user under one criterion, highest value first, for exports and reports that
+ * need all of it. The usernames are sorted first, and each user's value is then packed together
+ * with the position of the user's username into a long, the value in the high 32 bits and the
+ * position in the low 32 bits, so sorting the longs with the parallel primitive Arrays.parallelSort
+ * sorts the users by value without comparing, or even touching, a User object. A user is only
+ * looked up, by its username, when the ranking is read at the user's position.
+ *
+ * <p>As on the leaderboards, users with equal values are in the order of their usernames, so a
+ * user's position in the ranking agrees with its rank.
+ */
+class FullRanking extends AbstractList<User> {
+
+    /* The data manager the users are looked up in */
+    private final DataManagerIntf users;
+
+    /* The lowercase username of each user, in the order they were added in until sorted and in
+     * alphabetical order after */
+    private String[] keys;
+
+    /* The value of each user until sorted, and the packed value and position of each user's
+     * username, in ascending order, after */
+    private long[] ranking;
+
+    private int size;
+
+    /**
+     * Constructs an empty FullRanking.
+     *
+     * @param users    the data manager to look the users up in
+     * @param capacity the expected number of users
+     */
+    FullRanking(DataManagerIntf users, int capacity) {
+        this.users = users;
+        keys = new String[Math.max(1, capacity)];
+        ranking = new long[keys.length];
+    }
+
+    /**
+     * Adds the user with the given key and value to the ranking. Every user is added before the
+     * ranking is sorted, and it is sorted once before it is read.
+     *
+     * @param key   the lowercase username of the user
+     * @param value the user's value under the criterion
+     */
+    void add(String key, int value) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * size);
+            ranking = Arrays.copyOf(ranking, 2 * size);
+        }
+        keys[size] = key;
+        ranking[size] = value;
+        size++;
+    }
+
+    /**
+     * Sorts the usernames, and then the users by value with a parallel sort of the packed values
+     * and positions of their usernames.
+     */
+    void sort() {
+        String[] sortedKeys = Arrays.copyOf(keys, size);
+        Arrays.parallelSort(sortedKeys);
+        for (int i = 0; i < size; i++) {
+            int position = Arrays.binarySearch(sortedKeys, keys[i]);
+            // Later usernames get lower packed positions, so that tied users come out in
+            // alphabetical order when the ranking is read from its end
+            ranking[i] = (ranking[i] << 32) | (Integer.MAX_VALUE - position);
+        }
+        keys = sortedKeys;
+        Arrays.parallelSort(ranking, 0, size);
+    }
+
+    /**
+     * Returns the user at the given position, looking it up in the data manager.
+     *
+     * @param index the position of the user, starting from 0 for the highest value
+     * @return the User at the given position
+     * @throws IndexOutOfBoundsException if the position is not within the ranking
+     */
+    @Override
+    public User get(int index) {
+        return users.getUser(keys[positionAt(index)]);
+    }
+
+    /**
+     * Returns the value of the user at the given position, without looking the user up.
+     *
+     * @param index the position of the user, starting from 0 for the highest value
+     * @return the value of the User at the given position
+     * @throws IndexOutOfBoundsException if the position is not within the ranking
+     */
+    int getValue(int index) {
+        return (int) (packedAt(index) >> 32);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private int positionAt(int index) {
+        return Integer.MAX_VALUE - (int) packedAt(index);
+    }
+
+    private long packedAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return ranking[size - 1 - index];
+    }
+}
@@ -0,0 +1,321 @@
+package com.example.game1.data;
+
+import android.util.Log;
+
+import com.example.game1.AppManager;
+import com.example.game1.presentation.model.Game;
+import com.example.game1.presentation.model.GameScore;
+import com.example.game1.presentation.model.Statistics;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The leaderboards of each game for each day and week. Every finished game is rolled up into the
+ * bucket of the day and the bucket of the week it finished in, which keep the best score of each
+ * user in that game and period, so a leaderboard is read from a single bucket instead of from the
+ * history of games. Buckets older than their period's retention expire automatically.
+ *
+ * <p>The finished games are journaled to ROLLUP_FILE, one line per game, so that the buckets
+ * survive a restart. Lines that only belong to expired buckets are dropped when the file is loaded.
+ * The lines are appended by a given Executor, e.g. the writer thread of a WriteBehindDataManager,
+ * so that recording a game never waits for the file.
+ */
+public class GameLeaderboards {
+
+    /**
+     * The periods a leaderboard can cover. Days and weeks start at midnight in the default time
+     * zone, and weeks start on Monday.
+     */
+    public enum Period {
+        DAY(1, 7),
+        WEEK(7, 4);
+
+        /* The length of a bucket of this period, in days */
+        private final int days;
+
+        /* The number of buckets of this period that are kept, including the current one */
+        private final int retention;
+
+        Period(int days, int retention) {
+            this.days = days;
+            this.retention = retention;
+        }
+
+        /**
+         * Returns the bucket of this period that the given local day falls in.
+         */
+        private long bucketOf(long day) {
+            // Day 0, 1 January 1970, was a Thursday, so shift by 3 days to start weeks on Monday
+            return this == WEEK ? Math.floorDiv(day + 3, days) : day;
+        }
+    }
+
+    /* The name of the file the finished games are journaled to by default */
+    private static final String ROLLUP_FILE = "game_rollups.txt";
+
+    /* The separator between the fields of a line in ROLLUP_FILE */
+    private static final String SEPARATOR = ",";
+
+    private static final String TAG = "Game Leaderboards";
+
+    /* The buckets of each game and period, keyed by bucket number. A bucket maps each lowercase
+     * username to that user's best score in the bucket. */
+    private final Map<Game.GameName, Map<Period, TreeMap<Long, Map<String, GameScore>>>> buckets =
+            new EnumMap<>(Game.GameName.class);
+
+    /* The file the finished games are journaled to, ROLLUP_FILE unless another one was given */
+    private final File rollupFile;
+
+    /* The Executor that appends the lines of the finished games to rollupFile, in order */
+    private final Executor journalWriter;
+
+    /**
+     * Constructs a GameLeaderboards and loads the finished games in ROLLUP_FILE that still belong
+     * to a bucket that has not expired.
+     *
+     * @param journalWriter the Executor that appends to ROLLUP_FILE. It must run the appends in
+     *                      the order they are given to it.
+     */
+    public GameLeaderboards(Executor journalWriter) {
+        this(new File(AppManager.getInstance().getContext().getFilesDir().getPath() + ROLLUP_FILE),
+                journalWriter);
+    }
+
+    /**
+     * Constructs a GameLeaderboards that journals the finished games to the given file, and loads
+     * the ones in it that still belong to a bucket that has not expired.
+     *
+     * @param rollupFile    the file to journal the finished games to
+     * @param journalWriter the Executor that appends to the file. It must run the appends in the
+     *                      order they are given to it.
+     */
+    public GameLeaderboards(File rollupFile, Executor journalWriter) {
+        this.rollupFile = rollupFile;
+        this.journalWriter = journalWriter;
+        for (Game.GameName game : Game.GameName.values()) {
+            Map<Period, TreeMap<Long, Map<String, GameScore>>> periods =
+                    new EnumMap<>(Period.class);
+            for (Period period : Period.values()) {
+                periods.put(period, new TreeMap<Long, Map<String, GameScore>>());
+            }
+            buckets.put(game, periods);
+        }
+        readFromFile(System.currentTimeMillis());
+    }
+
+    /**
+     * Records the given finished game of the given user at the given time, and has it journaled.
+     *
+     * @param username the username of the user who played the game
+     * @param game     the game that was finished
+     * @param timeMs   the time the game finished at, in milliseconds since the epoch
+     */
+    public synchronized void recordGame(String username, Game game, long timeMs) {
+        long day = toLocalDay(timeMs);
+        Statistics statistics = game.getStatistics();
+        int score = ScoreCalculator.calculateScore(
+                statistics.getPoints(), statistics.getStars(), statistics.getTaps());
+        expire(day);
+        addScore(game.getName(), day, username, score);
+
+        final String line = formatLine(day, game.getName(), score, username);
+        journalWriter.execute(new Runnable() {
+            @Override
+            public void run() {
+                appendLine(line);
+            }
+        });
+    }
+
+    /**
+     * Appends the given line to the journal.
+     */
+    private void appendLine(String line) {
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(rollupFile, true), StandardCharsets.UTF_8))) {
+            out.println(line);
+        } catch (IOException e) {
+            e.printStackTrace();
+            Log.e(TAG, "Error encountered trying to append to file: " + ROLLUP_FILE);
+        }
+    }
+
+    /**
+     * Returns the best scores of up to k users (sorted in non-increasing order) in the given game
+     * during the period that contains the given time.
+     *
+     * @param game   the game to rank the users in
+     * @param period the period to rank the users over
+     * @param k      the maximum number of scores to return
+     * @param timeMs a time in the period, in milliseconds since the epoch
+     * @return the best score of each of at most k users, highest score first
+     */
+    public synchronized List<GameScore> topK(
+            Game.GameName game, Period period, int k, long timeMs) {
+        long day = toLocalDay(timeMs);
+        expire(day);
+        Map<String, GameScore> bucket = buckets.get(game).get(period).get(period.bucketOf(day));
+        List<GameScore> scores = new ArrayList<>();
+        if (bucket == null) {
+            return scores;
+        }
+
+        TopKSelector selector = new TopKSelector(k);
+        for (Map.Entry<String, GameScore> entry : bucket.entrySet()) {
+            selector.offer(entry.getValue().getScore(), entry.getKey());
+        }
+        for (String key : selector.getKeys()) {
+            scores.add(bucket.get(key));
+        }
+        return scores;
+    }
+
+    /**
+     * Rolls the given score up into the buckets of every period that contain the given day,
+     * keeping only the best score of each user in each bucket.
+     */
+    private void addScore(Game.GameName game, long day, String username, int score) {
+        String key = username.toLowerCase();
+        for (Period period : Period.values()) {
+            TreeMap<Long, Map<String, GameScore>> periodBuckets = buckets.get(game).get(period);
+            long bucketNumber = period.bucketOf(day);
+            Map<String, GameScore> bucket = periodBuckets.get(bucketNumber);
+            if (bucket == null) {
+                bucket = new HashMap<>();
+                periodBuckets.put(bucketNumber, bucket);
+            }
+            GameScore best = bucket.get(key);
+            if (best == null || score > best.getScore()) {
+                bucket.put(key, new GameScore(username, score));
+            }
+        }
+    }
+
+    /**
+     * Drops the buckets that have fallen out of their period's retention as of the given day.
+     */
+    private void expire(long day) {
+        for (Map<Period, TreeMap<Long, Map<String, GameScore>>> periods : buckets.values()) {
+            for (Period period : Period.values()) {
+                periods.get(period).headMap(oldestBucket(period, day)).clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the oldest bucket of the given period that is kept as of the given day.
+     */
+    private static long oldestBucket(Period period, long day) {
+        return period.bucketOf(day) - period.retention + 1;
+    }
+
+    /**
+     * Returns whether a game finished on the given day still belongs to a bucket that is kept as of
+     * the given current day.
+     */
+    private static boolean isRetained(long day, long today) {
+        for (Period period : Period.values()) {
+            if (period.bucketOf(day) >= oldestBucket(period, today)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of the day in the default time zone that contains the given time, counting
+     * from 1 January 1970.
+     */
+    private static long toLocalDay(long timeMs) {
+        long localTimeMs = timeMs + TimeZone.getDefault().getOffset(timeMs);
+        return Math.floorDiv(localTimeMs, TimeUnit.DAYS.toMillis(1));
+    }
+
+    /**
+     * Returns the line of ROLLUP_FILE for a game. The username comes last, so that it may contain
+     * the separator.
+     */
+    private static String formatLine(long day, Game.GameName game, int score, String username) {
+        return day + SEPARATOR + game + SEPARATOR + score + SEPARATOR + username;
+    }
+
+    /**
+     * Loads the games in ROLLUP_FILE that belong to a bucket that is kept as of the given time.
+     * If any game was dropped, ROLLUP_FILE is rewritten with only the games that were kept.
+     */
+    private void readFromFile(long timeMs) {
+        if (!rollupFile.exists()) {
+            return;
+        }
+
+        long today = toLocalDay(timeMs);
+        List<String> kept = new ArrayList<>();
+        int dropped = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(rollupFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(SEPARATOR, 4);
+                try {
+                    long day = Long.parseLong(fields[0]);
+                    if (fields.length == 4 && isRetained(day, today)) {
+                        addScore(Game.GameName.valueOf(fields[1]), day, fields[3],
+                                Integer.parseInt(fields[2]));
+                        kept.add(line);
+                    } else {
+                        dropped++;
+                    }
+                } catch (IllegalArgumentException e) {
+                    Log.w(TAG, "Skipped a malformed line of file: " + ROLLUP_FILE);
+                    dropped++;
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            Log.e(TAG, "Error encountered trying to open file for reading: " + ROLLUP_FILE);
+            return;
+        }
+        expire(today);
+
+        if (dropped > 0) {
+            rewriteFile(rollupFile, kept);
+        }
+    }
+
+    /**
+     * Replaces the contents of the given file with the given lines, through a snapshot so that the
+     * file is never left half written.
+     */
+    private static void rewriteFile(File file, List<String> lines) {
+        try (SnapshotWriter snapshot =
+                     new SnapshotWriter(file, SnapshotWriter.DurabilityPolicy.NONE)) {
+            PrintWriter out =
+                    new PrintWriter(new OutputStreamWriter(snapshot, StandardCharsets.UTF_8));
+            for (String line : lines) {
+                out.println(line);
+            }
+            out.flush();
+            snapshot.commit();
+        } catch (IOException e) {
+            e.printStackTrace();
+            Log.e(TAG, "Error encountered trying to write snapshot of file: " + ROLLUP_FILE);
+        }
+    }
+}
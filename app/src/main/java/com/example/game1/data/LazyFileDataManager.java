@@ -0,0 +1,334 @@
+package com.example.game1.data;
+
+import android.util.Log;
+
+import com.example.game1.presentation.model.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A FileDataManager that loads users on demand. When it is loaded, it only builds an index from
+ * each lowercase username to the offset and length of the user's latest record in the persistence
+ * file, along with the values the user is ranked by on the scoreboard. A User object is only
+ * created when it is looked up, and at most a bounded number of them are kept in memory, in a least
+ * recently used cache.
+ *
+ * <p>Every created or updated user is appended to the file right away, so a user can be evicted
+ * from the cache at any time and loaded again later without losing any change.
+ */
+public class LazyFileDataManager extends FileDataManager {
+
+    private static final String TAG = "Lazy Data Manager";
+
+    /* The default maximum number of users kept in memory */
+    private static final int DEFAULT_CACHE_SIZE = 256;
+
+    /* The maximum number of users kept in memory */
+    private final int cacheSize;
+
+    /* The index of every user's latest record, keyed by lowercase username */
+    private final Map<String, UserIndexEntry> index = new HashMap<>();
+
+    /**
+     * Constructs a LazyFileDataManager that keeps at most DEFAULT_CACHE_SIZE users in memory.
+     */
+    public LazyFileDataManager() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructs a LazyFileDataManager that keeps at most the given number of users in memory.
+     *
+     * @param cacheSize the maximum number of users kept in memory
+     */
+    public LazyFileDataManager(int cacheSize) {
+        this(getAppFile(DATA_FILE), cacheSize);
+    }
+
+    /**
+     * Constructs a LazyFileDataManager that keeps the users in the given persistence file and at
+     * most the given number of them in memory.
+     *
+     * @param dataFile  the persistence file
+     * @param cacheSize the maximum number of users kept in memory
+     */
+    LazyFileDataManager(File dataFile, int cacheSize) {
+        super(dataFile, 1);
+        this.cacheSize = Math.max(1, cacheSize);
+        userMap = newCache();
+    }
+
+    /**
+     * Returns an empty least recently used cache of users that holds at most cacheSize users.
+     */
+    private Map<String, User> newCache() {
+        return new LinkedHashMap<String, User>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, User> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Builds the index of the persistence file, replacing any index built before, without
+     * loading any user.
+     */
+    @Override
+    public void load() {
+        // If the file cannot be read, start without any users
+        index.clear();
+        super.load();
+    }
+
+    /**
+     * Builds the index of the records in the given buffer instead of loading the users.
+     *
+     * @param buffer the buffer holding the contents of the persistence file
+     * @return the number of records in the buffer, including superseded and incomplete ones
+     */
+    @Override
+    protected int loadRecords(ByteBuffer buffer) {
+        return new UserRecordParser().index(buffer, 0, buffer.limit(), index);
+    }
+
+    /**
+     * Returns the user with the given username, loading it from the persistence file if it is
+     * not in the cache. If no such user exists, return null.
+     *
+     * @param username the username of a User
+     * @return the User object with the given username. If no such User object exists, return null
+     */
+    @Override
+    public User getUser(String username) {
+        User user = userMap.get(username);
+        if (user == null) {
+            UserIndexEntry entry = index.get(username);
+            if (entry != null) {
+                user = readRecord(entry);
+                if (user != null) {
+                    userMap.put(username, user);
+                }
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Reads the record located by the given index entry. Returns null if it could not be read.
+     */
+    private User readRecord(UserIndexEntry entry) {
+        try (RandomAccessFile file = new RandomAccessFile(getDataFile(), "r");
+             FileChannel channel = file.getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+            long position = entry.offset;
+            while (buffer.hasRemaining() && channel.read(buffer, position) > 0) {
+                position = entry.offset + buffer.position();
+            }
+            Map<String, User> users = new HashMap<>();
+            new UserRecordParser().parse(buffer, 0, buffer.position(), users);
+            return users.get(entry.key);
+        } catch (IOException e) {
+            e.printStackTrace();
+            Log.e(TAG, "Error encountered trying to read the record of: " + entry.key);
+            return null;
+        }
+    }
+
+    /**
+     * Points the given user's index entry at the record that was just appended.
+     */
+    @Override
+    protected void onRecordAppended(User user, long offset, int length) {
+        String key = user.getUserName().toLowerCase();
+        UserIndexEntry entry = index.get(key);
+        if (entry == null) {
+            entry = new UserIndexEntry(key);
+            index.put(key, entry);
+        }
+        entry.offset = offset;
+        entry.length = length;
+        entry.topScore = ScoreCalculator.calculateTopScore(user);
+        entry.topPoints = user.getTopIndividualStats().getPoints();
+        entry.topStars = user.getTopIndividualStats().getStars();
+        entry.topTaps = user.getTopIndividualStats().getTaps();
+        entry.complete = true;
+    }
+
+    /**
+     * Shortens the records that were cut off with the end of the persistence file. Such a record
+     * is incomplete anyway, and what is left of it is still read when its user is looked up.
+     */
+    @Override
+    protected void onFileTruncated(long length) {
+        for (UserIndexEntry entry : index.values()) {
+            if (entry.offset + entry.length > length) {
+                entry.length = (int) Math.max(0, length - entry.offset);
+            }
+        }
+    }
+
+    /**
+     * Builds the given leaderboards from the index, without loading any user.
+     *
+     * @param leaderboards the leaderboards to add the users to
+     */
+    @Override
+    protected void buildLeaderboards(LeaderboardIndex leaderboards) {
+        for (UserIndexEntry entry : index.values()) {
+            leaderboards.update(entry.key, getValues(entry));
+        }
+    }
+
+    /**
+     * Returns a task that builds the given leaderboards from a copy of the index entries, without
+     * loading any user. An entry the task reads while its record is being appended may be added
+     * with stale values, but its user is then indexed again, as for any changed user.
+     *
+     * @param leaderboards the leaderboards to add the users to
+     * @return the task that adds the users
+     */
+    @Override
+    protected Runnable newLeaderboardsBuilder(final LeaderboardIndex leaderboards) {
+        final List<UserIndexEntry> entries = new ArrayList<>(index.values());
+        return new Runnable() {
+            @Override
+            public void run() {
+                for (UserIndexEntry entry : entries) {
+                    leaderboards.update(entry.key, getValues(entry));
+                }
+            }
+        };
+    }
+
+    /**
+     * Moves the user with the given key to the position its index entry gives it in the given
+     * leaderboards, without loading the user.
+     *
+     * @param leaderboards the leaderboards to update
+     * @param key          the lowercase username of the user
+     */
+    @Override
+    protected void reindexUser(LeaderboardIndex leaderboards, String key) {
+        UserIndexEntry entry = index.get(key);
+        if (entry != null) {
+            leaderboards.update(key, getValues(entry));
+        }
+    }
+
+    @Override
+    protected int getUserCount() {
+        return index.size();
+    }
+
+    /**
+     * Replaces the persistence file with a fresh snapshot by copying the latest record of each
+     * user out of the current file, without loading any user.
+     */
+    @Override
+    protected void compact() {
+        List<UserIndexEntry> entries = new ArrayList<>(index.values());
+        long[] newOffsets = new long[entries.size()];
+
+        try (RandomAccessFile file = new RandomAccessFile(getDataFile(), "r");
+             FileChannel channel = file.getChannel();
+             SnapshotWriter snapshot = openSnapshot()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] record = new byte[0];
+            long offset = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                UserIndexEntry entry = entries.get(i);
+                if (record.length < entry.length) {
+                    record = new byte[Math.max(entry.length, 2 * record.length)];
+                }
+                buffer.position((int) entry.offset);
+                buffer.get(record, 0, entry.length);
+                snapshot.write(record, 0, entry.length);
+                newOffsets[i] = offset;
+                offset += entry.length;
+            }
+            commitSnapshot(snapshot, entries.size());
+        } catch (IOException e) {
+            e.printStackTrace();
+            Log.e(TAG, "Error encountered trying to compact file: " + DATA_FILE);
+            return;
+        }
+
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).offset = newOffsets[i];
+        }
+    }
+
+    /**
+     * Returns the keys of the top k users (in non-increasing order) under the given criterion,
+     * selected with a bounded heap in a single pass over the index, without loading any user.
+     *
+     * @param k         the maximum number of keys to return
+     * @param criterion the criterion to rank the users by
+     * @return the lowercase usernames of at most k users, highest value first
+     */
+    @Override
+    protected List<String> selectTopKeys(int k, Criterion criterion) {
+        TopKSelector selector = new TopKSelector(k);
+        for (UserIndexEntry entry : index.values()) {
+            selector.offer(getValue(entry, criterion), entry.key);
+        }
+        return selector.getKeys();
+    }
+
+    /**
+     * Returns every user (sorted in non-increasing order) under the given criterion, ranked from
+     * the index without loading any user. A user is only loaded once the returned list is read at
+     * the user's position.
+     *
+     * @param criterion the criterion to rank the users by
+     * @return a list of every User sorted (in non-increasing order) under the criterion
+     */
+    @Override
+    public List<User> getFullRanking(Criterion criterion) {
+        FullRanking ranking = new FullRanking(this, index.size());
+        for (UserIndexEntry entry : index.values()) {
+            ranking.add(entry.key, getValue(entry, criterion));
+        }
+        ranking.sort();
+        return ranking;
+    }
+
+    /**
+     * Returns the values of the user with the given index entry, by criterion ordinal.
+     */
+    private static int[] getValues(UserIndexEntry entry) {
+        Criterion[] criteria = Criterion.values();
+        int[] values = new int[criteria.length];
+        for (Criterion criterion : criteria) {
+            values[criterion.ordinal()] = getValue(entry, criterion);
+        }
+        return values;
+    }
+
+    /**
+     * Returns the value of the user with the given index entry under the given criterion.
+     */
+    private static int getValue(UserIndexEntry entry, Criterion criterion) {
+        switch (criterion) {
+            case POINTS:
+                return entry.topPoints;
+            case STARS:
+                return entry.topStars;
+            case TAPS:
+                return entry.topTaps;
+            default:
+                return entry.topScore;
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of leaderboards, one per criterion, each keeping users ordered by their value under that
+ * criterion. Users are identified by their lowercase username. Each leaderboard is an
+ * OrderStatisticTree, so updating a user, finding a user's rank and finding the user at a rank
+ * all take logarithmic time, and no query ever has to sort all the users.
+ *
+ * <p>Users with equal values are ordered by username, so the order of a leaderboard is stable.
+ *
+ * <p>Building the trees for many users is slow, so after the index is cleared they are only built
+ * once a query needs them. Until then, updates only record each user's values and the histogram
+ * of each criterion, which is enough to answer percentile and histogram queries.
+ */
+class LeaderboardIndex {
+
+    /* The separator between the value and the key in a cursor */
+    private static final String CURSOR_SEPARATOR = ":";
+
+    /* The leaderboard of each criterion */
+    private final Map<Criterion, OrderStatisticTree<Entry>> leaderboards =
+            new EnumMap<>(Criterion.class);
+
+    /* The values each user is currently indexed by, by criterion ordinal, keyed by lowercase
+     * username. They are needed to find a user's entries again after the User object changed. */
+    private final Map<String, int[]> indexedValues = new HashMap<>();
+
+    /* The histogram of the values under each criterion */
+    private final Map<Criterion, ScoreHistogram> histograms = new EnumMap<>(Criterion.class);
+
+    /* Whether the leaderboards hold every indexed user, as opposed to waiting to be built */
+    private boolean leaderboardsBuilt = true;
+
+    /**
+     * Constructs an empty LeaderboardIndex.
+     */
+    LeaderboardIndex() {
+        for (Criterion criterion : Criterion.values()) {
+            leaderboards.put(criterion, new OrderStatisticTree<Entry>());
+            histograms.put(criterion, new ScoreHistogram());
+        }
+    }
+
+    /**
+     * Adds the given user, or moves it to its new position if it is already indexed.
+     *
+     * @param user the User object to index
+     */
+    void update(User user) {
+        Criterion[] criteria = Criterion.values();
+        int[] values = new int[criteria.length];
+        for (Criterion criterion : criteria) {
+            values[criterion.ordinal()] = criterion.getValue(user);
+        }
+        update(user.getUserName().toLowerCase(), values);
+    }
+
+    /**
+     * Adds the user with the given key, or moves it to its new position if it is already indexed.
+     *
+     * @param key    the lowercase username of the user
+     * @param values the user's value under each criterion, by criterion ordinal
+     */
+    void update(String key, int[] values) {
+        int[] oldValues = indexedValues.put(key, values);
+        for (Criterion criterion : Criterion.values()) {
+            int ordinal = criterion.ordinal();
+            ScoreHistogram histogram = histograms.get(criterion);
+            OrderStatisticTree<Entry> leaderboard = leaderboards.get(criterion);
+            if (oldValues != null) {
+                if (oldValues[ordinal] == values[ordinal]) {
+                    continue;
+                }
+                histogram.remove(oldValues[ordinal]);
+                if (leaderboardsBuilt) {
+                    leaderboard.remove(new Entry(oldValues[ordinal], key));
+                }
+            }
+            histogram.add(values[ordinal]);
+            if (leaderboardsBuilt) {
+                leaderboard.add(new Entry(values[ordinal], key));
+            }
+        }
+    }
+
+    /**
+     * Removes every user from this index. The leaderboards of the users indexed after this are
+     * only built once a query needs them.
+     */
+    void clear() {
+        indexedValues.clear();
+        for (Criterion criterion : Criterion.values()) {
+            leaderboards.get(criterion).clear();
+            histograms.get(criterion).clear();
+        }
+        leaderboardsBuilt = false;
+    }
+
+    /**
+     * Returns whether the leaderboards are built, so that queries on them do not have to build
+     * them first.
+     *
+     * @return true if the leaderboards hold every indexed user
+     */
+    boolean isBuilt() {
+        return leaderboardsBuilt;
+    }
+
+    /**
+     * Builds the leaderboards of every indexed user, if they are not built yet.
+     */
+    void build() {
+        if (!leaderboardsBuilt) {
+            for (Map.Entry<String, int[]> user : indexedValues.entrySet()) {
+                for (Criterion c : Criterion.values()) {
+                    leaderboards.get(c).add(new Entry(user.getValue()[c.ordinal()], user.getKey()));
+                }
+            }
+            leaderboardsBuilt = true;
+        }
+    }
+
+    /**
+     * Returns the leaderboard of the given criterion, building every leaderboard first if they
+     * are not built yet.
+     */
+    private OrderStatisticTree<Entry> getLeaderboard(Criterion criterion) {
+        build();
+        return leaderboards.get(criterion);
+    }
+
+    /**
+     * Writes every indexed user's values and the order of each leaderboard to the given stream,
+     * building the leaderboards first if they are not built yet. Each user is written once, and a
+     * leaderboard is written as the positions of its users in that list, lowest entry first.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the stream could not be written
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        Criterion[] criteria = Criterion.values();
+        out.writeInt(indexedValues.size());
+        out.writeInt(criteria.length);
+        Map<String, Integer> ids = new HashMap<>();
+        for (Map.Entry<String, int[]> user : indexedValues.entrySet()) {
+            ids.put(user.getKey(), ids.size());
+            out.writeUTF(user.getKey());
+            for (int value : user.getValue()) {
+                out.writeInt(value);
+            }
+        }
+        for (Criterion criterion : criteria) {
+            for (Entry entry : getLeaderboard(criterion).toList()) {
+                out.writeInt(ids.get(entry.key));
+            }
+        }
+    }
+
+    /**
+     * Replaces the contents of this index with the users and leaderboards written by writeTo.
+     * The leaderboards are built straight from their order in linear time, and the histograms are
+     * rebuilt from the values. If the stream turns out to be malformed, this index is left empty.
+     *
+     * @param in the stream to read from
+     * @throws IOException if the stream could not be read or is malformed
+     */
+    void readFrom(DataInputStream in) throws IOException {
+        clear();
+        try {
+            Criterion[] criteria = Criterion.values();
+            int size = in.readInt();
+            if (size < 0 || in.readInt() != criteria.length) {
+                throw new IOException("Unexpected leaderboard layout");
+            }
+            String[] keys = new String[size];
+            int[][] values = new int[size][];
+            for (int id = 0; id < size; id++) {
+                keys[id] = in.readUTF();
+                values[id] = new int[criteria.length];
+                for (Criterion criterion : criteria) {
+                    values[id][criterion.ordinal()] = in.readInt();
+                    histograms.get(criterion).add(values[id][criterion.ordinal()]);
+                }
+                indexedValues.put(keys[id], values[id]);
+            }
+            for (Criterion criterion : criteria) {
+                List<Entry> entries = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    int id = in.readInt();
+                    if (id < 0 || id >= size) {
+                        throw new IOException("Unknown user in leaderboard: " + id);
+                    }
+                    Entry entry = new Entry(values[id][criterion.ordinal()], keys[id]);
+                    if (i > 0 && entries.get(i - 1).compareTo(entry) >= 0) {
+                        throw new IOException("Leaderboard is out of order at: " + i);
+                    }
+                    entries.add(entry);
+                }
+                leaderboards.get(criterion).buildFromSorted(entries);
+            }
+            leaderboardsBuilt = true;
+        } catch (IOException e) {
+            clear();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the keys of the top k users (in non-increasing order) under the given criterion.
+     *
+     * @param k         the maximum number of keys to return
+     * @param criterion the criterion to rank the users by
+     * @return the lowercase usernames of at most k users, highest value first
+     */
+    List<String> topKeys(int k, Criterion criterion) {
+        return keysInRange(criterion, 0, k);
+    }
+
+    /**
+     * Returns the rank of the user with the given key under the given criterion. Users with equal
+     * values share a rank, so the rank is one more than the number of users with a higher value.
+     *
+     * @param key       the lowercase username of a user
+     * @param criterion the criterion to rank the users by
+     * @return the rank of the user, starting from 1, or 0 if the user is not in this index
+     */
+    int rank(String key, Criterion criterion) {
+        int[] values = indexedValues.get(key);
+        if (values == null) {
+            return 0;
+        }
+        return countHigherThan(values[criterion.ordinal()], criterion) + 1;
+    }
+
+    /**
+     * Returns the number of users whose value under the given criterion is higher than the given
+     * value.
+     *
+     * @param value     a value under the criterion
+     * @param criterion the criterion to rank the users by
+     * @return the number of users with a higher value
+     */
+    int countHigherThan(int value, Criterion criterion) {
+        OrderStatisticTree<Entry> leaderboard = getLeaderboard(criterion);
+        // Entries with equal values are in reverse order of username, so the entry with the empty
+        // username comes after all of them
+        return leaderboard.size() - leaderboard.rank(new Entry(value, ""));
+    }
+
+    /**
+     * Returns the position of the user with the given key in the given criterion's leaderboard,
+     * counting from the top.
+     *
+     * @param key       the lowercase username of a user
+     * @param criterion the criterion to rank the users by
+     * @return the zero-based position of the user, or -1 if the user is not in this index
+     */
+    int positionOf(String key, Criterion criterion) {
+        int[] values = indexedValues.get(key);
+        if (values == null) {
+            return -1;
+        }
+        OrderStatisticTree<Entry> leaderboard = getLeaderboard(criterion);
+        return leaderboard.size() - 1
+                - leaderboard.rank(new Entry(values[criterion.ordinal()], key));
+    }
+
+    /**
+     * Returns the keys of the users in the given range of positions in the given criterion's
+     * leaderboard, counting from the top. The range is clipped to the leaderboard.
+     *
+     * @param criterion the criterion to rank the users by
+     * @param from      the position of the first user, inclusive
+     * @param to        the position after the last user, exclusive
+     * @return the lowercase usernames of the users in the range, highest value first
+     */
+    List<String> keysInRange(Criterion criterion, int from, int to) {
+        OrderStatisticTree<Entry> leaderboard = getLeaderboard(criterion);
+        int size = leaderboard.size();
+        from = Math.max(0, from);
+        to = Math.min(size, to);
+        List<String> keys = new ArrayList<>(Math.max(0, to - from));
+        for (int position = from; position < to; position++) {
+            keys.add(leaderboard.get(size - 1 - position).key);
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the entries that come right after the given entry in the given criterion's
+     * leaderboard, counting from the top. The given entry does not have to be in the leaderboard,
+     * so a page after a user who has since moved still starts where that user used to be.
+     *
+     * @param criterion the criterion to rank the users by
+     * @param after     the entry to start after, or null to start from the top
+     * @param count     the maximum number of entries to return
+     * @return at most count entries, highest value first
+     */
+    List<Entry> entriesAfter(Criterion criterion, Entry after, int count) {
+        OrderStatisticTree<Entry> leaderboard = getLeaderboard(criterion);
+        // The entries below the given one are the ones less than it, which sit at the positions
+        // before its rank in ascending order
+        int next = after == null ? leaderboard.size() - 1 : leaderboard.rank(after) - 1;
+        List<Entry> entries = new ArrayList<>();
+        for (int i = next; i >= 0 && entries.size() < count; i--) {
+            entries.add(leaderboard.get(i));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the cursor of the position right below the given entry. A cursor records the value
+     * and key of the last user on its page, so the next page starts right below that position no
+     * matter how many users have been ranked above it since.
+     *
+     * @param entry the last entry on a page
+     * @return the cursor of the page after the entry
+     */
+    static String encodeCursor(Entry entry) {
+        return entry.value + CURSOR_SEPARATOR + entry.key;
+    }
+
+    /**
+     * Returns the entry recorded in the given cursor.
+     *
+     * @param cursor a cursor returned by encodeCursor
+     * @return the last entry on the page before the cursor's page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    static Entry decodeCursor(String cursor) {
+        int separator = cursor.indexOf(CURSOR_SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed leaderboard cursor: " + cursor);
+        }
+        try {
+            return new Entry(Integer.parseInt(cursor.substring(0, separator)),
+                    cursor.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed leaderboard cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * Returns the percentage of the other users that the user with the given key beats under the
+     * given criterion, i.e. that have a lower value. It is read off the criterion's histogram in
+     * logarithmic time, without the leaderboards, and rounds down: users whose value is within
+     * about 3% of the user's value are not counted as beaten (see ScoreHistogram), so the true
+     * percentage is higher by at most the percentage of users in that range.
+     *
+     * @param key       the lowercase username of a user
+     * @param criterion the criterion to compare the users by
+     * @return the percentage of the other users with a lower value, from 0 to 100, or 0 if the
+     * user is not in this index or is the only user
+     */
+    double percentileOf(String key, Criterion criterion) {
+        int[] values = indexedValues.get(key);
+        ScoreHistogram histogram = histograms.get(criterion);
+        if (values == null || histogram.size() < 2) {
+            return 0;
+        }
+        return 100.0 * histogram.countBelow(values[criterion.ordinal()]) / (histogram.size() - 1);
+    }
+
+    /**
+     * Returns the number of users whose value under the given criterion falls in each of the
+     * given ranges. Range i holds the values from boundaries[i], inclusive, to boundaries[i + 1],
+     * exclusive, and the last range has no upper end. The counts are read off the criterion's
+     * histogram, so a boundary is effectively rounded down to the start of its histogram bucket,
+     * which is within about 3% of it.
+     *
+     * @param criterion  the criterion to count the users by
+     * @param boundaries the lower end of each range, in increasing order
+     * @return the number of users in each range
+     */
+    int[] histogram(Criterion criterion, int[] boundaries) {
+        ScoreHistogram histogram = histograms.get(criterion);
+        int[] counts = new int[boundaries.length];
+        for (int i = 0; i < boundaries.length; i++) {
+            int end = i + 1 < boundaries.length
+                    ? histogram.countBelow(boundaries[i + 1]) : histogram.size();
+            counts[i] = end - histogram.countBelow(boundaries[i]);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns whether the user with the given key is in this index.
+     *
+     * @param key the lowercase username of a user
+     * @return true if the user is indexed
+     */
+    boolean contains(String key) {
+        return indexedValues.containsKey(key);
+    }
+
+    /**
+     * Returns the number of users in this index.
+     *
+     * @return the number of indexed users
+     */
+    int size() {
+        return indexedValues.size();
+    }
+
+    /**
+     * A user's position in one leaderboard.
+     */
+    static class Entry implements Comparable<Entry> {
+
+        final int value;
+        final String key;
+
+        Entry(int value, String key) {
+            this.value = value;
+            this.key = key;
+        }
+
+        /**
+         * Orders entries by value, and entries with equal values in reverse order of username, so
+         * that iterating a leaderboard from its end lists tied users alphabetically.
+         */
+        @Override
+        public int compareTo(Entry other) {
+            return compare(value, key, other);
+        }
+
+        /**
+         * Compares the entry with the given value and key to the given entry, without creating
+         * it, in the order of compareTo.
+         */
+        static int compare(int value, String key, Entry other) {
+            if (value != other.value) {
+                return value < other.value ? -1 : 1;
+            }
+            return other.key.compareTo(key);
+        }
+    }
+}
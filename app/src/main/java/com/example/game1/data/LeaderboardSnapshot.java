@@ -0,0 +1,141 @@
+package com.example.game1.data;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * A LeaderboardIndex saved next to the persistence file it was built from, so that it can be
+ * loaded instead of rebuilt from every user.
+ *
+ * <p>A snapshot is stamped with the generation of the persistence file it covers, i.e. the
+ * length the file had when the snapshot was taken and a checksum of the file's contents up to
+ * that length. It only matches a file that still starts with exactly those bytes. The file may
+ * have grown since, by records appended to its journal, which have to be replayed on top of the
+ * loaded index. Rewriting the file, e.g. by compacting it, starts a new generation that no older
+ * snapshot matches.
+ */
+class LeaderboardSnapshot {
+
+    /* The suffix of the snapshot's file name, after the name of the persistence file */
+    private static final String SUFFIX = ".leaderboards";
+
+    /* The header of the file: a magic number followed by the format version */
+    private static final int MAGIC = 0x4C424931;
+    private static final int VERSION = 1;
+
+    /**
+     * Returns the file of the snapshot of the given persistence file.
+     */
+    private static File getSnapshotFile(File dataFile) {
+        return new File(dataFile.getPath() + SUFFIX);
+    }
+
+    /**
+     * Saves the given index as the snapshot of the given persistence file, stamped with the
+     * file's current generation. The index must hold exactly the users in the file.
+     *
+     * @param dataFile the persistence file the index was built from
+     * @param index    the index to save
+     * @throws IOException if the persistence file could not be read or the snapshot written
+     */
+    static void write(File dataFile, LeaderboardIndex index) throws IOException {
+        long length;
+        long checksum;
+        try (RandomAccessFile file = new RandomAccessFile(dataFile, "r");
+             FileChannel channel = file.getChannel()) {
+            length = channel.size();
+            checksum = checksum(channel.map(FileChannel.MapMode.READ_ONLY, 0, length));
+        }
+
+        try (SnapshotWriter snapshot = new SnapshotWriter(
+                getSnapshotFile(dataFile), SnapshotWriter.DurabilityPolicy.NONE)) {
+            DataOutputStream out = new DataOutputStream(snapshot);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(length);
+            out.writeLong(checksum);
+            index.writeTo(out);
+            out.flush();
+            snapshot.commit();
+        }
+    }
+
+    /**
+     * Loads the snapshot of the given persistence file into the given index, if there is one and
+     * its stamp matches the file's contents.
+     *
+     * @param dataFile the persistence file
+     * @param contents the current contents of the persistence file
+     * @param index    the index to load the snapshot into. It is left empty if no snapshot could
+     *                 be loaded.
+     * @return the length of the file the snapshot covers, so that the records after it can be
+     * replayed, or -1 if no snapshot matches the file
+     * @throws IOException if the snapshot could not be read
+     */
+    static long read(File dataFile, ByteBuffer contents, LeaderboardIndex index)
+            throws IOException {
+        File snapshotFile = getSnapshotFile(dataFile);
+        if (!snapshotFile.exists()) {
+            return -1;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return -1;
+            }
+            long length = in.readLong();
+            long checksum = in.readLong();
+            if (length > contents.limit()) {
+                return -1;
+            }
+            ByteBuffer covered = contents.duplicate();
+            covered.position(0);
+            covered.limit((int) length);
+            if (checksum(covered) != checksum) {
+                return -1;
+            }
+            index.readFrom(in);
+            return length;
+        }
+    }
+
+    /**
+     * Deletes the temporary file left behind by a write of the snapshot of the given persistence
+     * file that never completed. It must not be called while a snapshot may be being written, so
+     * it is called when the persistence file is loaded rather than when the snapshot is read.
+     *
+     * @param dataFile the persistence file
+     */
+    static void recover(File dataFile) {
+        SnapshotWriter.recover(getSnapshotFile(dataFile));
+    }
+
+    /**
+     * Deletes the snapshot of the given persistence file, e.g. before the file is rewritten.
+     *
+     * @param dataFile the persistence file
+     */
+    static void delete(File dataFile) {
+        File snapshotFile = getSnapshotFile(dataFile);
+        if (snapshotFile.exists()) {
+            snapshotFile.delete();
+        }
+    }
+
+    /**
+     * Returns the CRC-32 checksum of the remaining bytes of the given buffer.
+     */
+    private static long checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+}
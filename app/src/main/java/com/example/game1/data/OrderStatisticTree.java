@@ -0,0 +1,252 @@
+package com.example.game1.data;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A sorted set that can also find the position of an element and the element at a position in
+ * logarithmic time. It is a treap, i.e. a binary search tree whose nodes also form a heap on random
+ * priorities, which keeps it balanced in expectation, and each node knows the size of its subtree.
+ *
+ * <p>Positions are zero-based and count elements in ascending order.
+ *
+ * @param <E> the type of the elements
+ */
+class OrderStatisticTree<E extends Comparable<? super E>> {
+
+    private final Random random = new Random();
+
+    private Node<E> root;
+
+    /* Whether the latest add or remove changed this tree */
+    private boolean modified;
+
+    /**
+     * Returns the number of elements in this tree.
+     *
+     * @return the number of elements
+     */
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * Adds the given element if it is not in this tree yet.
+     *
+     * @param element the element to add
+     * @return true if the element was added, and false if it was already in this tree
+     */
+    boolean add(E element) {
+        modified = false;
+        root = insert(root, element);
+        return modified;
+    }
+
+    /**
+     * Removes the given element if it is in this tree.
+     *
+     * @param element the element to remove
+     * @return true if the element was removed, and false if it was not in this tree
+     */
+    boolean remove(E element) {
+        modified = false;
+        root = delete(root, element);
+        return modified;
+    }
+
+    /**
+     * Removes every element from this tree.
+     */
+    void clear() {
+        root = null;
+    }
+
+    /**
+     * Returns the number of elements in this tree that are less than the given element, which is
+     * the position of the element if it is in this tree.
+     *
+     * @param element an element, which does not have to be in this tree
+     * @return the number of elements less than the given element
+     */
+    int rank(E element) {
+        int rank = 0;
+        Node<E> node = root;
+        while (node != null) {
+            int cmp = element.compareTo(node.element);
+            if (cmp <= 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the element at the given position.
+     *
+     * @param index the position of the element, counting from the smallest element
+     * @return the element at the given position
+     * @throws IndexOutOfBoundsException if the position is not within this tree
+     */
+    E get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        Node<E> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.element;
+            }
+        }
+    }
+
+    /**
+     * Replaces the elements of this tree with the given elements in linear time.
+     *
+     * @param elements the new elements, in ascending order and without duplicates
+     */
+    void buildFromSorted(List<E> elements) {
+        root = build(elements, 0, elements.size(), 0);
+    }
+
+    /**
+     * Returns the elements of this tree in ascending order, in linear time.
+     *
+     * @return a list of the elements, smallest first
+     */
+    List<E> toList() {
+        List<E> elements = new ArrayList<>(size());
+        Deque<Node<E>> path = new ArrayDeque<>();
+        Node<E> node = root;
+        while (node != null || !path.isEmpty()) {
+            while (node != null) {
+                path.push(node);
+                node = node.left;
+            }
+            node = path.pop();
+            elements.add(node.element);
+            node = node.right;
+        }
+        return elements;
+    }
+
+    /**
+     * Builds a perfectly balanced subtree of the given range of sorted elements. Each node's
+     * priority is higher than its descendants', so the result is a valid treap, and nodes added
+     * later with random priorities settle near the leaves as with any insertion.
+     */
+    private Node<E> build(List<E> elements, int from, int to, int depth) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Node<E> node = new Node<>(elements.get(mid), Integer.MAX_VALUE - depth);
+        node.left = build(elements, from, mid, depth + 1);
+        node.right = build(elements, mid + 1, to, depth + 1);
+        node.updateSize();
+        return node;
+    }
+
+    private Node<E> insert(Node<E> node, E element) {
+        if (node == null) {
+            modified = true;
+            return new Node<>(element, random.nextInt());
+        }
+        int cmp = element.compareTo(node.element);
+        if (cmp < 0) {
+            node.left = insert(node.left, element);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else if (cmp > 0) {
+            node.right = insert(node.right, element);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.updateSize();
+        return node;
+    }
+
+    private Node<E> delete(Node<E> node, E element) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = element.compareTo(node.element);
+        if (cmp < 0) {
+            node.left = delete(node.left, element);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, element);
+        } else {
+            // Rotate the node down until it has at most one child, then splice it out
+            if (node.left == null) {
+                modified = true;
+                return node.right;
+            } else if (node.right == null) {
+                modified = true;
+                return node.left;
+            } else if (node.left.priority > node.right.priority) {
+                node = rotateRight(node);
+                node.right = delete(node.right, element);
+            } else {
+                node = rotateLeft(node);
+                node.left = delete(node.left, element);
+            }
+        }
+        node.updateSize();
+        return node;
+    }
+
+    private static <E> Node<E> rotateRight(Node<E> node) {
+        Node<E> left = node.left;
+        node.left = left.right;
+        node.updateSize();
+        left.right = node;
+        left.updateSize();
+        return left;
+    }
+
+    private static <E> Node<E> rotateLeft(Node<E> node) {
+        Node<E> right = node.right;
+        node.right = right.left;
+        node.updateSize();
+        right.left = node;
+        right.updateSize();
+        return right;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static class Node<E> {
+
+        private final E element;
+        private final int priority;
+        private Node<E> left;
+        private Node<E> right;
+
+        /* The number of elements in the subtree rooted at this node */
+        private int size = 1;
+
+        private Node(E element, int priority) {
+            this.element = element;
+            this.priority = priority;
+        }
+
+        private void updateSize() {
+            size = 1 + OrderStatisticTree.size(left) + OrderStatisticTree.size(right);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.game1.data;
 
+import com.example.game1.presentation.model.User;
+
 /**
  * The class containing the algorithm used to calculate score.
  */
@@ -16,4 +18,44 @@ class ScoreCalculator {
     static int calculateScore(int points, int stars, int taps) {
         return points + stars + taps;
     }
+
+    /**
+     * Returns the score of the given user's top game. The score is cached on the user until the
+     * user's statistics change.
+     *
+     * @param user a User object
+     * @return the top score of the User object
+     */
+    static int calculateTopScore(User user) {
+        int score = user.getCachedTopScore();
+        if (score == User.NO_CACHED_SCORE) {
+            int statsVersion = user.getStatsVersion();
+            score = calculateScore(
+                    user.getStatsOfTopGame().getPoints(),
+                    user.getStatsOfTopGame().getStars(),
+                    user.getStatsOfTopGame().getTaps());
+            user.cacheTopScore(score, statsVersion);
+        }
+        return score;
+    }
+
+    /**
+     * Returns the score of the given user's current game. The score is cached on the user until
+     * the user's statistics change.
+     *
+     * @param user a User object
+     * @return the current score of the User object
+     */
+    static int calculateCurrentScore(User user) {
+        int score = user.getCachedCurrentScore();
+        if (score == User.NO_CACHED_SCORE) {
+            int statsVersion = user.getStatsVersion();
+            score = calculateScore(
+                    user.getStatsOfCurrentGame().getPoints(),
+                    user.getStatsOfCurrentGame().getStars(),
+                    user.getStatsOfCurrentGame().getTaps());
+            user.cacheCurrentScore(score, statsVersion);
+        }
+        return score;
+    }
 }
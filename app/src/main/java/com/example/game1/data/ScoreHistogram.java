@@ -0,0 +1,114 @@
+package com.example.game1.data;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of the values of all the users under one criterion, which counts how many users
+ * have a value lower than a given value in logarithmic time.
+ *
+ * <p>The buckets are log-linear: each value below SUB_BUCKETS has its own bucket, and every range
+ * [2^e, 2^(e+1)) above that is split into SUB_BUCKETS buckets of equal width. A bucket is
+ * therefore never wider than 1/SUB_BUCKETS (about 3%) of the values in it, and the histogram has a
+ * fixed number of buckets however many users there are. The counts of the buckets are kept in a
+ * Fenwick tree, so adding a value and counting the values below a bucket both take
+ * O(log BUCKET_COUNT) time.
+ *
+ * <p>Counts are only as fine as the buckets: the users in the same bucket as a value cannot be
+ * told apart from it, so counts are exact for values below SUB_BUCKETS and otherwise off by at
+ * most the number of users whose value is within 1/SUB_BUCKETS of it.
+ */
+class ScoreHistogram {
+
+    /* The number of buckets each power of two is split into, as a power of two itself */
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /* The number of buckets, enough for every non-negative int */
+    static final int BUCKET_COUNT = SUB_BUCKETS * (Integer.SIZE - SUB_BUCKET_BITS);
+
+    /* The Fenwick tree of the bucket counts, indexed from 1 */
+    private final int[] tree = new int[BUCKET_COUNT + 1];
+
+    /* The number of values in this histogram */
+    private int size;
+
+    /**
+     * Adds the given value to this histogram.
+     *
+     * @param value the value to add. Negative values are counted as 0.
+     */
+    void add(int value) {
+        update(bucketOf(value), 1);
+        size++;
+    }
+
+    /**
+     * Removes the given value, which must have been added before, from this histogram.
+     *
+     * @param value the value to remove
+     */
+    void remove(int value) {
+        update(bucketOf(value), -1);
+        size--;
+    }
+
+    /**
+     * Removes every value from this histogram.
+     */
+    void clear() {
+        Arrays.fill(tree, 0);
+        size = 0;
+    }
+
+    /**
+     * Returns the number of values in this histogram.
+     *
+     * @return the number of values
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of values in the buckets below the bucket of the given value. This is
+     * the number of values lower than the given value, not counting the ones in its bucket.
+     *
+     * @param value a value
+     * @return the number of values in lower buckets
+     */
+    int countBelow(int value) {
+        return prefixSum(bucketOf(value));
+    }
+
+    /**
+     * Returns the bucket the given value falls in.
+     */
+    static int bucketOf(int value) {
+        if (value < SUB_BUCKETS) {
+            return Math.max(0, value);
+        }
+        int exponent = Integer.SIZE - 1 - Integer.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return SUB_BUCKETS * (shift + 1) + (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Adds the given delta to the count of the given bucket.
+     */
+    private void update(int bucket, int delta) {
+        for (int i = bucket + 1; i <= BUCKET_COUNT; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Returns the total count of the buckets below the given bucket.
+     */
+    private int prefixSum(int bucket) {
+        int sum = 0;
+        for (int i = bucket; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.game1.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An output stream that writes a new version of a file without ever leaving the file half
+ * written. The bytes are buffered into large chunks and streamed into a temporary file next to the
+ * target file. When the stream is committed, the temporary file is forced to storage according to
+ * the durability policy and then atomically renamed over the target file. A crash before the
+ * rename leaves the old file untouched, along with a temporary file that recover deletes.
+ */
+class SnapshotWriter extends OutputStream {
+
+    /**
+     * How far the temporary file is forced to storage before it replaces the target file.
+     */
+    enum DurabilityPolicy {
+        /* Leave it to the operating system to write the file back */
+        NONE,
+        /* Force the file's content, i.e. FileChannel.force(false) */
+        DATA,
+        /* Force the file's content and metadata, i.e. FileChannel.force(true), and after the rename
+         * force the directory too, so that the rename itself survives a crash */
+        DATA_AND_METADATA
+    }
+
+    /* The suffix of the temporary file */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /* The size of the buffer that is filled before each write to the temporary file */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File target;
+    private final File temp;
+    private final DurabilityPolicy durabilityPolicy;
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final long startTime;
+
+    /* The number of bytes written to the temporary file, and the number of writes it took */
+    private long bytesWritten;
+    private int writeCalls;
+
+    /* How long the snapshot took from opening the temporary file to the rename */
+    private long elapsedNs;
+
+    /**
+     * Constructs a SnapshotWriter that will replace the given file.
+     *
+     * @param target           the file to replace
+     * @param durabilityPolicy how far to force the new file to storage before replacing the old
+     * @throws IOException if the temporary file could not be opened
+     */
+    SnapshotWriter(File target, DurabilityPolicy durabilityPolicy) throws IOException {
+        this.target = target;
+        this.temp = getTempFile(target);
+        this.durabilityPolicy = durabilityPolicy;
+        startTime = System.nanoTime();
+        file = new RandomAccessFile(temp, "rw");
+        file.setLength(0);
+        channel = file.getChannel();
+    }
+
+    /**
+     * Deletes the temporary file left behind by a snapshot of the given file that never completed.
+     * The target file itself is still the last committed version.
+     *
+     * @param target the file whose leftover temporary file is deleted
+     * @return true if a leftover temporary file was found and deleted
+     */
+    static boolean recover(File target) {
+        File temp = getTempFile(target);
+        return temp.exists() && temp.delete();
+    }
+
+    private static File getTempFile(File target) {
+        return new File(target.getPath() + TEMP_SUFFIX);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drainBuffer();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                drainBuffer();
+            }
+            int chunk = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the temporary file.
+     */
+    private void drainBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+            writeCalls++;
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes out the buffered bytes, forces the temporary file according to the durability policy
+     * and atomically renames it over the target file. With DATA_AND_METADATA, the directory of the
+     * target file is then forced as well, where the platform allows a directory to be opened; where
+     * it does not, the rename may still be lost in a crash, leaving the old file in place.
+     *
+     * @throws IOException if the temporary file could not be written or renamed
+     */
+    void commit() throws IOException {
+        try {
+            drainBuffer();
+            switch (durabilityPolicy) {
+                case DATA:
+                    channel.force(false);
+                    break;
+                case DATA_AND_METADATA:
+                    channel.force(true);
+                    break;
+                default:
+                    break;
+            }
+        } finally {
+            file.close();
+        }
+        Files.move(temp.toPath(), target.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        if (durabilityPolicy == DurabilityPolicy.DATA_AND_METADATA) {
+            forceDirectory(target.getAbsoluteFile().getParentFile());
+        }
+        elapsedNs = System.nanoTime() - startTime;
+    }
+
+    /**
+     * Forces the given directory, and so the entries renamed into it, to storage. Some platforms
+     * cannot open a directory for reading, in which case this does nothing.
+     */
+    private static void forceDirectory(File directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // The directory cannot be opened or forced here, so the rename is only as durable as
+            // the file system makes it
+        }
+    }
+
+    /**
+     * Closes the temporary file. If the snapshot was not committed, the temporary file is deleted
+     * and the target file is left as it was.
+     *
+     * @throws IOException if the temporary file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+        if (temp.exists()) {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Returns the average number of bytes written to the temporary file per write call.
+     *
+     * @return the number of bytes per write, or 0 if nothing was written
+     */
+    double getBytesPerWrite() {
+        return writeCalls == 0 ? 0 : (double) bytesWritten / writeCalls;
+    }
+
+    /**
+     * Returns how long the committed snapshot took, in nanoseconds.
+     *
+     * @return the time from opening the temporary file to the rename
+     */
+    long getElapsedNs() {
+        return elapsedNs;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.game1.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Selects the top k users out of a stream of (value, key) pairs in a single pass, using a min-heap
+ * that never holds more than k entries. Each pair costs O(log k) at most, and an entry is only
+ * created for a pair that makes it into the heap, so selecting from n users takes O(n log k) time
+ * and O(k) space.
+ *
+ * <p>Users are ordered the same way as in a LeaderboardIndex: by value, with ties listed
+ * alphabetically.
+ */
+class TopKSelector {
+
+    /* The maximum number of users to select */
+    private final int k;
+
+    /* The selected users, with the lowest ranked one at the head */
+    private final PriorityQueue<LeaderboardIndex.Entry> heap;
+
+    /**
+     * Constructs a TopKSelector that selects at most k users.
+     *
+     * @param k the maximum number of users to select
+     */
+    TopKSelector(int k) {
+        this.k = Math.max(0, k);
+        heap = new PriorityQueue<>(Math.max(1, this.k));
+    }
+
+    /**
+     * Offers the user with the given key and value for selection.
+     *
+     * @param value the user's value under the criterion the users are ranked by
+     * @param key   the lowercase username of the user
+     */
+    void offer(int value, String key) {
+        if (heap.size() < k) {
+            heap.add(new LeaderboardIndex.Entry(value, key));
+        } else if (k > 0 && LeaderboardIndex.Entry.compare(value, key, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(new LeaderboardIndex.Entry(value, key));
+        }
+    }
+
+    /**
+     * Returns the keys of the selected users (in non-increasing order).
+     *
+     * @return the lowercase usernames of at most k users, highest value first
+     */
+    List<String> getKeys() {
+        List<LeaderboardIndex.Entry> entries = new ArrayList<>(heap);
+        Collections.sort(entries, Collections.<LeaderboardIndex.Entry>reverseOrder());
+        List<String> keys = new ArrayList<>(entries.size());
+        for (LeaderboardIndex.Entry entry : entries) {
+            keys.add(entry.key);
+        }
+        return keys;
+    }
+}
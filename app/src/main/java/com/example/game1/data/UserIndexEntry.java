@@ -0,0 +1,33 @@
+package com.example.game1.data;
+
+/**
+ * The location of a user's latest record in the persistence file, together with the values the
+ * user is ranked by on the scoreboard. This lets a user be found and ranked without loading it.
+ */
+class UserIndexEntry {
+
+    /* The user's lowercase username */
+    final String key;
+
+    /* The offset of the user's latest record in the persistence file, and its length in bytes */
+    long offset;
+    int length;
+
+    /* The user's top score and top individual points, stars, and taps */
+    int topScore;
+    int topPoints;
+    int topStars;
+    int topTaps;
+
+    /* Whether the record was read in full */
+    boolean complete;
+
+    /**
+     * Constructs a UserIndexEntry for the user with the given key.
+     *
+     * @param key the user's lowercase username
+     */
+    UserIndexEntry(String key) {
+        this.key = key;
+    }
+}
@@ -0,0 +1,485 @@
+package com.example.game1.data;
+
+import android.util.Log;
+
+import com.example.game1.presentation.model.Customization;
+import com.example.game1.presentation.model.User;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A parser for the user records written by FileDataManager. It works directly on the bytes of a
+ * buffer, usually a memory-mapped view of the persistence file: keys are dispatched on their
+ * length and first byte, numbers are parsed without creating substrings, and enum values are
+ * mapped to their constants through precomputed tables. The only objects created per record are
+ * the User itself and its username and password.
+ *
+ * <p>A UserRecordParser reuses an internal buffer, so it must not be shared between threads.
+ */
+class UserRecordParser {
+
+    private static final String TAG = "User Record Parser";
+
+    /* The fields of a record */
+    private static final int USERNAME = 0;
+    private static final int PASSWORD = 1;
+    private static final int CHARAC_COLOUR = 2;
+    private static final int COLOUR_SCHEME = 3;
+    private static final int MUSIC = 4;
+    private static final int TOP_GAME_POINTS = 5;
+    private static final int TOP_GAME_STARS = 6;
+    private static final int TOP_GAME_TAPS = 7;
+    private static final int CURR_GAME_POINTS = 8;
+    private static final int CURR_GAME_STARS = 9;
+    private static final int CURR_GAME_TAPS = 10;
+    private static final int TOP_IND_POINTS = 11;
+    private static final int TOP_IND_STARS = 12;
+    private static final int TOP_IND_TAPS = 13;
+    private static final int LAST_COMP_LVL = 14;
+    private static final int INVALID_KEY = -1;
+
+    /* The bytes of the key of each field, indexed by field */
+    private static final byte[][] KEYS = {
+            bytesOf(FileDataManager.USERNAME),
+            bytesOf(FileDataManager.PASSWORD),
+            bytesOf(FileDataManager.CHARAC_COLOUR),
+            bytesOf(FileDataManager.COLOUR_SCHEME),
+            bytesOf(FileDataManager.MUSIC),
+            bytesOf(FileDataManager.TOP_GAME_POINTS),
+            bytesOf(FileDataManager.TOP_GAME_STARS),
+            bytesOf(FileDataManager.TOP_GAME_TAPS),
+            bytesOf(FileDataManager.CURR_GAME_POINTS),
+            bytesOf(FileDataManager.CURR_GAME_STARS),
+            bytesOf(FileDataManager.CURR_GAME_TAPS),
+            bytesOf(FileDataManager.TOP_IND_POINTS),
+            bytesOf(FileDataManager.TOP_IND_STARS),
+            bytesOf(FileDataManager.TOP_IND_TAPS),
+            bytesOf(FileDataManager.LAST_COMP_LVL)
+    };
+
+    /* Lookup tables from the key's length and first byte to the field with that key */
+    private static final int MAX_KEY_LENGTH = 32;
+    private static final int[][] FIELDS_BY_LENGTH = new int[MAX_KEY_LENGTH + 1][];
+
+    static {
+        for (int field = 0; field < KEYS.length; field++) {
+            int length = KEYS[field].length;
+            int[] fields = FIELDS_BY_LENGTH[length];
+            if (fields == null) {
+                fields = new int[]{field};
+            } else {
+                int[] grown = new int[fields.length + 1];
+                System.arraycopy(fields, 0, grown, 0, fields.length);
+                grown[fields.length] = field;
+                fields = grown;
+            }
+            FIELDS_BY_LENGTH[length] = fields;
+        }
+    }
+
+    /* The enum constants, and the bytes of their names, in ordinal order */
+    private static final Customization.CharacterColour[] CHARAC_COLOURS =
+            Customization.CharacterColour.values();
+    private static final Customization.ColourScheme[] COLOUR_SCHEMES =
+            Customization.ColourScheme.values();
+    private static final Customization.MusicPath[] MUSIC_PATHS = Customization.MusicPath.values();
+    private static final byte[][] CHARAC_COLOUR_NAMES = namesOf(CHARAC_COLOURS);
+    private static final byte[][] COLOUR_SCHEME_NAMES = namesOf(COLOUR_SCHEMES);
+    private static final byte[][] MUSIC_PATH_NAMES = namesOf(MUSIC_PATHS);
+
+    /* The reusable buffer that the bytes of a string are copied into before decoding */
+    private byte[] stringBytes = new byte[64];
+
+    /* The number of complete and incomplete records found by the latest parse */
+    private int recordCount;
+
+    /* The keys of the users that the latest parse only found incomplete records of */
+    private Set<String> incompleteKeys = new HashSet<>();
+
+    /**
+     * Parses the records between start (inclusive) and end (exclusive) in the given buffer and
+     * stores the users into the given map, keyed by lowercase username. Records are applied in
+     * order, so a user's last record overrides its earlier ones, except that an incomplete
+     * record, which is left behind if the app stops in the middle of an append, never overrides
+     * an earlier record of the same user.
+     *
+     * @param buffer the buffer holding the records
+     * @param start  the index of the first byte to parse
+     * @param end    the index after the last byte to parse
+     * @param users  the map to store the users into
+     * @return the number of records found, including superseded and incomplete ones
+     */
+    int parse(ByteBuffer buffer, int start, int end, Map<String, User> users) {
+        recordCount = 0;
+        incompleteKeys.clear();
+        User user = null;
+        boolean complete = false;
+
+        int lineStart = start;
+        while (lineStart < end) {
+            int lineEnd = indexOf(buffer, (byte) '\n', lineStart, end);
+            int nextLine = lineEnd + 1;
+            // A record is only complete once the line of its last field is terminated, since an
+            // append cut short may end in the middle of that field's value
+            boolean terminated = lineEnd < end;
+            if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+
+            // Only lines of the form key:value, with a non-empty value, are records' fields
+            int colon = indexOf(buffer, (byte) ':', lineStart, lineEnd);
+            int valueStart = colon + 1;
+            int valueEnd = indexOf(buffer, (byte) ':', valueStart, lineEnd);
+            if (colon < lineEnd && valueStart < valueEnd) {
+                int field = fieldOf(buffer, lineStart, colon);
+                if (field == USERNAME) {
+                    commitRecord(user, complete, users);
+                    user = new User(decodeString(buffer, valueStart, valueEnd), "");
+                    complete = false;
+                } else if (user != null) {
+                    try {
+                        complete |= setField(user, field, buffer, valueStart, valueEnd)
+                                && terminated;
+                    } catch (NumberFormatException e) {
+                        Log.e(TAG, "Invalid number for key: " + new String(KEYS[field],
+                                StandardCharsets.UTF_8));
+                    }
+                }
+            }
+            lineStart = nextLine;
+        }
+        commitRecord(user, complete, users);
+        return recordCount;
+    }
+
+    /**
+     * Builds an index of the records between start (inclusive) and end (exclusive) in the given
+     * buffer without creating any User objects. Each user's entry locates the user's last complete
+     * record, relative to the start of the buffer, or the user's first record if none of them is
+     * complete.
+     *
+     * @param buffer the buffer holding the records
+     * @param start  the index of the first byte to index
+     * @param end    the index after the last byte to index
+     * @param index  the map to store the entries into, keyed by lowercase username
+     * @return the number of records found, including superseded and incomplete ones
+     */
+    int index(ByteBuffer buffer, int start, int end, Map<String, UserIndexEntry> index) {
+        recordCount = 0;
+        UserIndexEntry entry = null;
+        int topGamePoints = 0;
+        int topGameStars = 0;
+        int topGameTaps = 0;
+
+        int lineStart = start;
+        while (lineStart < end) {
+            int lineEnd = indexOf(buffer, (byte) '\n', lineStart, end);
+            int nextLine = lineEnd + 1;
+            boolean terminated = lineEnd < end;
+            if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+
+            int colon = indexOf(buffer, (byte) ':', lineStart, lineEnd);
+            int valueStart = colon + 1;
+            int valueEnd = indexOf(buffer, (byte) ':', valueStart, lineEnd);
+            if (colon < lineEnd && valueStart < valueEnd) {
+                int field = fieldOf(buffer, lineStart, colon);
+                if (field == USERNAME) {
+                    commitEntry(entry, lineStart, topGamePoints, topGameStars, topGameTaps, index);
+                    entry = new UserIndexEntry(
+                            decodeString(buffer, valueStart, valueEnd).toLowerCase());
+                    entry.offset = lineStart;
+                    topGamePoints = 0;
+                    topGameStars = 0;
+                    topGameTaps = 0;
+                } else if (entry != null) {
+                    try {
+                        switch (field) {
+                            case TOP_GAME_POINTS:
+                                topGamePoints = parseInt(buffer, valueStart, valueEnd);
+                                break;
+                            case TOP_GAME_STARS:
+                                topGameStars = parseInt(buffer, valueStart, valueEnd);
+                                break;
+                            case TOP_GAME_TAPS:
+                                topGameTaps = parseInt(buffer, valueStart, valueEnd);
+                                break;
+                            case TOP_IND_POINTS:
+                                entry.topPoints = parseInt(buffer, valueStart, valueEnd);
+                                break;
+                            case TOP_IND_STARS:
+                                entry.topStars = parseInt(buffer, valueStart, valueEnd);
+                                break;
+                            case TOP_IND_TAPS:
+                                entry.topTaps = parseInt(buffer, valueStart, valueEnd);
+                                break;
+                            case LAST_COMP_LVL:
+                                entry.complete = terminated;
+                                break;
+                            default:
+                                break;
+                        }
+                    } catch (NumberFormatException e) {
+                        Log.e(TAG, "Invalid number for key: " + new String(KEYS[field],
+                                StandardCharsets.UTF_8));
+                    }
+                }
+            }
+            lineStart = nextLine;
+        }
+        commitEntry(entry, end, topGamePoints, topGameStars, topGameTaps, index);
+        return recordCount;
+    }
+
+    /**
+     * Stores an index entry whose record ends at recordEnd into the given map, unless the record
+     * is incomplete and the map already has an entry for the same user.
+     */
+    private void commitEntry(UserIndexEntry entry, int recordEnd, int topGamePoints,
+                             int topGameStars, int topGameTaps,
+                             Map<String, UserIndexEntry> index) {
+        if (entry == null) {
+            return;
+        }
+        recordCount++;
+        entry.length = (int) (recordEnd - entry.offset);
+        entry.topScore = ScoreCalculator.calculateScore(topGamePoints, topGameStars, topGameTaps);
+        if (entry.complete || !index.containsKey(entry.key)) {
+            index.put(entry.key, entry);
+        }
+    }
+
+    /**
+     * Stores a parsed user into the given map, unless the record is incomplete and the map already
+     * has a record of the same user.
+     */
+    private void commitRecord(User user, boolean complete, Map<String, User> users) {
+        if (user == null) {
+            return;
+        }
+        recordCount++;
+        // The user was only modified to fill in what is already in the file
+        user.markClean();
+        String key = user.getUserName().toLowerCase();
+        if (complete) {
+            users.put(key, user);
+            incompleteKeys.remove(key);
+        } else if (!users.containsKey(key)) {
+            users.put(key, user);
+            incompleteKeys.add(key);
+        }
+    }
+
+    /**
+     * Returns the keys of the users that the latest parse stored from an incomplete record,
+     * because it found no complete record of them.
+     *
+     * @return the keys of the users stored from an incomplete record
+     */
+    Set<String> getIncompleteKeys() {
+        return incompleteKeys;
+    }
+
+    /**
+     * Returns the index of the start of the first record at or after the given index, or end if
+     * no record starts between the given index and end.
+     *
+     * @param buffer the buffer holding the records
+     * @param index  the index to start searching at
+     * @param end    the index after the last byte to search
+     * @return the index of the start of the next record
+     */
+    static int nextRecordStart(ByteBuffer buffer, int index, int end) {
+        byte[] usernameKey = KEYS[USERNAME];
+        while (index < end) {
+            if ((index == 0 || buffer.get(index - 1) == '\n')
+                    && index + usernameKey.length < end
+                    && matches(buffer, index, usernameKey)
+                    && buffer.get(index + usernameKey.length) == ':') {
+                return index;
+            }
+            index = indexOf(buffer, (byte) '\n', index, end) + 1;
+        }
+        return end;
+    }
+
+    /**
+     * Sets the given field of the given user to the value between valueStart and valueEnd.
+     *
+     * @return true if the field is the last field of a record
+     */
+    private boolean setField(User user, int field, ByteBuffer buffer, int valueStart,
+                             int valueEnd) {
+        switch (field) {
+            case PASSWORD:
+                user.setPassword(decodeString(buffer, valueStart, valueEnd));
+                break;
+            case CHARAC_COLOUR:
+                user.getCustomization().setCharacterColour(CHARAC_COLOURS[ordinalOf(
+                        buffer, valueStart, valueEnd, CHARAC_COLOUR_NAMES,
+                        Customization.CharacterColour.BLUE.ordinal())]);
+                break;
+            case COLOUR_SCHEME:
+                user.getCustomization().setColourScheme(COLOUR_SCHEMES[ordinalOf(
+                        buffer, valueStart, valueEnd, COLOUR_SCHEME_NAMES,
+                        Customization.ColourScheme.DARK.ordinal())]);
+                break;
+            case MUSIC:
+                user.getCustomization().setMusicPath(MUSIC_PATHS[ordinalOf(
+                        buffer, valueStart, valueEnd, MUSIC_PATH_NAMES,
+                        Customization.MusicPath.SONG1.ordinal())]);
+                break;
+            case TOP_GAME_POINTS:
+                user.getStatsOfTopGame().setPoints(parseInt(buffer, valueStart, valueEnd));
+                break;
+            case TOP_GAME_STARS:
+                user.getStatsOfTopGame().setStars(parseInt(buffer, valueStart, valueEnd));
+                break;
+            case TOP_GAME_TAPS:
+                user.getStatsOfTopGame().setTaps(parseInt(buffer, valueStart, valueEnd));
+                break;
+            case CURR_GAME_POINTS:
+                user.getStatsOfCurrentGame().setPoints(parseInt(buffer, valueStart, valueEnd));
+                break;
+            case CURR_GAME_STARS:
+                user.getStatsOfCurrentGame().setStars(parseInt(buffer, valueStart, valueEnd));
+                break;
+            case CURR_GAME_TAPS:
+                user.getStatsOfCurrentGame().setTaps(parseInt(buffer, valueStart, valueEnd));
+                break;
+            case TOP_IND_POINTS:
+                user.getTopIndividualStats().setPoints(parseInt(buffer, valueStart, valueEnd));
+                break;
+            case TOP_IND_STARS:
+                user.getTopIndividualStats().setStars(parseInt(buffer, valueStart, valueEnd));
+                break;
+            case TOP_IND_TAPS:
+                user.getTopIndividualStats().setTaps(parseInt(buffer, valueStart, valueEnd));
+                break;
+            case LAST_COMP_LVL:
+                user.setLastCompletedLevel(parseInt(buffer, valueStart, valueEnd));
+                return true;
+            default:
+                Log.e(TAG, "Invalid key: " + FileDataManager.DATA_FILE);
+                break;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the field whose key is the bytes between start and end, or INVALID_KEY if there is
+     * no such field.
+     */
+    private static int fieldOf(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (length == 0 || length > MAX_KEY_LENGTH || FIELDS_BY_LENGTH[length] == null) {
+            return INVALID_KEY;
+        }
+        byte first = buffer.get(start);
+        for (int field : FIELDS_BY_LENGTH[length]) {
+            if (KEYS[field][0] == first && matches(buffer, start, KEYS[field])) {
+                return field;
+            }
+        }
+        return INVALID_KEY;
+    }
+
+    /**
+     * Returns the ordinal of the enum constant whose name is the bytes between start and end, or
+     * the given default ordinal if there is no such constant.
+     */
+    private static int ordinalOf(ByteBuffer buffer, int start, int end, byte[][] names,
+                                 int defaultOrdinal) {
+        for (int ordinal = 0; ordinal < names.length; ordinal++) {
+            if (names[ordinal].length == end - start && matches(buffer, start, names[ordinal])) {
+                return ordinal;
+            }
+        }
+        return defaultOrdinal;
+    }
+
+    /**
+     * Returns whether the bytes at start in the given buffer are the given bytes.
+     */
+    private static boolean matches(ByteBuffer buffer, int start, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the decimal integer between start and end.
+     *
+     * @throws NumberFormatException if the bytes are not a decimal integer
+     */
+    static int parseInt(ByteBuffer buffer, int start, int end) {
+        boolean negative = start < end && buffer.get(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) {
+            throw new NumberFormatException();
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException();
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException();
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException();
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decodes the UTF-8 string between start and end.
+     */
+    private String decodeString(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (length > stringBytes.length) {
+            stringBytes = new byte[Math.max(length, 2 * stringBytes.length)];
+        }
+        for (int i = 0; i < length; i++) {
+            stringBytes[i] = buffer.get(start + i);
+        }
+        return new String(stringBytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the index of the first occurrence of the given byte between start and end, or end if
+     * the byte does not occur.
+     */
+    static int indexOf(ByteBuffer buffer, byte b, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == b) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static byte[] bytesOf(String str) {
+        return str.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[][] namesOf(Enum<?>[] constants) {
+        byte[][] names = new byte[constants.length][];
+        for (int i = 0; i < constants.length; i++) {
+            names[i] = bytesOf(constants[i].name());
+        }
+        return names;
+    }
+}
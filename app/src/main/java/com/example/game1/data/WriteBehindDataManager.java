@@ -0,0 +1,615 @@
+package com.example.game1.data;
+
+import android.util.Log;
+
+import com.example.game1.presentation.model.LeaderboardPage;
+import com.example.game1.presentation.model.User;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * A data manager that defers the writes of another data manager to a background writer thread.
+ *
+ * <p>Created and updated users are queued instead of being written right away. Repeated writes of
+ * the same user that are still queued are merged into one, and the writer thread hands everything
+ * that is queued to the wrapped data manager in one batch. The top statistics of an updated user
+ * are still brought up to date before updateUser returns, so the caller sees the same User object
+ * it would see with a synchronous data manager.
+ *
+ * <p>What is queued is a copy of the user taken when it was queued, so the writer thread never
+ * reads a User that the caller may still be changing. For the same reason, getUser and the
+ * queries that return users hand out a User of its own for each user instead of the one the
+ * wrapped data manager keeps.
+ *
+ * <p>Other writes, such as the journal of the per-game leaderboards, can be run on the same writer
+ * thread through execute, so that flush covers them too.
+ *
+ * <p>Every call into the wrapped data manager is made while holding its lock, so a read may wait
+ * for at most one write to finish. The queries that rank or count every user, unlike topK, first
+ * write what is queued on the calling thread, and may rebuild the wrapped data manager's
+ * leaderboards, so they should not be called on the main thread.
+ */
+public class WriteBehindDataManager implements DataManagerIntf, Executor {
+
+    private static final String TAG = "Write Behind Data Manager";
+
+    /* The data manager whose writes are deferred */
+    private final DataManagerIntf dataManager;
+
+    /* The queued writes, keyed by lowercase username, in the order they were first queued */
+    private final Map<String, PendingWrite> pendingWrites = new LinkedHashMap<>();
+
+    /* The users handed to or out of this data manager, keyed by lowercase username. These are the
+     * ones callers change, and they are never handed to dataManager. */
+    private final Map<String, User> liveUsers = new HashMap<>();
+
+    /* The number of writes that were taken off the queue but are not finished yet */
+    private int writesInFlight;
+
+    /* The other writes given to execute that have not run yet, in the order they were given */
+    private final List<Runnable> pendingTasks = new ArrayList<>();
+
+    /* The number of those writes that were taken off the queue but are not finished yet */
+    private int tasksInFlight;
+
+    /* The number of writes that were requested, the number that were merged into a queued write,
+     * and the number that reached dataManager */
+    private long writesRequested;
+    private long writesCoalesced;
+    private long writesPerformed;
+
+    /* The number of batches written, and their total and latest latency */
+    private long batchesWritten;
+    private long totalFlushLatencyNs;
+    private long lastFlushLatencyNs;
+
+    /**
+     * Constructs a WriteBehindDataManager and starts its writer thread.
+     *
+     * @param dataManager the data manager whose writes are deferred
+     */
+    public WriteBehindDataManager(DataManagerIntf dataManager) {
+        this.dataManager = dataManager;
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, TAG);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues the given user to be added.
+     *
+     * @param user the User object to be added
+     */
+    @Override
+    public void createUser(User user) {
+        enqueue(user, false);
+    }
+
+    /**
+     * Updates the given user's top statistics and queues the user to be updated.
+     *
+     * @param user the User object to be updated
+     */
+    @Override
+    public void updateUser(User user) {
+        AbstractDataManager.updateUsersTopStats(user);
+        enqueue(user, true);
+    }
+
+    /**
+     * Queues the given users to be added.
+     *
+     * @param users the User objects to be added
+     */
+    @Override
+    public synchronized void createUsers(Collection<User> users) {
+        for (User user : users) {
+            enqueue(user, false);
+        }
+    }
+
+    /**
+     * Updates the given users' top statistics and queues the users to be updated.
+     *
+     * @param users the User objects to be updated
+     */
+    @Override
+    public synchronized void updateUsers(Collection<User> users) {
+        for (User user : users) {
+            AbstractDataManager.updateUsersTopStats(user);
+            enqueue(user, true);
+        }
+    }
+
+    /**
+     * Queues a write of a copy of the given user, merging it with a write of the same user that is
+     * already queued. The given user is marked clean, as its changes are now queued.
+     */
+    private synchronized void enqueue(User user, boolean update) {
+        String key = user.getUserName().toLowerCase();
+        liveUsers.put(key, user);
+        User copy = user.copy();
+        user.markClean();
+        PendingWrite pendingWrite = pendingWrites.get(key);
+        if (pendingWrite == null) {
+            pendingWrites.put(key, new PendingWrite(user, copy, update));
+        } else {
+            // Keep the copy dirty if the write it replaces still has changes to save
+            if (pendingWrite.copy.isDirty()) {
+                copy.markDirty();
+            }
+            pendingWrite.user = user;
+            pendingWrite.copy = copy;
+            pendingWrite.update |= update;
+            writesCoalesced++;
+        }
+        writesRequested++;
+        notifyAll();
+    }
+
+    /**
+     * Queues the given write to be run on the writer thread, after the writes given before it.
+     *
+     * @param task the write to run
+     */
+    @Override
+    public synchronized void execute(Runnable task) {
+        pendingTasks.add(task);
+        notifyAll();
+    }
+
+    /**
+     * Writes the queued users in batches, and runs the queued writes given to execute, until the
+     * thread is interrupted.
+     */
+    private void writeLoop() {
+        while (true) {
+            synchronized (this) {
+                while (pendingWrites.isEmpty() && pendingTasks.isEmpty()) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+            writePendingWrites();
+            runPendingTasks();
+        }
+    }
+
+    /**
+     * Takes every queued write given to execute off the queue and runs it. They are run without
+     * holding any lock, since they do not touch the wrapped data manager.
+     */
+    private void runPendingTasks() {
+        List<Runnable> tasks;
+        synchronized (this) {
+            tasks = new ArrayList<>(pendingTasks);
+            pendingTasks.clear();
+            tasksInFlight += tasks.size();
+        }
+        for (Runnable task : tasks) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                Log.e(TAG, "Error encountered trying to run a queued write");
+            }
+        }
+        synchronized (this) {
+            tasksInFlight -= tasks.size();
+            notifyAll();
+        }
+    }
+
+    /**
+     * Takes everything that is queued off the queue and writes it to dataManager in one batch.
+     */
+    private void writePendingWrites() {
+        int batchSize;
+        long startTime = System.nanoTime();
+        // Hold dataManager's lock from the moment the batch leaves the queue, so that getUser
+        // never misses a user that is neither queued nor written yet
+        synchronized (dataManager) {
+            List<PendingWrite> batch;
+            synchronized (this) {
+                batch = new ArrayList<>(pendingWrites.values());
+                pendingWrites.clear();
+                writesInFlight += batch.size();
+            }
+            batchSize = batch.size();
+            if (batchSize == 0) {
+                return;
+            }
+            try {
+                writeBatch(batch);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                Log.e(TAG, "Error encountered trying to write " + batchSize + " users");
+            }
+            // A copy that is still dirty was not saved, so its user's changes are unsaved again
+            for (PendingWrite pendingWrite : batch) {
+                if (pendingWrite.copy.isDirty()) {
+                    pendingWrite.user.markDirty();
+                }
+            }
+        }
+        long latency = System.nanoTime() - startTime;
+
+        synchronized (this) {
+            writesInFlight -= batchSize;
+            writesPerformed += batchSize;
+            batchesWritten++;
+            totalFlushLatencyNs += latency;
+            lastFlushLatencyNs = latency;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Hands the given writes to dataManager, with at most one batch call for the created users and
+     * one for the updated users.
+     */
+    private void writeBatch(List<PendingWrite> batch) {
+        List<User> createdUsers = new ArrayList<>();
+        List<User> updatedUsers = new ArrayList<>();
+        for (PendingWrite pendingWrite : batch) {
+            if (pendingWrite.update) {
+                updatedUsers.add(pendingWrite.copy);
+            } else {
+                createdUsers.add(pendingWrite.copy);
+            }
+        }
+        if (!createdUsers.isEmpty()) {
+            dataManager.createUsers(createdUsers);
+        }
+        if (!updatedUsers.isEmpty()) {
+            dataManager.updateUsers(updatedUsers);
+        }
+    }
+
+    /**
+     * Blocks until every write queued before this call has reached the wrapped data manager, and
+     * every write given to execute before it has run. This should be called before the
+     * application shuts down.
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public synchronized void flush() throws InterruptedException {
+        while (!pendingWrites.isEmpty() || writesInFlight > 0
+                || !pendingTasks.isEmpty() || tasksInFlight > 0) {
+            wait();
+        }
+    }
+
+    /**
+     * Wakes the writer thread up to write everything that is queued, without waiting for it. It
+     * is safe to call on the main thread.
+     */
+    public synchronized void requestFlush() {
+        notifyAll();
+    }
+
+    /**
+     * Returns the user with the given username, including a user whose creation is still queued.
+     * If no such user exists, return null. The same User object is returned every time, and it is
+     * never the one the wrapped data manager keeps.
+     *
+     * @param username the username of a User
+     * @return the User object with the given username. If no such User object exists, return null
+     */
+    @Override
+    public User getUser(String username) {
+        synchronized (this) {
+            User user = liveUsers.get(username);
+            if (user != null) {
+                return user;
+            }
+        }
+        synchronized (dataManager) {
+            User user = dataManager.getUser(username);
+            return user == null ? null : toLiveUser(user);
+        }
+    }
+
+    /**
+     * Returns the User of this data manager for the given user of the wrapped data manager,
+     * copying it the first time the user is handed out. It must be called while holding
+     * dataManager's lock, so that the user is neither queued nor written meanwhile.
+     */
+    private synchronized User toLiveUser(User user) {
+        String key = user.getUserName().toLowerCase();
+        // Another thread may have looked the user up while this one waited for the lock
+        User liveUser = liveUsers.get(key);
+        if (liveUser == null) {
+            liveUser = user.copy();
+            liveUsers.put(key, liveUser);
+        }
+        return liveUser;
+    }
+
+    /**
+     * Returns the Users of this data manager for the given users of the wrapped data manager. It
+     * must be called while holding dataManager's lock.
+     */
+    private List<User> toLiveUsers(List<User> users) {
+        List<User> liveUsers = new ArrayList<>(users.size());
+        for (User user : users) {
+            liveUsers.add(toLiveUser(user));
+        }
+        return liveUsers;
+    }
+
+    @Override
+    public boolean canSave(User user) {
+        return dataManager.canSave(user);
+    }
+
+    @Override
+    public int getTopScore(User user) {
+        return dataManager.getTopScore(user);
+    }
+
+    @Override
+    public int getCurrentScore(User user) {
+        return dataManager.getCurrentScore(user);
+    }
+
+    /**
+     * Returns the top k users (sorted in non-increasing order) under the given criterion,
+     * including users whose writes are still queued.
+     *
+     * @param k         the maximum number of users to return
+     * @param criterion the criterion to rank the users by
+     * @return a list of at most k User objects sorted (in non-increasing order) under the criterion
+     */
+    @Override
+    public List<User> topK(int k, Criterion criterion) {
+        synchronized (dataManager) {
+            Map<String, User> candidates = new HashMap<>();
+            synchronized (this) {
+                // The wrapped data manager may still rank a queued user by its old values, so ask
+                // it for enough users to fill the top k without any of the queued ones
+                for (User user : dataManager.topK(k + pendingWrites.size(), criterion)) {
+                    candidates.put(user.getUserName().toLowerCase(), toLiveUser(user));
+                }
+                for (Map.Entry<String, PendingWrite> entry : pendingWrites.entrySet()) {
+                    candidates.put(entry.getKey(), entry.getValue().user);
+                }
+            }
+
+            TopKSelector selector = new TopKSelector(k);
+            for (Map.Entry<String, User> entry : candidates.entrySet()) {
+                selector.offer(criterion.getValue(entry.getValue()), entry.getKey());
+            }
+            List<User> users = new ArrayList<>();
+            for (String key : selector.getKeys()) {
+                users.add(candidates.get(key));
+            }
+            return users;
+        }
+    }
+
+    /**
+     * Returns the rank of the user with the given username under the given criterion. The queued
+     * writes are written first, since they may move any user's rank.
+     *
+     * @param username  the username of a User
+     * @param criterion the criterion to rank the users by
+     * @return the rank of the User, starting from 1, or 0 if no such User exists
+     */
+    @Override
+    public int getRank(String username, Criterion criterion) {
+        synchronized (dataManager) {
+            writePendingWrites();
+            return dataManager.getRank(username, criterion);
+        }
+    }
+
+    /**
+     * Returns the users around the user with the given username under the given criterion. The
+     * queued writes are written first, since they may move any user's rank.
+     *
+     * @param username  the username of a User
+     * @param criterion the criterion to rank the users by
+     * @param radius    the maximum number of users to return on either side of the User
+     * @return a list of User objects sorted (in non-increasing order) under the criterion, or an
+     * empty list if no such User exists
+     */
+    @Override
+    public List<User> getNeighborhood(String username, Criterion criterion, int radius) {
+        synchronized (dataManager) {
+            writePendingWrites();
+            return toLiveUsers(dataManager.getNeighborhood(username, criterion, radius));
+        }
+    }
+
+    /**
+     * Returns the page of users under the given criterion that follows the given cursor. The
+     * queued writes are written first, since they may move any user's rank.
+     *
+     * @param criterion the criterion to rank the users by
+     * @param cursor    the cursor of a previous page, or null for the first page
+     * @param pageSize  the maximum number of users on the page
+     * @return the page of users, with the cursor of the page after it
+     * @throws IllegalArgumentException if the cursor is malformed or pageSize is not positive
+     */
+    @Override
+    public LeaderboardPage getLeaderboardPage(Criterion criterion, String cursor, int pageSize) {
+        synchronized (dataManager) {
+            writePendingWrites();
+            LeaderboardPage page = dataManager.getLeaderboardPage(criterion, cursor, pageSize);
+            return new LeaderboardPage(toLiveUsers(page.getUsers()), page.getNextCursor());
+        }
+    }
+
+    /**
+     * Returns every user (sorted in non-increasing order) under the given criterion. The queued
+     * writes are written first, since they may move any user, and the users are looked up in the
+     * wrapped data manager while holding its lock as the list is read, each as the User of this
+     * data manager.
+     *
+     * @param criterion the criterion to rank the users by
+     * @return a list of every User sorted (in non-increasing order) under the criterion
+     */
+    @Override
+    public List<User> getFullRanking(Criterion criterion) {
+        final List<User> ranking;
+        synchronized (dataManager) {
+            writePendingWrites();
+            ranking = dataManager.getFullRanking(criterion);
+        }
+        return new AbstractList<User>() {
+            @Override
+            public User get(int index) {
+                synchronized (dataManager) {
+                    return toLiveUser(ranking.get(index));
+                }
+            }
+
+            @Override
+            public int size() {
+                return ranking.size();
+            }
+        };
+    }
+
+    /**
+     * Returns the percentage of the other users that the user with the given username beats under
+     * the given criterion. The queued writes are written first, since they may change any user's
+     * value.
+     *
+     * @param username  the username of a User
+     * @param criterion the criterion to compare the users by
+     * @return the percentage of the other users with a lower value, from 0 to 100, or 0 if no such
+     * User exists
+     */
+    @Override
+    public double getPercentile(String username, Criterion criterion) {
+        synchronized (dataManager) {
+            writePendingWrites();
+            return dataManager.getPercentile(username, criterion);
+        }
+    }
+
+    /**
+     * Returns the number of users whose value under the given criterion falls in each of the
+     * given ranges. The queued writes are written first, since they may change any user's value.
+     *
+     * @param criterion  the criterion to count the users by
+     * @param boundaries the lower end of each range, in increasing order
+     * @return the number of users in each range
+     */
+    @Override
+    public int[] getHistogram(Criterion criterion, int[] boundaries) {
+        synchronized (dataManager) {
+            writePendingWrites();
+            return dataManager.getHistogram(criterion, boundaries);
+        }
+    }
+
+    /**
+     * Returns the number of times the users have been modified, counting every queued write.
+     *
+     * @return the modification count
+     */
+    @Override
+    public long getModificationCount() {
+        synchronized (dataManager) {
+            synchronized (this) {
+                return writesRequested + dataManager.getModificationCount();
+            }
+        }
+    }
+
+    /**
+     * Warms up the wrapped data manager without holding its lock, since an AbstractDataManager
+     * only takes it for the parts of the warm-up that need it, so the writer thread is not held
+     * up meanwhile.
+     */
+    @Override
+    public void warmUp() {
+        dataManager.warmUp();
+    }
+
+    /**
+     * Returns the number of users waiting to be written.
+     *
+     * @return the number of queued writes
+     */
+    public synchronized int getQueueDepth() {
+        return pendingWrites.size();
+    }
+
+    /**
+     * Returns how long the latest batch took to write, in nanoseconds.
+     *
+     * @return the latency of the latest batch, or 0 if no batch was written yet
+     */
+    public synchronized long getLastFlushLatencyNs() {
+        return lastFlushLatencyNs;
+    }
+
+    /**
+     * Returns how long a batch took to write on average, in nanoseconds.
+     *
+     * @return the average latency of a batch, or 0 if no batch was written yet
+     */
+    public synchronized long getAverageFlushLatencyNs() {
+        return batchesWritten == 0 ? 0 : totalFlushLatencyNs / batchesWritten;
+    }
+
+    /**
+     * Returns the number of requested writes per write that is handed to the wrapped data manager.
+     * A ratio above 1 means repeated writes of the same user were merged.
+     *
+     * @return the coalesce ratio, or 1 if nothing was requested yet
+     */
+    public synchronized double getCoalesceRatio() {
+        return writesRequested == 0 ? 1
+                : (double) writesRequested / (writesRequested - writesCoalesced);
+    }
+
+    /**
+     * Returns the number of users that reached the wrapped data manager.
+     *
+     * @return the number of writes performed
+     */
+    public synchronized long getWritesPerformed() {
+        return writesPerformed;
+    }
+
+    /**
+     * A queued write of a user.
+     */
+    private static class PendingWrite {
+
+        /* The user that was queued, which its caller may still be changing */
+        private User user;
+
+        /* A copy of the user taken when it was last queued, which is what is written */
+        private User copy;
+
+        /* Whether the user was updated, rather than only created, since it was queued */
+        private boolean update;
+
+        private PendingWrite(User user, User copy, boolean update) {
+            this.user = user;
+            this.copy = copy;
+            this.update = update;
+        }
+    }
+}
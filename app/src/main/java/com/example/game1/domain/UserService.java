@@ -1,11 +1,22 @@
 package com.example.game1.domain;
 
 import com.example.game1.AppManager;
+import com.example.game1.data.Criterion;
 import com.example.game1.data.DataManagerIntf;
+import com.example.game1.data.GameLeaderboards;
+import com.example.game1.presentation.model.Game;
+import com.example.game1.presentation.model.GameScore;
+import com.example.game1.presentation.model.LeaderboardPage;
 import com.example.game1.presentation.model.User;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * The domain service. It implements business logic, such as user validation.
@@ -14,29 +25,92 @@ public class UserService implements UserServiceIntf {
 
     private DataManagerIntf dataManager;
 
+    private GameLeaderboards gameLeaderboards;
+
+    /* The leaderboards returned by getTopUsers, keyed by criterion and size */
+    private final Map<String, List<User>> leaderboardCache = new HashMap<>();
+
+    /* The data manager's modification count when leaderboardCache was last valid */
+    private long leaderboardCacheVersion = -1;
+
+    /* The number of getTopUsers calls answered from and not from leaderboardCache */
+    private long leaderboardCacheHits;
+    private long leaderboardCacheMisses;
+
     /**
      * Constructs a UserService object
      */
     public UserService() {
-        dataManager = AppManager.getInstance().lookupDataManager();
     }
 
     /**
-     * If the given user's username is not already taken, register the given user and return true.
-     * Otherwise, return false
+     * Injects an instance of an implementation of DataManagerIntf into this UserService, instead
+     * of the shared one
+     *
+     * @param dataManager an instance of an implementation of DataManagerIntf
+     */
+    public void setDataManager(DataManagerIntf dataManager) {
+        this.dataManager = dataManager;
+    }
+
+    /**
+     * Injects the per-game leaderboards into this UserService, instead of the shared ones
+     *
+     * @param gameLeaderboards an instance of GameLeaderboards
+     */
+    public void setGameLeaderboards(GameLeaderboards gameLeaderboards) {
+        this.gameLeaderboards = gameLeaderboards;
+    }
+
+    /**
+     * Returns the shared data manager, looking it up on first use so that constructing this
+     * service does not wait for the persistence file to load.
+     */
+    private DataManagerIntf getDataManager() {
+        if (dataManager == null) {
+            dataManager = AppManager.getInstance().lookupDataManager();
+        }
+        return dataManager;
+    }
+
+    /**
+     * Returns the shared per-game leaderboards, looking them up on first use.
+     */
+    private GameLeaderboards getGameLeaderboards() {
+        if (gameLeaderboards == null) {
+            gameLeaderboards = AppManager.getInstance().lookupGameLeaderboards();
+        }
+        return gameLeaderboards;
+    }
+
+    /**
+     * If the given user's username is not already taken and the user can be saved, register the
+     * given user and return true. Otherwise, return false
      *
      * @param user the User object to register
      * @return true if registration was successful, and false otherwise
      */
     public boolean registerUser(User user) {
-        if (dataManager.getUser(user.getUserName()) != null) {
+        if (!getDataManager().canSave(user)) {
+            return false;
+        } else if (getDataManager().getUser(user.getUserName()) != null) {
             return false;
         } else {
-            dataManager.createUser(user);
+            getDataManager().createUser(user);
             return true;
         }
     }
 
+    /**
+     * Returns whether the given user can be saved by the data manager
+     *
+     * @param user a User object
+     * @return true if the user can be saved, and false otherwise
+     */
+    public boolean canSave(User user) {
+        return getDataManager().canSave(user);
+    }
+
     /**
      * If the given username and password correspond to an existing user, return the existing user.
      * Otherwise, return null
@@ -47,7 +121,7 @@ public class UserService implements UserServiceIntf {
      * return null
      */
     public User getUser(String username, String password) {
-        User user = dataManager.getUser(username);
+        User user = getDataManager().getUser(username);
         if (user != null && user.getPassword().equals(password)) {
             return user;
         } else {
@@ -61,7 +135,39 @@ public class UserService implements UserServiceIntf {
      * @param user the User object to update
      */
     public void updateUser(User user) {
-        dataManager.updateUser(user);
+        getDataManager().updateUser(user);
+    }
+
+    /**
+     * Registers every given user whose username is not already taken, in a single write, and
+     * returns the number of users registered. Of several given users with the same username, only
+     * the first is registered.
+     *
+     * @param users the User objects to register
+     * @return the number of users that were registered
+     */
+    public int createUsers(Collection<User> users) {
+        Set<String> usernames = new HashSet<>();
+        List<User> newUsers = new ArrayList<>();
+        for (User user : users) {
+            if (getDataManager().getUser(user.getUserName()) == null
+                    && usernames.add(user.getUserName().toLowerCase())) {
+                newUsers.add(user);
+            }
+        }
+        if (!newUsers.isEmpty()) {
+            getDataManager().createUsers(newUsers);
+        }
+        return newUsers.size();
+    }
+
+    /**
+     * Updates the given users' information in a single write
+     *
+     * @param users the User objects to update
+     */
+    public void updateUsers(Collection<User> users) {
+        getDataManager().updateUsers(users);
     }
 
     /**
@@ -72,9 +178,9 @@ public class UserService implements UserServiceIntf {
      * @return the top score of the user with the given username. If no such user exists, return 0.
      */
     public int getTopScore(String username) {
-        User user = dataManager.getUser(username);
+        User user = getDataManager().getUser(username);
         if (user != null) {
-            return dataManager.getTopScore(user);
+            return getDataManager().getTopScore(user);
         } else {
             return 0;
         }
@@ -89,49 +195,182 @@ public class UserService implements UserServiceIntf {
      * return 0.
      */
     public int getCurrentScore(String username) {
-        User user = dataManager.getUser(username);
+        User user = getDataManager().getUser(username);
         if (user != null) {
-            return dataManager.getCurrentScore(user);
+            return getDataManager().getCurrentScore(user);
         } else {
             return 0;
         }
     }
 
     /**
-     * Returns the top x users (sorted in non-increasing order) based on the given criterion.
+     * Returns the top x users (sorted in non-increasing order) based on the given criterion. The
+     * result is cached until the data manager's users are modified.
      *
      * @param x         the maximum number of users to return
      * @param criterion the criterion on which to sort the users
-     * @return a list of x users (sorted in non-increasing order) based on the given criterion. If
-     * less than x users exist, return a list whose length equals the number of existing users.
+     * @return an unmodifiable list of x users (sorted in non-increasing order) based on the given
+     * criterion. If less than x users exist, return a list whose length equals the number of
+     * existing users.
      */
-    public List<User> getTopUsers(int x, String criterion) {
-        List<User> users;
+    public synchronized List<User> getTopUsers(int x, String criterion) {
+        // Read the modification count before querying, so a concurrent write can only make the
+        // cached leaderboard newer than its version
+        long version = getDataManager().getModificationCount();
+        if (version != leaderboardCacheVersion) {
+            leaderboardCache.clear();
+            leaderboardCacheVersion = version;
+        }
 
-        if ("Points".equals(criterion)) {
-            users = dataManager.sortUsersByPoints();
-        } else if ("Stars".equals(criterion)) {
-            users = dataManager.sortUsersByStars();
-        } else if ("Taps".equals(criterion)) {
-            users = dataManager.sortUsersByTaps();
+        Criterion leaderboardCriterion = toCriterion(criterion);
+        String cacheKey = leaderboardCriterion + ":" + x;
+        List<User> users = leaderboardCache.get(cacheKey);
+        if (users != null) {
+            leaderboardCacheHits++;
         } else {
-            // "Total Score".equals(criterion)
-            users = dataManager.sortUsersByScore();
+            leaderboardCacheMisses++;
+            users = Collections.unmodifiableList(getDataManager().topK(x, leaderboardCriterion));
+            leaderboardCache.put(cacheKey, users);
         }
-        return getLastXElementsReversed(users, x);
+        return users;
+    }
+
+    /**
+     * Returns every user (sorted in non-increasing order) based on the given criterion, e.g. for
+     * an export or a report.
+     *
+     * @param criterion the criterion on which to sort the users
+     * @return a list of every user (sorted in non-increasing order) based on the given criterion
+     */
+    public List<User> getFullRanking(String criterion) {
+        return getDataManager().getFullRanking(toCriterion(criterion));
+    }
+
+    /**
+     * Returns the rank of the user with the given username based on the given criterion. Users
+     * with equal values share a rank. If the user does not exist, return 0.
+     *
+     * @param username  the username of a user
+     * @param criterion the criterion on which to rank the users
+     * @return the rank of the user, starting from 1. If no such user exists, return 0.
+     */
+    public int getRank(String username, String criterion) {
+        return getDataManager().getRank(username, toCriterion(criterion));
+    }
+
+    /**
+     * Returns the user with the given username together with up to radius users ranked directly
+     * above and below them (sorted in non-increasing order) based on the given criterion. If the
+     * user does not exist, return an empty list.
+     *
+     * @param username  the username of a user
+     * @param criterion the criterion on which to rank the users
+     * @param radius    the maximum number of users to return on either side of the user
+     * @return a list of at most 2 * radius + 1 users (sorted in non-increasing order) based on the
+     * given criterion. If no such user exists, return an empty list.
+     */
+    public List<User> getNeighborhood(String username, String criterion, int radius) {
+        return getDataManager().getNeighborhood(username, toCriterion(criterion), radius);
+    }
+
+    /**
+     * Returns the page of up to pageSize users (sorted in non-increasing order) based on the given
+     * criterion that follows the given cursor. Pass null for the first page, and the page's next
+     * cursor for each page after it.
+     *
+     * @param criterion the criterion on which to rank the users
+     * @param cursor    the cursor returned with the previous page, or null for the first page
+     * @param pageSize  the maximum number of users on the page
+     * @return the page of users, with the cursor of the page after it
+     * @throws IllegalArgumentException if the cursor is malformed or pageSize is not positive
+     */
+    public LeaderboardPage getLeaderboardPage(String criterion, String cursor, int pageSize) {
+        return getDataManager().getLeaderboardPage(toCriterion(criterion), cursor, pageSize);
     }
 
     /**
-     * Return a new list containing the last x elements in the given list in reverse order. If the
-     * given list has less than x elements, simply return a copy of the given list in reverse order.
+     * Returns the percentage of the other users that the user with the given username beats based
+     * on the given criterion, i.e. that have a lower value. If the user does not exist, return 0.
+     *
+     * @param username  the username of a user
+     * @param criterion the criterion on which to compare the users
+     * @return the percentage of the other users with a lower value, from 0 to 100. If no such user
+     * exists, return 0.
      */
-    private List<User> getLastXElementsReversed(List<User> list, int x) {
-        List<User> newList = new ArrayList<>();
-        int sizeOfNewList = Math.min(x, list.size());
+    public double getPercentile(String username, String criterion) {
+        return getDataManager().getPercentile(username, toCriterion(criterion));
+    }
 
-        for (int i = 0; i < sizeOfNewList; i++) {
-            newList.add(list.get(list.size() - 1 - i));
+    /**
+     * Returns the number of users whose value based on the given criterion falls in each of the
+     * given ranges. Range i holds the values from boundaries[i], inclusive, to boundaries[i + 1],
+     * exclusive, and the last range has no upper end.
+     *
+     * @param criterion  the criterion on which to count the users
+     * @param boundaries the lower end of each range, in increasing order
+     * @return the number of users in each range
+     */
+    public int[] getHistogram(String criterion, int[] boundaries) {
+        return getDataManager().getHistogram(toCriterion(criterion), boundaries);
+    }
+
+    /**
+     * Records the given game, which the given user just finished, on the leaderboards of the
+     * game's type
+     *
+     * @param user the User who finished the game
+     * @param game the Game that was finished
+     */
+    public void recordGame(User user, Game game) {
+        getGameLeaderboards().recordGame(user.getUserName(), game, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the best scores of the top x users (sorted in non-increasing order) in the given
+     * game during the current day or week.
+     *
+     * @param game   the type of game to rank the users in
+     * @param period the period to rank the users over, either "Today" or "This Week"
+     * @param x      the maximum number of scores to return
+     * @return the best score of each of at most x users, highest score first
+     */
+    public List<GameScore> getTopGameScores(Game.GameName game, String period, int x) {
+        GameLeaderboards.Period leaderboardPeriod = "This Week".equals(period)
+                ? GameLeaderboards.Period.WEEK : GameLeaderboards.Period.DAY;
+        return getGameLeaderboards().topK(game, leaderboardPeriod, x, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the number of getTopUsers calls that were answered from the cache.
+     *
+     * @return the number of leaderboard cache hits
+     */
+    public synchronized long getLeaderboardCacheHits() {
+        return leaderboardCacheHits;
+    }
+
+    /**
+     * Returns the number of getTopUsers calls that had to query the data manager.
+     *
+     * @return the number of leaderboard cache misses
+     */
+    public synchronized long getLeaderboardCacheMisses() {
+        return leaderboardCacheMisses;
+    }
+
+    /**
+     * Returns the Criterion with the given name, as shown on the scoreboard.
+     */
+    private static Criterion toCriterion(String criterion) {
+        if ("Points".equals(criterion)) {
+            return Criterion.POINTS;
+        } else if ("Stars".equals(criterion)) {
+            return Criterion.STARS;
+        } else if ("Taps".equals(criterion)) {
+            return Criterion.TAPS;
+        } else {
+            // "Total Score".equals(criterion)
+            return Criterion.SCORE;
         }
-        return newList;
     }
 }
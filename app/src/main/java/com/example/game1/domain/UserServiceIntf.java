@@ -1,7 +1,11 @@
 package com.example.game1.domain;
 
+import com.example.game1.presentation.model.Game;
+import com.example.game1.presentation.model.GameScore;
+import com.example.game1.presentation.model.LeaderboardPage;
 import com.example.game1.presentation.model.User;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -18,6 +22,15 @@ public interface UserServiceIntf {
      */
     boolean registerUser(User user);
 
+    /**
+     * Returns whether the given user can be saved, e.g. whether its username and password fit in
+     * the format the users are persisted in.
+     *
+     * @param user a User object
+     * @return true if the user can be saved, and false otherwise
+     */
+    boolean canSave(User user);
+
     /**
      * If the given username and password correspond to an existing user, return the existing user.
      * Otherwise, return null
@@ -36,6 +49,23 @@ public interface UserServiceIntf {
      */
     void updateUser(User user);
 
+    /**
+     * Registers every given user whose username is not already taken, in a single write, and
+     * returns the number of users registered. It is for bulk operations such as importing a roster;
+     * the app itself has only one signed-in user, and saves it with createUser and updateUser.
+     *
+     * @param users the User objects to register
+     * @return the number of users that were registered
+     */
+    int createUsers(Collection<User> users);
+
+    /**
+     * Updates the given users' information in a single write
+     *
+     * @param users the User objects to update
+     */
+    void updateUsers(Collection<User> users);
+
     /**
      * Return the top score of the user with the given username. If the user does not exist,
      * return 0.
@@ -64,4 +94,105 @@ public interface UserServiceIntf {
      * less than x users exist, return a list whose length equals the number of existing users.
      */
     List<User> getTopUsers(int x, String criterion);
+
+    /**
+     * Returns the number of getTopUsers calls that were answered from the cache.
+     *
+     * @return the number of leaderboard cache hits
+     */
+    long getLeaderboardCacheHits();
+
+    /**
+     * Returns the number of getTopUsers calls that had to query the data manager.
+     *
+     * @return the number of leaderboard cache misses
+     */
+    long getLeaderboardCacheMisses();
+
+    /**
+     * Returns every user (sorted in non-increasing order) based on the given criterion, e.g. for
+     * an export or a report.
+     *
+     * @param criterion the criterion on which to sort the users
+     * @return a list of every user (sorted in non-increasing order) based on the given criterion
+     */
+    List<User> getFullRanking(String criterion);
+
+    /**
+     * Returns the rank of the user with the given username based on the given criterion. Users
+     * with equal values share a rank. If the user does not exist, return 0.
+     *
+     * @param username  the username of a user
+     * @param criterion the criterion on which to rank the users
+     * @return the rank of the user, starting from 1. If no such user exists, return 0.
+     */
+    int getRank(String username, String criterion);
+
+    /**
+     * Returns the user with the given username together with up to radius users ranked directly
+     * above and below them (sorted in non-increasing order) based on the given criterion. If the
+     * user does not exist, return an empty list.
+     *
+     * @param username  the username of a user
+     * @param criterion the criterion on which to rank the users
+     * @param radius    the maximum number of users to return on either side of the user
+     * @return a list of at most 2 * radius + 1 users (sorted in non-increasing order) based on the
+     * given criterion. If no such user exists, return an empty list.
+     */
+    List<User> getNeighborhood(String username, String criterion, int radius);
+
+    /**
+     * Returns the page of up to pageSize users (sorted in non-increasing order) based on the given
+     * criterion that follows the given cursor. Pass null for the first page, and the page's next
+     * cursor for each page after it.
+     *
+     * @param criterion the criterion on which to rank the users
+     * @param cursor    the cursor returned with the previous page, or null for the first page
+     * @param pageSize  the maximum number of users on the page
+     * @return the page of users, with the cursor of the page after it
+     * @throws IllegalArgumentException if the cursor is malformed or pageSize is not positive
+     */
+    LeaderboardPage getLeaderboardPage(String criterion, String cursor, int pageSize);
+
+    /**
+     * Records the given game, which the given user just finished, on the leaderboards of the
+     * game's type
+     *
+     * @param user the User who finished the game
+     * @param game the Game that was finished
+     */
+    void recordGame(User user, Game game);
+
+    /**
+     * Returns the best scores of the top x users (sorted in non-increasing order) in the given
+     * game during the current day or week.
+     *
+     * @param game   the type of game to rank the users in
+     * @param period the period to rank the users over, either "Today" or "This Week"
+     * @param x      the maximum number of scores to return
+     * @return the best score of each of at most x users, highest score first
+     */
+    List<GameScore> getTopGameScores(Game.GameName game, String period, int x);
+
+    /**
+     * Returns the percentage of the other users that the user with the given username beats based
+     * on the given criterion, i.e. that have a lower value. If the user does not exist, return 0.
+     *
+     * @param username  the username of a user
+     * @param criterion the criterion on which to compare the users
+     * @return the percentage of the other users with a lower value, from 0 to 100. If no such user
+     * exists, return 0.
+     */
+    double getPercentile(String username, String criterion);
+
+    /**
+     * Returns the number of users whose value based on the given criterion falls in each of the
+     * given ranges. Range i holds the values from boundaries[i], inclusive, to boundaries[i + 1],
+     * exclusive, and the last range has no upper end.
+     *
+     * @param criterion  the criterion on which to count the users
+     * @param boundaries the lower end of each range, in increasing order
+     * @return the number of users in each range
+     */
+    int[] getHistogram(String criterion, int[] boundaries);
 }
@@ -21,6 +21,7 @@ public class MainActivity extends AppCompatActivity {
     setContentView(R.layout.activity_main);
     appManager = AppManager.getInstance();
     appManager.init(this.getApplicationContext());
+    appManager.warmUpDataLayer();
   }
 
   /** Called when the user taps the Login button */
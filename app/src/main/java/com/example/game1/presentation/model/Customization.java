@@ -19,6 +19,9 @@ public class Customization {
     private ColourScheme colourScheme;
     private MusicPath musicPath;
 
+    /* The user these choices belong to, or null if they only belong to a game */
+    User owner;
+
     /**
      * Constructs a new Customization object with default choices.
      */
@@ -43,7 +46,10 @@ public class Customization {
      * @param characterColour the new character colour of this Customization
      */
     public void setCharacterColour(CharacterColour characterColour) {
-        this.characterColour = characterColour;
+        if (characterColour != this.characterColour) {
+            this.characterColour = characterColour;
+            markOwnerDirty();
+        }
     }
 
     /**
@@ -61,7 +67,10 @@ public class Customization {
      * @param colourScheme the new colour scheme of this Customization
      */
     public void setColourScheme(ColourScheme colourScheme) {
-        this.colourScheme = colourScheme;
+        if (colourScheme != this.colourScheme) {
+            this.colourScheme = colourScheme;
+            markOwnerDirty();
+        }
     }
 
     /**
@@ -79,7 +88,29 @@ public class Customization {
      * @param musicPath the new music of this Customization
      */
     public void setMusicPath(MusicPath musicPath) {
-        this.musicPath = musicPath;
+        if (musicPath != this.musicPath) {
+            this.musicPath = musicPath;
+            markOwnerDirty();
+        }
     }
 
+    /**
+     * Returns whether the given Customization has the same choices as this Customization
+     *
+     * @param other a Customization object
+     * @return true if both Customization objects have the same choices, and false otherwise
+     */
+    boolean hasSameChoicesAs(Customization other) {
+        return other != null && characterColour == other.characterColour
+                && colourScheme == other.colourScheme && musicPath == other.musicPath;
+    }
+
+    /**
+     * Marks the user these choices belong to as having unsaved changes
+     */
+    private void markOwnerDirty() {
+        if (owner != null) {
+            owner.markDirty();
+        }
+    }
 }
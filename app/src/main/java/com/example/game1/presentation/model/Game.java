@@ -58,6 +58,15 @@ public class Game {
         }
     }
 
+    /**
+     * Returns the GameName of this Game
+     *
+     * @return the GameName of this Game
+     */
+    public GameName getName() {
+        return name;
+    }
+
     /**
      * Returns the level that this Game corresponds to
      *
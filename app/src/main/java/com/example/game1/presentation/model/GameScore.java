@@ -0,0 +1,40 @@
+package com.example.game1.presentation.model;
+
+/**
+ * The model object for a user's best score in a game during a period, as shown on a per-game
+ * leaderboard.
+ */
+public class GameScore {
+
+    private final String userName;
+    private final int score;
+
+    /**
+     * Constructs a GameScore
+     *
+     * @param userName the username of the user who scored it
+     * @param score    the score
+     */
+    public GameScore(String userName, int score) {
+        this.userName = userName;
+        this.score = score;
+    }
+
+    /**
+     * Returns the username of the user who scored this score
+     *
+     * @return the username of the user
+     */
+    public String getUserName() {
+        return userName;
+    }
+
+    /**
+     * Returns this score
+     *
+     * @return the score
+     */
+    public int getScore() {
+        return score;
+    }
+}
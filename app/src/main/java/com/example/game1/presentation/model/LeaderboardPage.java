@@ -0,0 +1,43 @@
+package com.example.game1.presentation.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The model object for one page of a leaderboard, along with the cursor that fetches the page
+ * after it. A cursor is an opaque string that is only meant to be passed back to the data layer.
+ */
+public class LeaderboardPage {
+
+    private final List<User> users;
+    private final String nextCursor;
+
+    /**
+     * Constructs a LeaderboardPage.
+     *
+     * @param users      the users on this page (sorted in non-increasing order)
+     * @param nextCursor the cursor of the next page, or null if this is the last page
+     */
+    public LeaderboardPage(List<User> users, String nextCursor) {
+        this.users = Collections.unmodifiableList(users);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Returns the users on this page
+     *
+     * @return an unmodifiable list of the users on this page (sorted in non-increasing order)
+     */
+    public List<User> getUsers() {
+        return users;
+    }
+
+    /**
+     * Returns the cursor that fetches the page after this one
+     *
+     * @return the cursor of the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
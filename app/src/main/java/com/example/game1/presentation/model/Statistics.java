@@ -9,6 +9,9 @@ public class Statistics {
     private int stars;
     private int taps;
 
+    /* The user these statistics belong to, or null if they belong to a game */
+    User owner;
+
     /**
      * Constructs a new Statistics object
      */
@@ -33,7 +36,10 @@ public class Statistics {
      * @param points the new number of points
      */
     public void setPoints(int points) {
-        this.points = points;
+        if (points != this.points) {
+            this.points = points;
+            markOwnerDirty();
+        }
     }
 
     /**
@@ -51,7 +57,10 @@ public class Statistics {
      * @param stars the new number of stars
      */
     public void setStars(int stars) {
-        this.stars = stars;
+        if (stars != this.stars) {
+            this.stars = stars;
+            markOwnerDirty();
+        }
     }
 
     /**
@@ -69,6 +78,18 @@ public class Statistics {
      * @param taps the new number of taps
      */
     public void setTaps(int taps) {
-        this.taps = taps;
+        if (taps != this.taps) {
+            this.taps = taps;
+            markOwnerDirty();
+        }
+    }
+
+    /**
+     * Tells the user these statistics belong to that they changed
+     */
+    private void markOwnerDirty() {
+        if (owner != null) {
+            owner.onStatisticsChanged();
+        }
     }
 }
@@ -1,10 +1,19 @@
 package com.example.game1.presentation.model;
 
+import java.util.Objects;
+
 /**
  * The model object for a user. This object is also used by the domain and data layer.
  */
 public class User {
 
+    /* Returned by getCachedTopScore and getCachedCurrentScore when no score is cached */
+    public static final int NO_CACHED_SCORE = Integer.MIN_VALUE;
+
+    /* A packed cached score whose version never matches statsVersion, as versions are not negative
+     * until statsVersion overflows */
+    private static final long NO_CACHE = -1L << 32;
+
     private String userName;
     private String password;
 
@@ -23,6 +32,18 @@ public class User {
     /* The last completed level in this user's current game */
     private int lastCompletedLevel;
 
+    /* Whether this user has changed since it was last saved or loaded */
+    private volatile boolean dirty = true;
+
+    /* Incremented whenever one of this user's statistics changes */
+    private volatile int statsVersion;
+
+    /* The scores of this user's top game and current game as computed by the data layer. Each one
+     * packs the statsVersion it was computed at into the high 32 bits and the score into the low 32
+     * bits, so that it can be read and written atomically without a lock. */
+    private volatile long cachedTopScore = NO_CACHE;
+    private volatile long cachedCurrentScore = NO_CACHE;
+
     /**
      * Constructs a new User with the given username and password.
      *
@@ -38,6 +59,12 @@ public class User {
         statsOfTopGame = new Statistics();
         topIndividualStats = new Statistics();
         lastCompletedLevel = 0;
+        // Changes to the customization choices and statistics mark this user dirty, and changes to
+        // the statistics also invalidate the cached scores
+        customization.owner = this;
+        statsOfCurrentGame.owner = this;
+        statsOfTopGame.owner = this;
+        topIndividualStats.owner = this;
     }
 
     /**
@@ -64,7 +91,10 @@ public class User {
      * @param password this user's new password
      */
     public void setPassword(String password) {
-        this.password = password;
+        if (!Objects.equals(password, this.password)) {
+            this.password = password;
+            markDirty();
+        }
     }
 
     /**
@@ -82,7 +112,12 @@ public class User {
      * @param customization a Customization object storing this user's new customization choices
      */
     public void setCustomization(Customization customization) {
+        if (!customization.hasSameChoicesAs(this.customization)) {
+            markDirty();
+        }
+        this.customization.owner = null;
         this.customization = customization;
+        customization.owner = this;
     }
 
     /**
@@ -128,6 +163,135 @@ public class User {
      * @param lastCompletedLevel the level this user just completed
      */
     public void setLastCompletedLevel(int lastCompletedLevel) {
-        this.lastCompletedLevel = lastCompletedLevel;
+        if (lastCompletedLevel != this.lastCompletedLevel) {
+            this.lastCompletedLevel = lastCompletedLevel;
+            markDirty();
+        }
+    }
+
+    /**
+     * Returns whether this user has changed since it was last saved or loaded. A new user is dirty
+     * until it is saved for the first time.
+     *
+     * @return true if this user has unsaved changes, and false otherwise
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Marks this user as having unsaved changes
+     */
+    public void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Marks this user as saved. This should only be called by the data layer.
+     */
+    public void markClean() {
+        dirty = false;
+    }
+
+    /**
+     * Returns a copy of this user with its own customization choices and statistics, so that
+     * later changes to either user do not affect the other. The copy is dirty if this user is.
+     *
+     * @return a copy of this user
+     */
+    public User copy() {
+        User copy = new User(userName, password);
+        copy.customization.setCharacterColour(customization.getCharacterColour());
+        copy.customization.setColourScheme(customization.getColourScheme());
+        copy.customization.setMusicPath(customization.getMusicPath());
+        copyStatistics(statsOfCurrentGame, copy.statsOfCurrentGame);
+        copyStatistics(statsOfTopGame, copy.statsOfTopGame);
+        copyStatistics(topIndividualStats, copy.topIndividualStats);
+        copy.lastCompletedLevel = lastCompletedLevel;
+        copy.dirty = dirty;
+        return copy;
+    }
+
+    /**
+     * Sets the given statistics to the values of the given other statistics.
+     */
+    private static void copyStatistics(Statistics from, Statistics to) {
+        to.setPoints(from.getPoints());
+        to.setStars(from.getStars());
+        to.setTaps(from.getTaps());
+    }
+
+    /**
+     * Records that one of this user's statistics changed, which invalidates the cached scores.
+     */
+    synchronized void onStatisticsChanged() {
+        statsVersion++;
+        markDirty();
+    }
+
+    /**
+     * Returns the version of this user's statistics, which changes whenever one of them changes.
+     * It should be read before computing a score to cache.
+     *
+     * @return the version of this user's statistics
+     */
+    public int getStatsVersion() {
+        return statsVersion;
+    }
+
+    /**
+     * Returns the cached score of this user's top game, if it is still up to date
+     *
+     * @return the cached top score, or NO_CACHED_SCORE if there is none
+     */
+    public int getCachedTopScore() {
+        return unpackScore(cachedTopScore);
+    }
+
+    /**
+     * Caches the score of this user's top game, unless the statistics changed since it was
+     * computed
+     *
+     * @param score        the score of this user's top game
+     * @param statsVersion the version of this user's statistics the score was computed from
+     */
+    public void cacheTopScore(int score, int statsVersion) {
+        if (statsVersion == this.statsVersion) {
+            cachedTopScore = packScore(score, statsVersion);
+        }
+    }
+
+    /**
+     * Returns the cached score of this user's current game, if it is still up to date
+     *
+     * @return the cached current score, or NO_CACHED_SCORE if there is none
+     */
+    public int getCachedCurrentScore() {
+        return unpackScore(cachedCurrentScore);
+    }
+
+    /**
+     * Caches the score of this user's current game, unless the statistics changed since it was
+     * computed
+     *
+     * @param score        the score of this user's current game
+     * @param statsVersion the version of this user's statistics the score was computed from
+     */
+    public void cacheCurrentScore(int score, int statsVersion) {
+        if (statsVersion == this.statsVersion) {
+            cachedCurrentScore = packScore(score, statsVersion);
+        }
+    }
+
+    private static long packScore(int score, int statsVersion) {
+        return ((long) statsVersion << 32) | (score & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the score in the given packed cached score if it was computed at the current
+     * statsVersion, and NO_CACHED_SCORE otherwise.
+     */
+    private int unpackScore(long cached) {
+        return (int) (cached >>> 32) == statsVersion ? (int) cached : NO_CACHED_SCORE;
     }
 }
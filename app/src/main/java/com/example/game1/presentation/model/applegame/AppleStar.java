@@ -39,6 +39,11 @@ public class AppleStar extends AnimatedGameItem {
         result.setStarCollected(true);
         result.addOldItem(this);
       }
+      // If this star is out of the screen, put it to the list that will be removed from gameItems
+      // later. A missed star costs no life.
+      if (this.getYCoordinate() >= appleMovementInfo.getScreenHeight()) {
+        result.addOldItem(this);
+      }
     }
     return result;
   }
@@ -32,4 +32,15 @@ public class LivesCounter extends GameItem {
     livesRemaining -= 1;
     setDescription("lives: " + livesRemaining);
   }
+
+  /**
+   * Sets this LivesCounter to the current state of the given LivesCounter.
+   *
+   * @param item the LivesCounter to copy the state of
+   */
+  @Override
+  public void copyFrom(GameItem item) {
+    super.copyFrom(item);
+    livesRemaining = ((LivesCounter) item).livesRemaining;
+  }
 }
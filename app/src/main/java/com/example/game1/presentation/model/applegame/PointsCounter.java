@@ -32,4 +32,15 @@ public class PointsCounter extends GameItem {
     numPoints += points;
     setDescription("apples: " + numPoints);
   }
+
+  /**
+   * Sets this PointsCounter to the current state of the given PointsCounter.
+   *
+   * @param item the PointsCounter to copy the state of
+   */
+  @Override
+  public void copyFrom(GameItem item) {
+    super.copyFrom(item);
+    numPoints = ((PointsCounter) item).numPoints;
+  }
 }
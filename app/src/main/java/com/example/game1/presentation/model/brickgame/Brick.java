@@ -53,4 +53,15 @@ public class Brick extends GameItem {
   public boolean isDamaged() {
     return damageLevel <= APPEARANCE_CHANGE_CUTOFF;
   }
+
+  /**
+   * Sets this Brick to the current state of the given Brick.
+   *
+   * @param item the Brick to copy the state of
+   */
+  @Override
+  public void copyFrom(GameItem item) {
+    super.copyFrom(item);
+    damageLevel = ((Brick) item).damageLevel;
+  }
 }
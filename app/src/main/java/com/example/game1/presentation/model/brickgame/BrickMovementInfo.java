@@ -163,7 +163,7 @@ public class BrickMovementInfo extends MovementInfo {
         if (broken) {
           oldItems.add(brick);
           numBroken++;
-          if (Math.random() > STAR_PROBABILITY) {
+          if (getRandom().nextDouble() > STAR_PROBABILITY) {
             double[] coordinates = {brick.getXCoordinate(), brick.getYCoordinate()};
             starsToAdd.add(coordinates);
           }
@@ -147,6 +147,37 @@ public abstract class AnimatedGameItem extends GameItem {
     return yAcceleration;
   }
 
+  /** Returns the x coordinate this item will be at based on its velocity and acceleration. */
+  @Override
+  public double getXCoordinateAfter(double numOfSeconds) {
+    return getXCoordinate()
+        + (0.5 * getXAcceleration() * numOfSeconds * numOfSeconds
+            + getXVelocity() * numOfSeconds);
+  }
+
+  /** Returns the y coordinate this item will be at based on its velocity and acceleration. */
+  @Override
+  public double getYCoordinateAfter(double numOfSeconds) {
+    return getYCoordinate()
+        + (0.5 * getYAcceleration() * numOfSeconds * numOfSeconds
+            + getYVelocity() * numOfSeconds);
+  }
+
+  /**
+   * Sets this AnimatedGameItem to the current state of the given item, including its movement.
+   *
+   * @param item the AnimatedGameItem to copy the state of
+   */
+  @Override
+  public void copyFrom(GameItem item) {
+    super.copyFrom(item);
+    AnimatedGameItem animatedItem = (AnimatedGameItem) item;
+    xVelocity = animatedItem.xVelocity;
+    yVelocity = animatedItem.yVelocity;
+    xAcceleration = animatedItem.xAcceleration;
+    yAcceleration = animatedItem.yAcceleration;
+  }
+
   /**
    * Update the Coordinates and Velocity at x and y direction based on specified time period
    *
@@ -1,7 +1,7 @@
 package com.example.game1.presentation.model.common;
 
 /** A game item which can be in a GameManager. */
-public abstract class GameItem {
+public abstract class GameItem implements Cloneable {
 
   /** Description of this item. */
   private String description;
@@ -151,6 +151,28 @@ public abstract class GameItem {
     this.yCoordinate = yCoordinate;
   }
 
+  /**
+   * Returns the x coordinate this GameItem will be at the specified number of seconds from now,
+   * if nothing changes its movement. A GameItem that does not move stays where it is.
+   *
+   * @param numOfSeconds the number of seconds from now
+   * @return the x coordinate after the specified number of seconds
+   */
+  public double getXCoordinateAfter(double numOfSeconds) {
+    return this.xCoordinate;
+  }
+
+  /**
+   * Returns the y coordinate this GameItem will be at the specified number of seconds from now,
+   * if nothing changes its movement. A GameItem that does not move stays where it is.
+   *
+   * @param numOfSeconds the number of seconds from now
+   * @return the y coordinate after the specified number of seconds
+   */
+  public double getYCoordinateAfter(double numOfSeconds) {
+    return this.yCoordinate;
+  }
+
   /**
    * Get the width of this GameItem
    *
@@ -169,6 +191,36 @@ public abstract class GameItem {
     return this.height;
   }
 
+  /**
+   * Returns a copy of this GameItem in its current state, e.g. to draw it from while the original
+   * keeps moving. A GameItem only holds its position, movement and appearance, so the copy shares
+   * nothing that the original changes later.
+   *
+   * @return a copy of this GameItem
+   */
+  public GameItem copy() {
+    try {
+      return (GameItem) clone();
+    } catch (CloneNotSupportedException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Sets this GameItem to the current state of the given item, which must be of the same class, so
+   * that a copy made by copy can be brought up to date instead of made again. A subclass with state
+   * of its own overrides this to copy that state as well.
+   *
+   * @param item the GameItem to copy the state of
+   */
+  public void copyFrom(GameItem item) {
+    description = item.description;
+    width = item.width;
+    height = item.height;
+    xCoordinate = item.xCoordinate;
+    yCoordinate = item.yCoordinate;
+  }
+
   /**
    * Check if this item is overlap with another game item
    *
@@ -1,5 +1,7 @@
 package com.example.game1.presentation.model.common;
 
+import java.util.Random;
+
 /** A class for storing information needed by GameItems to perform update. */
 public class MovementInfo {
   /**
@@ -15,6 +17,15 @@ public class MovementInfo {
   /** the width of the screen */
   private int screenWidth;
 
+  /** The random numbers used when a GameManager does not set its own */
+  private static final Random SHARED_RANDOM = new Random();
+
+  /**
+   * The random numbers that GameItems use to perform update. It is set to the GameManager's
+   * seeded Random, so that a game can be replayed exactly, and is shared by default.
+   */
+  private Random random = SHARED_RANDOM;
+
   /**
    * Construct the MovementInfo to store information needed for a game item to perform update()
    *
@@ -54,4 +65,22 @@ public class MovementInfo {
   public double getNumSeconds() {
     return numSeconds;
   }
+
+  /**
+   * Return the random numbers to use for update
+   *
+   * @return the random numbers to use for update
+   */
+  public Random getRandom() {
+    return random;
+  }
+
+  /**
+   * Set the random numbers to use for update
+   *
+   * @param random the random numbers to use for update
+   */
+  public void setRandom(Random random) {
+    this.random = random;
+  }
 }
@@ -41,7 +41,7 @@ public class Obstacle extends AnimatedGameItem {
         jumpingResult.setObstacleJumped(true);
 
         // randomly add new star
-        if (Math.random() > 0.7) {
+        if (jumpingMovementInfo.getRandom().nextDouble() > 0.7) {
           jumpingResult.setNeedNewStar(true);
         }
       }
@@ -36,4 +36,15 @@ public class SpeedDisplayer extends GameItem {
     }
     return (new Result());
   }
+
+  /**
+   * Sets this SpeedDisplayer to the current state of the given SpeedDisplayer.
+   *
+   * @param item the SpeedDisplayer to copy the state of
+   */
+  @Override
+  public void copyFrom(GameItem item) {
+    super.copyFrom(item);
+    tappingSpeed = ((SpeedDisplayer) item).tappingSpeed;
+  }
 }
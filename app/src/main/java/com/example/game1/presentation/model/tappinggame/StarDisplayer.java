@@ -49,4 +49,15 @@ public class StarDisplayer extends GameItem {
     }
     return new Result();
   }
+
+  /**
+   * Sets this StarDisplayer to the current state of the given StarDisplayer.
+   *
+   * @param item the StarDisplayer to copy the state of
+   */
+  @Override
+  public void copyFrom(GameItem item) {
+    super.copyFrom(item);
+    numStar = ((StarDisplayer) item).numStar;
+  }
 }
@@ -49,4 +49,14 @@ public class TapCounter extends GameItem {
     return new Result();
   }
 
+  /**
+   * Sets this TapCounter to the current state of the given TapCounter.
+   *
+   * @param item the TapCounter to copy the state of
+   */
+  @Override
+  public void copyFrom(GameItem item) {
+    super.copyFrom(item);
+    numTaps = ((TapCounter) item).numTaps;
+  }
 }
@@ -36,4 +36,15 @@ public class TimerDisplayer extends GameItem {
     }
     return new Result();
   }
+
+  /**
+   * Sets this TimerDisplayer to the current state of the given TimerDisplayer.
+   *
+   * @param item the TimerDisplayer to copy the state of
+   */
+  @Override
+  public void copyFrom(GameItem item) {
+    super.copyFrom(item);
+    secondsLeft = ((TimerDisplayer) item).secondsLeft;
+  }
 }
@@ -7,6 +7,8 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.example.game1.domain.UserServiceIntf;
 import com.example.game1.presentation.model.Customization;
 import com.example.game1.presentation.model.Game;
+import com.example.game1.presentation.model.GameScore;
+import com.example.game1.presentation.model.LeaderboardPage;
 import com.example.game1.presentation.model.Statistics;
 import com.example.game1.presentation.model.User;
 import com.example.game1.presentation.view.user.StatisticsActivity;
@@ -60,6 +62,18 @@ public class UserManager {
         }
     }
 
+    /**
+     * Returns whether a User with the specified username and password could be saved, e.g.
+     * whether they fit in the format the users are persisted in.
+     *
+     * @param username the user's username
+     * @param password the user's password
+     * @return true if such a user could be saved, and false otherwise
+     */
+    public boolean canSaveUser(String username, String password) {
+        return userService.canSave(new User(username, password));
+    }
+
     /**
      * Logs in a User with the specified username and password. If login is successful, return true.
      * Otherwise, return false.
@@ -145,13 +159,15 @@ public class UserManager {
                 currentUser.getStatsOfCurrentGame().getTaps() + game.getStatistics().getTaps(),
                 game.getLevel());
         updateUserInfo();
+        userService.recordGame(currentUser, game);
     }
 
     /**
      * Restarts the current user's game
      */
     public void restartCurrentUsersGame() {
-        // Set all the current statistics and the current game level to 0
+        // Set all the current statistics and the current game level to 0. Only the signed-in
+        // user is reset, so it is a single update rather than a batch.
         updateGameInfo(0, 0, 0, 0);
         updateUserInfo();
     }
@@ -216,4 +232,85 @@ public class UserManager {
     public List<User> getTopUsers(int x, String criterion) {
         return userService.getTopUsers(x, criterion);
     }
+
+    /**
+     * Returns the rank of the user with the given username based on the given criterion. If the
+     * user does not exist, this method returns 0. It may wait for queued writes, so it should not
+     * be called on the main thread.
+     *
+     * @param username  the user's username
+     * @param criterion the criterion on which to rank the users
+     * @return the rank of the user, starting from 1, or 0 if the user does not exist
+     */
+    public int getRank(String username, String criterion) {
+        return userService.getRank(username, criterion);
+    }
+
+    /**
+     * Returns the user with the given username together with up to radius users ranked directly
+     * above and below them (sorted in non-increasing order) based on the given criterion. It may
+     * wait for queued writes, so it should not be called on the main thread.
+     *
+     * @param username  the user's username
+     * @param criterion the criterion on which to rank the users
+     * @param radius    the maximum number of users to return on either side of the user
+     * @return a list of users around the given user, or an empty list if the user does not exist
+     */
+    public List<User> getNeighborhood(String username, String criterion, int radius) {
+        return userService.getNeighborhood(username, criterion, radius);
+    }
+
+    /**
+     * Returns the page of up to pageSize users (sorted in non-increasing order) based on the given
+     * criterion that follows the given cursor. It may wait for queued writes, so it should not be
+     * called on the main thread.
+     *
+     * @param criterion the criterion on which to rank the users
+     * @param cursor    the cursor returned with the previous page, or null for the first page
+     * @param pageSize  the maximum number of users on the page
+     * @return the page of users, with the cursor of the page after it
+     * @throws IllegalArgumentException if the cursor is malformed or pageSize is not positive
+     */
+    public LeaderboardPage getLeaderboardPage(String criterion, String cursor, int pageSize) {
+        return userService.getLeaderboardPage(criterion, cursor, pageSize);
+    }
+
+    /**
+     * Returns the best scores of the top x users (sorted in non-increasing order) in the given
+     * game during the current day or week.
+     *
+     * @param game   the type of game to rank the users in
+     * @param period the period to rank the users over, either "Today" or "This Week"
+     * @param x      the maximum number of scores to return
+     * @return the best score of each of at most x users, highest score first
+     */
+    public List<GameScore> getTopGameScores(Game.GameName game, String period, int x) {
+        return userService.getTopGameScores(game, period, x);
+    }
+
+    /**
+     * Returns the percentage of the other users that the user with the given username beats based
+     * on the given criterion. If the user does not exist, this method returns 0. It may wait for
+     * queued writes, so it should not be called on the main thread.
+     *
+     * @param username  the user's username
+     * @param criterion the criterion on which to compare the users
+     * @return the percentage of the other users with a lower value, from 0 to 100, or 0 if the
+     * user does not exist
+     */
+    public double getPercentile(String username, String criterion) {
+        return userService.getPercentile(username, criterion);
+    }
+
+    /**
+     * Returns the number of users whose value based on the given criterion falls in each of the
+     * given ranges. It may wait for queued writes, so it should not be called on the main thread.
+     *
+     * @param criterion  the criterion on which to count the users
+     * @param boundaries the lower end of each range, in increasing order
+     * @return the number of users in each range
+     */
+    public int[] getHistogram(String criterion, int[] boundaries) {
+        return userService.getHistogram(criterion, boundaries);
+    }
 }
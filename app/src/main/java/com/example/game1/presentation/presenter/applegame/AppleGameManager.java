@@ -13,11 +13,11 @@ import com.example.game1.presentation.model.applegame.LivesCounter;
 import com.example.game1.presentation.model.applegame.PointsCounter;
 import com.example.game1.presentation.model.common.GameItem;
 import com.example.game1.presentation.model.common.Result;
+import com.example.game1.presentation.presenter.common.GameInput;
 import com.example.game1.presentation.presenter.common.GameManager;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 /** An AppleGameManager */
 public class AppleGameManager extends GameManager {
@@ -101,6 +101,20 @@ public class AppleGameManager extends GameManager {
     basket.move(xCoordinate);
   }
 
+  /**
+   * Applies an input of the player: a touch moves the basket to the x coordinate touched.
+   *
+   * @param input the input
+   */
+  @Override
+  protected void applyInput(GameInput input) {
+    if (input.getType() == GameInput.Type.TOUCH) {
+      moveBasket((int) input.getValue());
+    } else {
+      super.applyInput(input);
+    }
+  }
+
   /**
    * Updates the game items in this apple game by executing method update for each game item. Then
    * based on the result update the statistics information of this game.
@@ -151,12 +165,10 @@ public class AppleGameManager extends GameManager {
   /** Spawns new game items. */
   private void spawnNew() {
     // get a random x-coordinate to spawn the new Apple/AppleStar
-    Random randCoordinate = new Random();
-    int spawnCoordinate = randCoordinate.nextInt(getGridWidth() - 80);
+    int spawnCoordinate = getRandom().nextInt(getGridWidth() - 80);
 
     // decide whether to spawn an Apple or a Star or nothing
-    Random randItem = new Random();
-    int randint = randItem.nextInt(200);
+    int randint = getRandom().nextInt(200);
     if (randint < 2) {
       spawnStar(spawnCoordinate);
     } else if (randint < 9) {
@@ -268,4 +280,18 @@ public class AppleGameManager extends GameManager {
       catchStar();
     }
   }
+
+  /**
+   * Mixes the points, lives and caught stars of this game into the given hash of its state.
+   *
+   * @param hash the hash of the state so far
+   * @return the hash with the numbers of this game mixed in
+   */
+  @Override
+  protected long hashState(long hash) {
+    hash = hash * 31 + points.getNumPoints();
+    hash = hash * 31 + livesCounter.getLivesRemaining();
+    hash = hash * 31 + numCaughtStars;
+    return hash;
+  }
 }
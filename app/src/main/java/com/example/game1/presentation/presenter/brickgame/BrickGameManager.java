@@ -13,6 +13,7 @@ import com.example.game1.presentation.model.brickgame.BrickMovementInfo;
 import com.example.game1.presentation.model.brickgame.Paddle;
 import com.example.game1.presentation.model.brickgame.BrickStar;
 import com.example.game1.presentation.model.common.GameItem;
+import com.example.game1.presentation.presenter.common.GameInput;
 import com.example.game1.presentation.presenter.common.GameManager;
 
 import java.util.List;
@@ -184,6 +185,7 @@ public class BrickGameManager extends GameManager {
             getScreenHeight(),
             getScreenWidth(),
             getNumSeconds());
+    brickMovementInfo.setRandom(getRandom());
     brickMovementInfo.animate();
 
     numBroken += brickMovementInfo.getNumBroken();
@@ -225,6 +227,20 @@ public class BrickGameManager extends GameManager {
     paddle.setXCoordinate(xCoordinate - paddle.getWidth() / 2);
   }
 
+  /**
+   * Applies an input of the player: a touch moves the paddle's centre to the x coordinate touched.
+   *
+   * @param input the input
+   */
+  @Override
+  protected void applyInput(GameInput input) {
+    if (input.getType() == GameInput.Type.TOUCH) {
+      onTouchEvent(input.getValue());
+    } else {
+      super.applyInput(input);
+    }
+  }
+
   /** Ends this minigame. */
   public void gameOver() {
     setRunning(false);
@@ -342,4 +358,16 @@ public class BrickGameManager extends GameManager {
   public int getBallHeight() {
     return BALL_HEIGHT;
   }
+
+  /**
+   * Mixes the number of broken bricks of this game into the given hash of its state.
+   *
+   * @param hash the hash of the state so far
+   * @return the hash with the numbers of this game mixed in
+   */
+  @Override
+  protected long hashState(long hash) {
+    hash = hash * 31 + numBroken;
+    return hash;
+  }
 }
@@ -0,0 +1,64 @@
+package com.example.game1.presentation.presenter.common;
+
+/**
+ * An input of the player to a game, e.g. a touch of the screen. Inputs are posted to a GameManager
+ * from any thread and applied at the start of its next tick, so that a replay can apply every
+ * input at exactly the tick it was applied at when the game was played.
+ */
+public class GameInput {
+
+    /**
+     * The kinds of input.
+     */
+    public enum Type {
+        /* A click anywhere on the game, counted as a tap */
+        TAP,
+        /* A touch of the screen, whose value is the x coordinate touched */
+        TOUCH,
+        /* The number of seconds left in the tapping game, as its timer ticks */
+        SECONDS_LEFT,
+        /* The tapping speed in the tapping game, as its timer ticks */
+        TAPPING_SPEED
+    }
+
+    private final Type type;
+    private final double value;
+
+    /**
+     * Constructs a GameInput with no value.
+     *
+     * @param type the kind of input
+     */
+    public GameInput(Type type) {
+        this(type, 0);
+    }
+
+    /**
+     * Constructs a GameInput.
+     *
+     * @param type  the kind of input
+     * @param value the value of the input, e.g. the x coordinate of a touch
+     */
+    public GameInput(Type type, double value) {
+        this.type = type;
+        this.value = value;
+    }
+
+    /**
+     * Returns the kind of this input.
+     *
+     * @return the kind of input
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the value of this input.
+     *
+     * @return the value, or 0 if the kind of input has none
+     */
+    public double getValue() {
+        return value;
+    }
+}
@@ -4,12 +4,18 @@ import android.media.MediaPlayer;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.game1.BuildConfig;
 import com.example.game1.presentation.model.Game;
+import com.example.game1.presentation.model.common.AnimatedGameItem;
 import com.example.game1.presentation.model.common.GameItem;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Observable;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * A game manager. It acts as a mediator between the view and the model of a game. It is observed by
@@ -44,6 +50,19 @@ public abstract class GameManager extends Observable {
     private double numSeconds;
     /* If the game is running */
     private boolean isRunning;
+    /* The random numbers of the game. Every random choice of the game is made with it, so that the
+     * game can be replayed from its seed. */
+    private Random random;
+    /* The inputs posted since the last tick, applied at the start of the next one */
+    private final Queue<GameInput> pendingInputs = new ConcurrentLinkedQueue<>();
+    /* The number of ticks updated so far */
+    private long tickCount;
+    /* The seed of the random numbers of this game */
+    private long seed;
+    /* Whether this game is recorded. Only debug builds record their games by default. */
+    private boolean recording = BuildConfig.DEBUG;
+    /* The recording of this game, for it to be replayed, or null if it is not recorded */
+    private GameSession session;
 
     /** Constructs a GameManager with the specified height, width, game, and activity.
      *
@@ -57,6 +76,7 @@ public abstract class GameManager extends Observable {
         this.width = width;
         this.game = game;
         this.activity = activity;
+        setSeed(System.nanoTime());
     }
 
     /** Returns gameItems.
@@ -87,6 +107,137 @@ public abstract class GameManager extends Observable {
     /** Updates this GameManager by moving all GameItems in it. */
     public abstract boolean update();
 
+    /**
+     * Runs a tick of this game: applies the inputs posted since the last tick, in the order they
+     * were posted in and recording each of them, then updates this GameManager.
+     *
+     * @return whether the game continues
+     */
+    public boolean tick() {
+        GameInput input;
+        while ((input = pendingInputs.poll()) != null) {
+            if (session != null) {
+                session.record(tickCount, input);
+            }
+            applyInput(input);
+        }
+        boolean continueGame = update();
+        tickCount++;
+        return continueGame;
+    }
+
+    /**
+     * Posts an input of the player, to be applied at the start of the next tick. It may be called
+     * from any thread.
+     *
+     * @param input the input
+     */
+    public void postInput(GameInput input) {
+        pendingInputs.add(input);
+    }
+
+    /**
+     * Applies an input of the player to this game. A tap is counted here; subclasses apply the
+     * other kinds of input their game takes.
+     *
+     * @param input the input
+     */
+    protected void applyInput(GameInput input) {
+        if (input.getType() == GameInput.Type.TAP) {
+            incrementNumTaps();
+        }
+    }
+
+    /**
+     * Returns the number of ticks run so far in this game.
+     *
+     * @return the number of ticks
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Returns the random numbers of this game.
+     *
+     * @return the Random of this game
+     */
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Seeds the random numbers of this game and starts a new recording of it. A game replays the
+     * same way from the same seed and inputs, so it must be called before the first tick.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        random = new Random(seed);
+        session = recording ? new GameSession(seed) : null;
+        tickCount = 0;
+    }
+
+    /**
+     * Sets whether this game is recorded. It must be called before the first tick.
+     *
+     * @param recording whether to record this game
+     */
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+        session = recording ? new GameSession(seed) : null;
+    }
+
+    /**
+     * Returns the recording of this game so far, to be saved once the game is over.
+     *
+     * @return the GameSession of this game, or null if it is not recorded
+     */
+    public GameSession getSession() {
+        if (session != null) {
+            session.finish(this);
+        }
+        return session;
+    }
+
+    /**
+     * Returns a hash of the state of this game: its numbers of taps and stars, the score, lives and
+     * other numbers its subclass adds by hashState, and the position, movement and appearance of
+     * each of its items. A replay of the game is exact if it ends with the same hash.
+     *
+     * @return the hash of the state of this game
+     */
+    public long getStateHash() {
+        long hash = numTaps * 31L + numStars;
+        hash = hashState(hash);
+        for (GameItem item : gameItems) {
+            hash = hash * 31 + item.getClass().getName().hashCode();
+            hash = hash * 31 + Double.doubleToLongBits(item.getXCoordinate());
+            hash = hash * 31 + Double.doubleToLongBits(item.getYCoordinate());
+            hash = hash * 31 + Objects.hashCode(item.getDescription());
+            if (item instanceof AnimatedGameItem) {
+                AnimatedGameItem animatedItem = (AnimatedGameItem) item;
+                hash = hash * 31 + Double.doubleToLongBits(animatedItem.getXVelocity());
+                hash = hash * 31 + Double.doubleToLongBits(animatedItem.getYVelocity());
+                hash = hash * 31 + Double.doubleToLongBits(animatedItem.getXAcceleration());
+                hash = hash * 31 + Double.doubleToLongBits(animatedItem.getYAcceleration());
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Mixes the numbers of this game that its items do not hold, such as its score and lives,
+     * into the given hash of its state. A subclass with numbers of its own overrides this.
+     *
+     * @param hash the hash of the state so far
+     * @return the hash with the numbers of this game mixed in
+     */
+    protected long hashState(long hash) {
+        return hash;
+    }
+
     /** Removes the specified item from gameItems.
      *
      * @param item the GameItem object to be removed from gameItmes
@@ -197,15 +348,19 @@ public abstract class GameManager extends Observable {
         this.musicPlayer = musicPlayer;
     }
 
-    /** Starts playing the music for this game. */
+    /** Starts playing the music for this game, if it has a music player. */
     public void startMusic() {
-        musicPlayer.start();
+        if (musicPlayer != null) {
+            musicPlayer.start();
+        }
     }
 
-    /** Stops playing the music for this game. */
+    /** Stops playing the music for this game, if it has a music player. */
     private void stopMusic() {
-        musicPlayer.stop();
-        musicPlayer.release();
+        if (musicPlayer != null) {
+            musicPlayer.stop();
+            musicPlayer.release();
+        }
     }
 
     /** Ends this game */
@@ -0,0 +1,312 @@
+package com.example.game1.presentation.presenter.common;
+
+import com.example.game1.presentation.model.Game;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A recording of a played game: everything needed to replay it exactly. A game is deterministic
+ * given the seed of its random numbers, the size of its screen and grid, and the inputs applied at
+ * each tick, so that is all a session holds, along with the number of ticks played and a hash of
+ * the final state to check a replay against.
+ *
+ * <p>A session file is compact: after a fixed header, each input takes the number of ticks since
+ * the previous input as a variable-length integer, a byte for its kind and, for the kinds that
+ * have one, its value.
+ */
+public class GameSession {
+
+    /* The header of the file: a magic number followed by the format version */
+    private static final int MAGIC = 0x47535231;
+    private static final int VERSION = 1;
+
+    /* The most inputs a session records. A game with more cannot be replayed from its session. */
+    static final int MAX_ENTRIES = 100000;
+
+    /**
+     * An input and the tick it was applied at.
+     */
+    public static class Entry {
+
+        private final long tick;
+        private final GameInput input;
+
+        /**
+         * Constructs an Entry.
+         *
+         * @param tick  the tick the input was applied at
+         * @param input the input
+         */
+        Entry(long tick, GameInput input) {
+            this.tick = tick;
+            this.input = input;
+        }
+
+        /**
+         * Returns the tick the input was applied at.
+         *
+         * @return the tick
+         */
+        public long getTick() {
+            return tick;
+        }
+
+        /**
+         * Returns the input.
+         *
+         * @return the input
+         */
+        public GameInput getInput() {
+            return input;
+        }
+    }
+
+    private final long seed;
+    private final List<Entry> entries = new ArrayList<>();
+    private Game.GameName game;
+    private int screenWidth;
+    private int screenHeight;
+    private int gridWidth;
+    private int gridHeight;
+    private long ticks;
+    private long finalStateHash;
+    /* Whether inputs were dropped because the session was full */
+    private boolean truncated;
+
+    /**
+     * Constructs an empty GameSession.
+     *
+     * @param seed the seed of the game's random numbers
+     */
+    public GameSession(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Records that the given input was applied at the given tick. Inputs must be recorded in the
+     * order they were applied in. Once MAX_ENTRIES inputs are recorded, the rest are dropped and
+     * the session is truncated.
+     *
+     * @param tick  the tick
+     * @param input the input
+     */
+    void record(long tick, GameInput input) {
+        if (entries.size() == MAX_ENTRIES) {
+            truncated = true;
+            return;
+        }
+        entries.add(new Entry(tick, input));
+    }
+
+    /**
+     * Records the game played, its screen, and how far it got, from its GameManager.
+     *
+     * @param gameManager the GameManager of the game
+     */
+    void finish(GameManager gameManager) {
+        game = gameManager.getGame().getName();
+        screenWidth = gameManager.getScreenWidth();
+        screenHeight = gameManager.getScreenHeight();
+        gridWidth = gameManager.getGridWidth();
+        gridHeight = gameManager.getGridHeight();
+        ticks = gameManager.getTickCount();
+        finalStateHash = gameManager.getStateHash();
+    }
+
+    /**
+     * Returns the game played.
+     *
+     * @return the GameName of the game
+     */
+    public Game.GameName getGame() {
+        return game;
+    }
+
+    /**
+     * Returns the seed of the game's random numbers.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the width of the screen the game was played on.
+     *
+     * @return the screen width
+     */
+    public int getScreenWidth() {
+        return screenWidth;
+    }
+
+    /**
+     * Returns the height of the screen the game was played on.
+     *
+     * @return the screen height
+     */
+    public int getScreenHeight() {
+        return screenHeight;
+    }
+
+    /**
+     * Returns the width of the grid the game laid its items out on.
+     *
+     * @return the grid width
+     */
+    public int getGridWidth() {
+        return gridWidth;
+    }
+
+    /**
+     * Returns the height of the grid the game laid its items out on.
+     *
+     * @return the grid height
+     */
+    public int getGridHeight() {
+        return gridHeight;
+    }
+
+    /**
+     * Returns the number of ticks played.
+     *
+     * @return the number of ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Returns the hash of the game's state after the last tick.
+     *
+     * @return the final state hash
+     */
+    public long getFinalStateHash() {
+        return finalStateHash;
+    }
+
+    /**
+     * Returns whether inputs were dropped because the session was full, in which case the session
+     * cannot be replayed.
+     *
+     * @return true if the session is truncated, and false otherwise
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Returns the inputs applied, in the order they were applied in.
+     *
+     * @return the recorded inputs and their ticks
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Writes this session to the given file.
+     *
+     * @param file the file to write to
+     * @throws IOException if the file could not be written
+     */
+    public void writeTo(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(game.ordinal());
+            out.writeLong(seed);
+            out.writeInt(screenWidth);
+            out.writeInt(screenHeight);
+            out.writeInt(gridWidth);
+            out.writeInt(gridHeight);
+            writeVarLong(out, ticks);
+            out.writeLong(finalStateHash);
+            writeVarLong(out, entries.size());
+            long previousTick = 0;
+            for (Entry entry : entries) {
+                writeVarLong(out, entry.getTick() - previousTick);
+                previousTick = entry.getTick();
+                GameInput.Type type = entry.getInput().getType();
+                out.writeByte(type.ordinal());
+                if (type != GameInput.Type.TAP) {
+                    out.writeDouble(entry.getInput().getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a session from the given file.
+     *
+     * @param file the file to read from
+     * @return the GameSession in the file
+     * @throws IOException if the file could not be read or is not a session file
+     */
+    public static GameSession readFrom(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("Not a game session file: " + file);
+            }
+            try {
+                Game.GameName game = Game.GameName.values()[in.readByte()];
+                GameSession session = new GameSession(in.readLong());
+                session.game = game;
+                session.screenWidth = in.readInt();
+                session.screenHeight = in.readInt();
+                session.gridWidth = in.readInt();
+                session.gridHeight = in.readInt();
+                session.ticks = readVarLong(in);
+                session.finalStateHash = in.readLong();
+                long count = readVarLong(in);
+                long tick = 0;
+                for (long i = 0; i < count; i++) {
+                    tick += readVarLong(in);
+                    GameInput.Type type = GameInput.Type.values()[in.readByte()];
+                    double value = type == GameInput.Type.TAP ? 0 : in.readDouble();
+                    session.record(tick, new GameInput(type, value));
+                }
+                return session;
+            } catch (ArrayIndexOutOfBoundsException e) {
+                throw new IOException("Corrupt game session file: " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Writes the given non-negative number in as few bytes as it needs, 7 bits per byte.
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Reads a number written by writeVarLong.
+     */
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed number in game session file");
+    }
+}
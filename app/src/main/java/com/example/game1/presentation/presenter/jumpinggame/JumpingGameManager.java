@@ -10,6 +10,7 @@ import com.example.game1.presentation.model.jumpinggame.JumpingResult;
 import com.example.game1.presentation.model.jumpinggame.JumpingStar;
 import com.example.game1.presentation.model.jumpinggame.Obstacle;
 import com.example.game1.presentation.model.jumpinggame.Terrain;
+import com.example.game1.presentation.presenter.common.GameInput;
 import com.example.game1.presentation.presenter.common.GameManager;
 import com.example.game1.presentation.model.common.Result;
 import java.util.ArrayList;
@@ -124,6 +125,7 @@ public class JumpingGameManager extends GameManager {
     JumpingMovementInfo jumpingMovementInfo =
         new JumpingMovementInfo(
             getScreenHeight(), getScreenWidth(), this.jumper, this.terrain, getNumSeconds());
+    jumpingMovementInfo.setRandom(getRandom());
     // Iterate through the gameItems and execute update for each of the game item
     for (GameItem item : getGameItems()) {
       Result result = item.update(jumpingMovementInfo);
@@ -157,6 +159,20 @@ public class JumpingGameManager extends GameManager {
     }
   }
 
+  /**
+   * Applies an input of the player: a touch makes the jumper jump.
+   *
+   * @param input the input
+   */
+  @Override
+  protected void applyInput(GameInput input) {
+    if (input.getType() == GameInput.Type.TOUCH) {
+      onTouchEvent();
+    } else {
+      super.applyInput(input);
+    }
+  }
+
   /** Ends this minigame. */
   public void gameOver() {
     setRunning(false);
@@ -299,4 +315,19 @@ public class JumpingGameManager extends GameManager {
     this.starWidth = starWidth;
     this.starHeight = starHeight;
   }
+
+  /**
+   * Mixes the numbers of jumps and stars of this game and the speed of its camera into the given
+   * hash of its state.
+   *
+   * @param hash the hash of the state so far
+   * @return the hash with the numbers of this game mixed in
+   */
+  @Override
+  protected long hashState(long hash) {
+    hash = hash * 31 + numJumped;
+    hash = hash * 31 + numStars;
+    hash = hash * 31 + Double.doubleToLongBits(cameraVelocityX);
+    return hash;
+  }
 }
@@ -11,6 +11,7 @@ import com.example.game1.presentation.model.tappinggame.TapCounter;
 import com.example.game1.presentation.model.tappinggame.TappingCircle;
 import com.example.game1.presentation.model.tappinggame.TappingMovementInfo;
 import com.example.game1.presentation.model.tappinggame.TimerDisplayer;
+import com.example.game1.presentation.presenter.common.GameInput;
 import com.example.game1.presentation.presenter.common.GameManager;
 import java.util.List;
 
@@ -143,6 +144,23 @@ public class TappingGameManager extends GameManager {
     this.tappingSpeed = tappingSpeed;
   }
 
+  /**
+   * Applies an input of the player, or of the timer: the seconds left and the tapping speed as
+   * the timer ticks.
+   *
+   * @param input the input
+   */
+  @Override
+  protected void applyInput(GameInput input) {
+    if (input.getType() == GameInput.Type.SECONDS_LEFT) {
+      setSecondsLeft((int) input.getValue());
+    } else if (input.getType() == GameInput.Type.TAPPING_SPEED) {
+      setTappingSpeed((int) input.getValue());
+    } else {
+      super.applyInput(input);
+    }
+  }
+
   /**
    * Set item size for game items
    *
@@ -164,4 +182,17 @@ public class TappingGameManager extends GameManager {
     this.gridWidth = gridWidth;
     this.gridHeight = gridHeight;
   }
+
+  /**
+   * Mixes the seconds left and tapping speed of this game into the given hash of its state.
+   *
+   * @param hash the hash of the state so far
+   * @return the hash with the numbers of this game mixed in
+   */
+  @Override
+  protected long hashState(long hash) {
+    hash = hash * 31 + secondsLeft;
+    hash = hash * 31 + tappingSpeed;
+    return hash;
+  }
 }
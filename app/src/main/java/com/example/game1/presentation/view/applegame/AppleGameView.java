@@ -21,6 +21,7 @@ import com.example.game1.presentation.model.applegame.LivesCounter;
 import com.example.game1.presentation.model.applegame.PointsCounter;
 import com.example.game1.presentation.model.common.GameItem;
 import com.example.game1.presentation.presenter.applegame.AppleGameManager;
+import com.example.game1.presentation.presenter.common.GameInput;
 import com.example.game1.presentation.view.common.GameThread;
 import com.example.game1.presentation.view.common.GameView;
 
@@ -82,7 +83,7 @@ public class AppleGameView extends GameView implements View.OnClickListener {
           @Override
           /** increment number of taps when there is a click */
           public void onClick(View v) {
-            gameManager.incrementNumTaps();
+            gameManager.postInput(new GameInput(GameInput.Type.TAP));
           }
         };
   }
@@ -133,7 +134,7 @@ public class AppleGameView extends GameView implements View.OnClickListener {
   /** Increments number of taps when there is a click. */
   @Override
   public void onClick(View v) {
-    gameManager.incrementNumTaps();
+    gameManager.postInput(new GameInput(GameInput.Type.TAP));
   }
 
   /** Sets xCoordinate of the basket according to the position of the cursor. */
@@ -141,15 +142,15 @@ public class AppleGameView extends GameView implements View.OnClickListener {
   public boolean onTouchEvent(MotionEvent event) {
     // move basket to location of tap
     double touchX = event.getX();
-    ((AppleGameManager) gameManager).moveBasket((int) touchX);
+    gameManager.postInput(new GameInput(GameInput.Type.TOUCH, touchX));
     return super.onTouchEvent(event);
   }
 
   /** Draws a GameItem on the specified Canvas. */
   @Override
   public void drawItem(Canvas canvas, GameItem item) {
-    double xCoordinate = item.getXCoordinate();
-    double yCoordinate = item.getYCoordinate();
+    double xCoordinate = getDrawnXCoordinate(item);
+    double yCoordinate = getDrawnYCoordinate(item);
     // Draw text for Lives Counter and Points Counter
     if (item instanceof LivesCounter || item instanceof PointsCounter) { // String appearance
       setupPaintText();
@@ -18,6 +18,7 @@ import com.example.game1.presentation.model.brickgame.Paddle;
 import com.example.game1.presentation.model.brickgame.BrickStar;
 import com.example.game1.presentation.model.common.GameItem;
 import com.example.game1.presentation.presenter.brickgame.BrickGameManager;
+import com.example.game1.presentation.presenter.common.GameInput;
 import com.example.game1.presentation.presenter.jumpinggame.JumpingGameManager;
 import com.example.game1.presentation.view.common.GameThread;
 import com.example.game1.presentation.view.common.GameView;
@@ -74,7 +75,7 @@ public class BrickGameView extends GameView implements View.OnClickListener {
           public void onClick(View v) {
             if (true) {
               numTaps++;
-              gameManager.setNumTaps(numTaps);
+              gameManager.postInput(new GameInput(GameInput.Type.TAP));
             }
           }
         };
@@ -121,7 +122,7 @@ public class BrickGameView extends GameView implements View.OnClickListener {
      */
   @Override
   public void drawItems(Canvas canvas) {
-    List<GameItem> items = gameManager.getGameItems();
+    List<GameItem> items = getItemsToDraw();
     for (GameItem item : items) {
       drawItem(canvas, item, getAppearance(item));
     }
@@ -179,7 +180,7 @@ public class BrickGameView extends GameView implements View.OnClickListener {
    */
   @Override
   public boolean onTouchEvent(MotionEvent event) {
-    ((BrickGameManager) gameManager).onTouchEvent(event.getX());
+    gameManager.postInput(new GameInput(GameInput.Type.TOUCH, event.getX()));
     return super.onTouchEvent(event);
   }
 
@@ -0,0 +1,96 @@
+package com.example.game1.presentation.view.common;
+
+/**
+ * Decides how many fixed-length updates a game runs before each frame is drawn, so that the game
+ * advances at the same rate however long each frame takes. The real time that passes between
+ * frames is added to an accumulator, and one update is run for every whole step in it. The part of
+ * a step that is left over is the interpolation alpha of the frame: how far the drawn frame is
+ * past the last update, as a fraction of a step.
+ *
+ * <p>After a frame that took very long, e.g. while the app was in the background, catching up
+ * on every missed step would make the following frames even slower. At most maxUpdatesPerFrame
+ * updates are run before a frame, and the time beyond that is dropped, which slows the game down
+ * instead of letting it fall further and further behind.
+ */
+public class FixedTimestep {
+  /** The length of an update, in nanoseconds. */
+  private final long stepNs;
+  /** The most updates run before a single frame. */
+  private final int maxUpdatesPerFrame;
+  /** The time of the last frame, in nanoseconds. */
+  private long lastFrameTimeNs;
+  /** The time that has passed but has not been updated for yet, in nanoseconds. */
+  private long accumulatorNs;
+  /** The total time dropped to cap the updates before a frame, in nanoseconds. */
+  private long droppedNs;
+
+  /**
+   * Constructs a FixedTimestep with the specified step length and cap on updates per frame.
+   *
+   * @param stepNs the length of an update in nanoseconds
+   * @param maxUpdatesPerFrame the most updates to run before a single frame
+   */
+  public FixedTimestep(long stepNs, int maxUpdatesPerFrame) {
+    this.stepNs = stepNs;
+    this.maxUpdatesPerFrame = maxUpdatesPerFrame;
+  }
+
+  /**
+   * Starts counting time from the given time, with nothing left over.
+   *
+   * @param nowNs the current time in nanoseconds
+   */
+  public void start(long nowNs) {
+    lastFrameTimeNs = nowNs;
+    accumulatorNs = 0;
+  }
+
+  /**
+   * Adds the time that has passed since the last frame, and returns the number of updates to run
+   * before the frame at the given time is drawn.
+   *
+   * @param nowNs the current time in nanoseconds
+   * @return the number of updates to run, at most maxUpdatesPerFrame
+   */
+  public int advance(long nowNs) {
+    accumulatorNs += Math.max(0, nowNs - lastFrameTimeNs);
+    lastFrameTimeNs = nowNs;
+
+    int updates = (int) Math.min(accumulatorNs / stepNs, maxUpdatesPerFrame);
+    accumulatorNs -= updates * stepNs;
+    if (accumulatorNs >= stepNs) {
+      // Keep only the part of a step that is left over, and drop the steps beyond the cap
+      droppedNs += accumulatorNs - accumulatorNs % stepNs;
+      accumulatorNs %= stepNs;
+    }
+    return updates;
+  }
+
+  /**
+   * Returns how far the current frame is past the last update, as a fraction of a step.
+   *
+   * @return the interpolation alpha, at least 0 and less than 1
+   */
+  public double getAlpha() {
+    return (double) accumulatorNs / stepNs;
+  }
+
+  /**
+   * Returns the length of an update.
+   *
+   * @return the length of an update in nanoseconds
+   */
+  public long getStepNs() {
+    return stepNs;
+  }
+
+  /**
+   * Returns the total time that was dropped because a frame would have needed more than
+   * maxUpdatesPerFrame updates.
+   *
+   * @return the total dropped time in nanoseconds
+   */
+  public long getDroppedNs() {
+    return droppedNs;
+  }
+}
@@ -0,0 +1,241 @@
+package com.example.game1.presentation.view.common;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The frame times of a game, split into the phases of a frame, for a debug overlay or a test to
+ * read. The most recent frames are kept in full in a ring buffer, and every frame since the last
+ * reset is counted in a histogram of each phase, so percentiles cover the whole session in
+ * constant memory. Recording a frame allocates nothing.
+ */
+public class FrameStats {
+  /** The phases of a frame, in the order they happen in. */
+  public enum Phase {
+    LOCK_CANVAS,
+    UPDATE,
+    DRAW,
+    UNLOCK_CANVAS,
+    SLEEP
+  }
+
+  /** The number of most recent frames that are kept in full. */
+  public static final int RECENT_FRAMES = 256;
+  /** The width of a histogram bucket, in nanoseconds. */
+  private static final long BUCKET_NS = 100000;
+  /** The number of histogram buckets. The last one counts every time of 250 ms or more. */
+  private static final int BUCKETS = 2501;
+  /** The index of the whole frame in the histograms and maximums, after the phases. */
+  private static final int FRAME = Phase.values().length;
+
+  /** The time a frame is meant to take, in nanoseconds. */
+  private final long budgetNs;
+  /** The time of each phase of the most recent frames, in nanoseconds. */
+  private final long[][] recentPhaseNs = new long[FRAME][RECENT_FRAMES];
+  /** The time of each of the most recent frames, in nanoseconds. */
+  private final long[] recentFrameNs = new long[RECENT_FRAMES];
+  /** The index in the ring buffer that the next frame is recorded at. */
+  private int next;
+  /** The histogram of the times of each phase and of the whole frame. */
+  private final int[][] histograms = new int[FRAME + 1][BUCKETS];
+  /** The longest time of each phase and of the whole frame, in nanoseconds. */
+  private final long[] maxNs = new long[FRAME + 1];
+  /** The number of frames recorded. */
+  private int frameCount;
+  /** The number of frame slots missed because frames took longer than the budget. */
+  private long droppedFrames;
+  /** The number of frames whose work, i.e. everything but sleeping, took longer than the budget. */
+  private int budgetOverruns;
+
+  /**
+   * Constructs a FrameStats with the specified frame budget.
+   *
+   * @param budgetNs the time a frame is meant to take in nanoseconds
+   */
+  public FrameStats(long budgetNs) {
+    this.budgetNs = budgetNs;
+  }
+
+  /**
+   * Records a frame, given the times at which each of its phases started followed by the time at
+   * which it ended. A phase whose start was not reached, e.g. because drawing failed, is counted
+   * as taking no time.
+   *
+   * @param marksNs the start time of each phase, then the end time of the frame, in nanoseconds
+   */
+  public synchronized void recordFrame(long[] marksNs) {
+    long frameNs = marksNs[FRAME] - marksNs[0];
+    for (int phase = 0; phase < FRAME; phase++) {
+      long phaseNs = Math.max(0, marksNs[phase + 1] - marksNs[phase]);
+      recentPhaseNs[phase][next] = phaseNs;
+      count(phase, phaseNs);
+    }
+    recentFrameNs[next] = frameNs;
+    count(FRAME, frameNs);
+    next = (next + 1) % RECENT_FRAMES;
+    frameCount++;
+
+    long slots = (frameNs + budgetNs / 2) / budgetNs;
+    if (slots > 1) {
+      droppedFrames += slots - 1;
+    }
+    if (marksNs[Phase.SLEEP.ordinal()] - marksNs[0] > budgetNs) {
+      budgetOverruns++;
+    }
+  }
+
+  /**
+   * Adds the given time to the histogram and maximum of the given phase, or of the whole frame.
+   */
+  private void count(int series, long timeNs) {
+    histograms[series][(int) Math.min(timeNs / BUCKET_NS, BUCKETS - 1)]++;
+    maxNs[series] = Math.max(maxNs[series], timeNs);
+  }
+
+  /**
+   * Returns the given percentile of the times of whole frames. It is exact to within 0.1 ms.
+   *
+   * @param percentile the percentile, from 0 to 100
+   * @return the percentile of the frame times in nanoseconds, or 0 if no frame was recorded
+   */
+  public synchronized long getFramePercentileNs(double percentile) {
+    return percentileOf(FRAME, percentile);
+  }
+
+  /**
+   * Returns the given percentile of the times of the given phase. It is exact to within 0.1 ms.
+   *
+   * @param phase the phase
+   * @param percentile the percentile, from 0 to 100
+   * @return the percentile of the phase's times in nanoseconds, or 0 if no frame was recorded
+   */
+  public synchronized long getPhasePercentileNs(Phase phase, double percentile) {
+    return percentileOf(phase.ordinal(), percentile);
+  }
+
+  /**
+   * Returns the given percentile of the given phase, or of the whole frame, as the upper end of
+   * the histogram bucket it falls in.
+   */
+  private long percentileOf(int series, double percentile) {
+    if (frameCount == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * frameCount));
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += histograms[series][bucket];
+      if (seen >= rank) {
+        // The last bucket has no upper end, so the longest time is the closest bound
+        return bucket == BUCKETS - 1
+            ? maxNs[series]
+            : Math.min((bucket + 1) * BUCKET_NS, maxNs[series]);
+      }
+    }
+    return maxNs[series];
+  }
+
+  /**
+   * Returns the times of the most recent frames, oldest first.
+   *
+   * @return the times of up to RECENT_FRAMES frames in nanoseconds
+   */
+  public synchronized long[] getRecentFrameNs() {
+    return recent(recentFrameNs);
+  }
+
+  /**
+   * Returns the times of the given phase in the most recent frames, oldest first.
+   *
+   * @param phase the phase
+   * @return the times of the phase in up to RECENT_FRAMES frames in nanoseconds
+   */
+  public synchronized long[] getRecentPhaseNs(Phase phase) {
+    return recent(recentPhaseNs[phase.ordinal()]);
+  }
+
+  /**
+   * Returns the frames in the given ring buffer, oldest first.
+   */
+  private long[] recent(long[] ring) {
+    if (frameCount < RECENT_FRAMES) {
+      return Arrays.copyOf(ring, frameCount);
+    }
+    long[] frames = new long[RECENT_FRAMES];
+    System.arraycopy(ring, next, frames, 0, RECENT_FRAMES - next);
+    System.arraycopy(ring, 0, frames, RECENT_FRAMES - next, next);
+    return frames;
+  }
+
+  /**
+   * Returns the number of frames recorded since the last reset.
+   *
+   * @return the number of frames
+   */
+  public synchronized int getFrameCount() {
+    return frameCount;
+  }
+
+  /**
+   * Returns the number of frame slots that were missed because frames took longer than the
+   * budget. A frame that took two and a half budgets missed two slots.
+   *
+   * @return the number of dropped frames
+   */
+  public synchronized long getDroppedFrames() {
+    return droppedFrames;
+  }
+
+  /**
+   * Returns the number of frames whose work, i.e. everything but sleeping, took longer than the
+   * budget.
+   *
+   * @return the number of frames over budget
+   */
+  public synchronized int getBudgetOverruns() {
+    return budgetOverruns;
+  }
+
+  /**
+   * Returns the time a frame is meant to take.
+   *
+   * @return the frame budget in nanoseconds
+   */
+  public long getBudgetNs() {
+    return budgetNs;
+  }
+
+  /** Forgets every frame recorded so far. */
+  public synchronized void reset() {
+    for (long[] phaseNs : recentPhaseNs) {
+      Arrays.fill(phaseNs, 0);
+    }
+    Arrays.fill(recentFrameNs, 0);
+    for (int[] histogram : histograms) {
+      Arrays.fill(histogram, 0);
+    }
+    Arrays.fill(maxNs, 0);
+    next = 0;
+    frameCount = 0;
+    droppedFrames = 0;
+    budgetOverruns = 0;
+  }
+
+  /**
+   * Returns a one-line summary of the frame times, e.g. for the log.
+   *
+   * @return a summary of the frame times
+   */
+  @Override
+  public synchronized String toString() {
+    return String.format(
+        Locale.US,
+        "%d frames, p50 %.1f ms, p95 %.1f ms, p99 %.1f ms, %d dropped, %d over budget",
+        frameCount,
+        percentileOf(FRAME, 50) / 1e6,
+        percentileOf(FRAME, 95) / 1e6,
+        percentileOf(FRAME, 99) / 1e6,
+        droppedFrames,
+        budgetOverruns);
+  }
+}
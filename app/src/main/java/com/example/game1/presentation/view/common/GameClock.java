@@ -0,0 +1,37 @@
+package com.example.game1.presentation.view.common;
+
+/**
+ * The source of time for a GameThread. The thread only reads the time and sleeps through its
+ * GameClock, so a clock that is advanced by hand can drive the game loop one frame at a time.
+ */
+public interface GameClock {
+
+  /** The clock of the system, as given by System.nanoTime() and Thread.sleep(). */
+  GameClock SYSTEM =
+      new GameClock() {
+        @Override
+        public long nanoTime() {
+          return System.nanoTime();
+        }
+
+        @Override
+        public void sleep(long durationNs) throws InterruptedException {
+          Thread.sleep(durationNs / 1000000, (int) (durationNs % 1000000));
+        }
+      };
+
+  /**
+   * Returns the current time of this clock.
+   *
+   * @return the current time in nanoseconds, from an arbitrary origin
+   */
+  long nanoTime();
+
+  /**
+   * Sleeps for the given duration.
+   *
+   * @param durationNs the duration to sleep for in nanoseconds
+   * @throws InterruptedException if the sleep is interrupted
+   */
+  void sleep(long durationNs) throws InterruptedException;
+}
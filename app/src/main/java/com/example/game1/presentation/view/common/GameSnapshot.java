@@ -0,0 +1,65 @@
+package com.example.game1.presentation.view.common;
+
+import com.example.game1.presentation.model.common.GameItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copies of the items of a game as they were after an update, for a thread to draw from while the
+ * game keeps updating on another thread. The copy in each slot is kept and brought up to date by
+ * the next capture, as long as the item in that slot is of the same class, so a game whose items
+ * stay the same allocates nothing once every slot has a copy.
+ */
+public class GameSnapshot {
+  /** The copies of the items of the last capture. */
+  private final List<GameItem> items = new ArrayList<>();
+  /** The copy made for each slot so far, including slots beyond the items of the last capture. */
+  private final List<GameItem> copies = new ArrayList<>();
+  /** The real time that the state of the items belongs to, in nanoseconds. */
+  private long timeNs;
+
+  /**
+   * Replaces the contents of this GameSnapshot with copies of the given items, reusing the copy in
+   * each slot where it is of the same class as the item.
+   *
+   * @param gameItems the items of the game
+   * @param timeNs the real time that the state of the items belongs to in nanoseconds
+   */
+  void capture(List<GameItem> gameItems, long timeNs) {
+    items.clear();
+    for (int slot = 0; slot < gameItems.size(); slot++) {
+      GameItem item = gameItems.get(slot);
+      if (slot == copies.size()) {
+        copies.add(item.copy());
+      } else if (copies.get(slot).getClass() != item.getClass()) {
+        copies.set(slot, item.copy());
+      } else {
+        copies.get(slot).copyFrom(item);
+      }
+      items.add(copies.get(slot));
+    }
+    this.timeNs = timeNs;
+  }
+
+  /**
+   * Returns the copies of the items.
+   *
+   * @return the copies of the items
+   */
+  public List<GameItem> getItems() {
+    return items;
+  }
+
+  /**
+   * Returns how far the given time is past the state of the items, as a fraction of a step. The
+   * items are never drawn more than a step ahead, even if the next update is late.
+   *
+   * @param nowNs the current time in nanoseconds
+   * @param stepNs the length of an update in nanoseconds
+   * @return the interpolation alpha, from 0 to 1
+   */
+  public double getAlpha(long nowNs, long stepNs) {
+    return Math.min(1, Math.max(0, (double) (nowNs - timeNs) / stepNs));
+  }
+}
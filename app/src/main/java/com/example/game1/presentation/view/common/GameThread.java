@@ -1,22 +1,56 @@
 package com.example.game1.presentation.view.common;
 
 import android.graphics.Canvas;
+import android.util.Log;
 import android.view.SurfaceHolder;
 
+import com.example.game1.AppManager;
+
 /** A thread of execution. */
 public class GameThread extends Thread {
   /** The target FPS. */
   private static final long TARGET_FPS = 30;
   /** The frame duration. */
   public static final long FRAME_DURATION_NS = (long) (Math.pow(10, 9) / TARGET_FPS);
+  /** The tag of the log messages of the thread. */
+  private static final String TAG = "Game Thread";
+  /** The most updates run to catch up before a frame is drawn. */
+  private static final int MAX_UPDATES_PER_FRAME = 5;
+
+  /** The ways the thread can pace the updates of the game. */
+  public enum LoopMode {
+    /** One update of FRAME_DURATION_NS per frame, however long the frame actually took. */
+    FRAME_LOCKED,
+    /** As many updates of FRAME_DURATION_NS per frame as fit in the real time that passed. */
+    FIXED_TIMESTEP,
+    /**
+     * Updates of FRAME_DURATION_NS on a fixed timestep on a SimulationThread of their own, while
+     * this thread only draws the latest snapshot of the game. It is opt-in: no game view chooses
+     * it, and only its TripleBuffer and GameSnapshot are unit tested. It has not been run on a
+     * device.
+     */
+    SEPARATE_THREADS
+  }
+
   /** The SurfaceHolder. */
   private SurfaceHolder surfaceHolder;
   /** The GameView. */
   private GameView gameView;
   /** Whether the thread is running. */
-  private boolean isRunning;
+  private volatile boolean isRunning;
   /** The Canvas. */
   private Canvas canvas;
+  /** The clock the thread reads the time from and sleeps with. */
+  private GameClock clock;
+  /** How the thread paces the updates of the game. SEPARATE_THREADS has to be chosen with
+   * setLoopMode. */
+  private LoopMode loopMode = LoopMode.FIXED_TIMESTEP;
+  /** The timestep that decides how many updates to run before each frame. */
+  private FixedTimestep timestep = new FixedTimestep(FRAME_DURATION_NS, MAX_UPDATES_PER_FRAME);
+  /** The frame times of the game. They are looked up for the game when the thread starts. */
+  private FrameStats frameStats;
+  /** The start time of each phase of the current frame, then its end time. */
+  private final long[] frameMarks = new long[FrameStats.Phase.values().length + 1];
 
   /**
    * Constructs a GameThread with the specified SurfaceHolder and GameView.
@@ -24,26 +58,56 @@ public class GameThread extends Thread {
    * @param gameView the GameView
    */
   public GameThread(SurfaceHolder surfaceHolder, GameView gameView) {
+    this(surfaceHolder, gameView, GameClock.SYSTEM);
+  }
+
+  /**
+   * Constructs a GameThread with the specified SurfaceHolder and GameView that reads the time
+   * from the specified GameClock.
+   * @param surfaceHolder the SurfaceHolder
+   * @param gameView the GameView
+   * @param clock the GameClock
+   */
+  public GameThread(SurfaceHolder surfaceHolder, GameView gameView, GameClock clock) {
     super();
     this.surfaceHolder = surfaceHolder;
     this.gameView = gameView;
+    this.clock = clock;
   }
 
   /** Runs this Thread. */
   @Override
   public void run() {
     canvas = null;
-    long startTime, frameStartTime, delay;
-    int frameCount = 0;
-    startTime = System.nanoTime();
+    long frameStartTime, delay;
+    int updates = 1;
+    if (frameStats == null) {
+      frameStats =
+          AppManager.getInstance().lookupFrameStats(gameView.gameManager.getGame().getName());
+    }
+    SimulationThread simulation = null;
+    if (loopMode == LoopMode.SEPARATE_THREADS) {
+      simulation = new SimulationThread(gameView, this, clock, timestep);
+      simulation.start();
+    } else {
+      timestep.start(clock.nanoTime());
+    }
     while (isRunning) {
       canvas = null;
-      frameStartTime = System.nanoTime();
+      frameStartTime = clock.nanoTime();
+      if (loopMode == LoopMode.FIXED_TIMESTEP) {
+        updates = timestep.advance(frameStartTime);
+      }
+      mark(FrameStats.Phase.LOCK_CANVAS.ordinal(), frameStartTime);
       try {
         canvas = this.surfaceHolder.lockCanvas();
-        synchronized (surfaceHolder) {
-          this.gameView.update();
-          this.gameView.draw(canvas);
+        mark(FrameStats.Phase.UPDATE.ordinal(), clock.nanoTime());
+        if (simulation != null) {
+          drawLatestSnapshot(simulation);
+        } else {
+          synchronized (surfaceHolder) {
+            updateAndDraw(updates);
+          }
         }
       } catch (Exception e) {
         e.printStackTrace();
@@ -56,28 +120,68 @@ public class GameThread extends Thread {
           }
         }
       }
+      mark(FrameStats.Phase.SLEEP.ordinal(), clock.nanoTime());
 
-      delay = Math.max(0, frameStartTime + FRAME_DURATION_NS - System.nanoTime());
-      // System.out.println("delay " + delay/1000000);
+      delay =
+          Math.max(
+              0, frameStartTime + FRAME_DURATION_NS - frameMarks[FrameStats.Phase.SLEEP.ordinal()]);
       try {
-        Thread.sleep(delay / 1000000);
+        clock.sleep(delay);
       } catch (InterruptedException e) {
         e.printStackTrace();
       }
-      frameCount += 1;
-      if (frameCount == TARGET_FPS) {
-        System.out.println("FPS: " + TARGET_FPS / ((System.nanoTime() - startTime) / 1000000000));
-        frameCount = 0;
-        startTime = System.nanoTime();
-      }
-
+      mark(frameMarks.length - 1, clock.nanoTime());
+      frameStats.recordFrame(frameMarks);
+    }
+    if (simulation != null) {
+      simulation.setRunning(false);
       try {
-        // Thread.sleep((FRAME_DURATION_NS/1000000));
-        // frameCount += 1;
-        // System.out.println("@@@@@ Frame Count" + frameCount);
-      } catch (Exception e) {
+        simulation.join();
+      } catch (InterruptedException e) {
+        e.printStackTrace();
       }
     }
+    Log.i(TAG, "Frame times: " + frameStats);
+  }
+
+  /**
+   * Runs the given number of updates of the game, then draws it.
+   */
+  private void updateAndDraw(int updates) {
+    // stop updating as soon as an update ends the game
+    for (int i = 0; i < updates && isRunning; i++) {
+      this.gameView.update();
+    }
+    mark(FrameStats.Phase.DRAW.ordinal(), clock.nanoTime());
+    this.gameView.setInterpolationAlpha(
+        loopMode == LoopMode.FIXED_TIMESTEP ? timestep.getAlpha() : 0);
+    this.gameView.draw(canvas);
+    mark(FrameStats.Phase.UNLOCK_CANVAS.ordinal(), clock.nanoTime());
+  }
+
+  /**
+   * Draws the latest snapshot of the game that the given SimulationThread published. Taking the
+   * snapshot is recorded as the update phase of the frame, since the updates themselves happen on
+   * the SimulationThread.
+   */
+  private void drawLatestSnapshot(SimulationThread simulation) {
+    GameSnapshot snapshot = simulation.getLatestSnapshot();
+    mark(FrameStats.Phase.DRAW.ordinal(), clock.nanoTime());
+    this.gameView.setItemsToDraw(snapshot.getItems());
+    this.gameView.setInterpolationAlpha(
+        snapshot.getAlpha(frameMarks[FrameStats.Phase.DRAW.ordinal()], FRAME_DURATION_NS));
+    this.gameView.draw(canvas);
+    mark(FrameStats.Phase.UNLOCK_CANVAS.ordinal(), clock.nanoTime());
+  }
+
+  /**
+   * Sets the given mark of the current frame, and every mark after it, to the given time, so that
+   * the phases after it take no time unless they are reached and marked too.
+   */
+  private void mark(int mark, long timeNs) {
+    for (int i = mark; i < frameMarks.length; i++) {
+      frameMarks[i] = timeNs;
+    }
   }
 
   /** Sets isRunning.
@@ -86,4 +190,35 @@ public class GameThread extends Thread {
   public void setRunning(boolean isRunning) {
     this.isRunning = isRunning;
   }
+
+  /** Returns whether the thread is running.
+   * @return isRunning
+   */
+  public boolean isRunning() {
+    return isRunning;
+  }
+
+  /** Sets the FrameStats to record the frame times in, instead of the ones of the game.
+   * It must be set before the thread starts.
+   * @param frameStats the FrameStats
+   */
+  public void setFrameStats(FrameStats frameStats) {
+    this.frameStats = frameStats;
+  }
+
+  /** Returns the FrameStats the frame times are recorded in.
+   * @return the FrameStats, or null if the thread has not started
+   */
+  public FrameStats getFrameStats() {
+    return frameStats;
+  }
+
+  /** Sets how the thread paces the updates of the game. It must be set before the thread starts.
+   * No game view calls it, so every game runs on the default FIXED_TIMESTEP; a view that wants to
+   * try SEPARATE_THREADS calls it right after constructing its thread.
+   * @param loopMode the LoopMode
+   */
+  public void setLoopMode(LoopMode loopMode) {
+    this.loopMode = loopMode;
+  }
 }
@@ -16,13 +16,19 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.example.game1.presentation.model.Customization;
 import com.example.game1.presentation.model.common.GameItem;
 import com.example.game1.presentation.presenter.common.GameManager;
+import com.example.game1.presentation.presenter.common.GameSession;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 
 /** The game view. */
 public abstract class GameView extends SurfaceView implements SurfaceHolder.Callback {
+  /** The start of the name of the file the last game played of each kind is recorded in. */
+  public static final String SESSION_FILE_PREFIX = "last_session_";
   /** The width of a character. */
   public static float charWidth;
   /** The height of a character. */
@@ -51,6 +57,10 @@ public abstract class GameView extends SurfaceView implements SurfaceHolder.Call
   private int backgroundColorDark;
   /** Light background color */
   private int backgroundColorLight;
+  /** How far the drawn frame is past the last update, as a fraction of an update. */
+  private double interpolationAlpha;
+  /** The items to draw instead of the live items of the game, e.g. a snapshot of them. */
+  private List<GameItem> itemsToDraw;
 
   /**
    * Constructs a GameView with the given context.
@@ -105,6 +115,7 @@ public abstract class GameView extends SurfaceView implements SurfaceHolder.Call
         thread.setRunning(false);
         thread.join();
         gameManager.gameOver();
+        saveSession();
 
       } catch (InterruptedException e) {
         e.printStackTrace();
@@ -113,22 +124,97 @@ public abstract class GameView extends SurfaceView implements SurfaceHolder.Call
     }
   }
 
-  /** Update this GameView's GameManager. */
+  /**
+   * Saves the recording of the game that was played, if it was recorded, so that it can be
+   * replayed by the HeadlessGameRunner. The file is written on a thread of its own, off the main
+   * thread.
+   */
+  private void saveSession() {
+    final GameSession session = gameManager.getSession();
+    if (session == null || session.isTruncated()) {
+      return;
+    }
+    String fileName =
+        SESSION_FILE_PREFIX + session.getGame().name().toLowerCase(Locale.US) + ".rec";
+    final File file = new File(getContext().getFilesDir(), fileName);
+    new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          session.writeTo(file);
+        } catch (IOException e) {
+          e.printStackTrace();
+        }
+      }
+    }, "Session Writer").start();
+  }
+
+  /** Update this GameView's GameManager by a tick. */
   public void update() {
-    boolean updated = gameManager.update();
+    boolean updated = gameManager.tick();
     // stop thread if update fails
     if (!updated) {
       thread.setRunning(false);
     }
   }
 
+  /**
+   * Sets how far the next frame is past the last update, as a fraction of an update.
+   *
+   * @param interpolationAlpha the interpolation alpha, at least 0 and less than 1
+   */
+  public void setInterpolationAlpha(double interpolationAlpha) {
+    this.interpolationAlpha = interpolationAlpha;
+  }
+
+  /**
+   * Returns the x coordinate to draw the given item at in this frame, which is ahead of where the
+   * last update left it by the interpolation alpha.
+   *
+   * @param item the item to draw
+   * @return the x coordinate to draw the item at
+   */
+  public double getDrawnXCoordinate(GameItem item) {
+    return item.getXCoordinateAfter(interpolationAlpha * gameManager.getNumSeconds());
+  }
+
+  /**
+   * Returns the y coordinate to draw the given item at in this frame, which is ahead of where the
+   * last update left it by the interpolation alpha.
+   *
+   * @param item the item to draw
+   * @return the y coordinate to draw the item at
+   */
+  public double getDrawnYCoordinate(GameItem item) {
+    return item.getYCoordinateAfter(interpolationAlpha * gameManager.getNumSeconds());
+  }
+
+  /**
+   * Sets the items to draw instead of the live items of the game, e.g. a snapshot of them taken
+   * on another thread.
+   *
+   * @param itemsToDraw the items to draw, or null to draw the live items
+   */
+  public void setItemsToDraw(List<GameItem> itemsToDraw) {
+    this.itemsToDraw = itemsToDraw;
+  }
+
+  /**
+   * Returns the items to draw in this frame.
+   *
+   * @return the items set by setItemsToDraw, or else the live items of the game
+   */
+  public List<GameItem> getItemsToDraw() {
+    return itemsToDraw != null ? itemsToDraw : gameManager.getGameItems();
+  }
+
   /**
    * draws all the items in this game
    *
    * @param canvas the canvas on which to draw
    */
   public void drawItems(Canvas canvas) {
-    List<GameItem> items = gameManager.getGameItems();
+    List<GameItem> items = getItemsToDraw();
     for (GameItem item : items) {
       drawItem(canvas, item);
     }
@@ -160,8 +246,8 @@ public abstract class GameView extends SurfaceView implements SurfaceHolder.Call
     paintText.setTypeface(Typeface.DEFAULT_BOLD);
     paintText.setTextSize(36);
     Object appearance = item.getDescription();
-    double xCoordinate = item.getXCoordinate();
-    double yCoordinate = item.getYCoordinate();
+    double xCoordinate = getDrawnXCoordinate(item);
+    double yCoordinate = getDrawnYCoordinate(item);
     if (appearance.getClass() == String.class) {
 
       // TODO NEW: remove * charWidth?
@@ -186,8 +272,8 @@ public abstract class GameView extends SurfaceView implements SurfaceHolder.Call
    * @param canvas the canvas on which to draw this item.
    */
   public void drawItem(Canvas canvas, GameItem item, Bitmap appearance) {
-    double xCoordinate = item.getXCoordinate();
-    double yCoordinate = item.getYCoordinate();
+    double xCoordinate = getDrawnXCoordinate(item);
+    double yCoordinate = getDrawnYCoordinate(item);
 
     canvas.drawBitmap(
             appearance, (int) Math.round(xCoordinate), (int) Math.round(yCoordinate), paintText);
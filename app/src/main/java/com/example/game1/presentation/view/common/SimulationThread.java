@@ -0,0 +1,96 @@
+package com.example.game1.presentation.view.common;
+
+/**
+ * A thread that updates a game on a fixed timestep, separately from the GameThread that draws it.
+ * After each round of updates it publishes copies of the game's items through a TripleBuffer, so
+ * the GameThread always draws the latest state without waiting for an update, and the updates
+ * never wait for a frame to be drawn.
+ */
+class SimulationThread extends Thread {
+  /** The GameView whose game is updated. */
+  private final GameView gameView;
+  /** The GameThread that draws the game. The game ends when it stops running. */
+  private final GameThread gameThread;
+  /** The clock the thread reads the time from and sleeps with. */
+  private final GameClock clock;
+  /** The timestep that decides how many updates to run at a time. */
+  private final FixedTimestep timestep;
+  /** The snapshots of the game passed to the GameThread. */
+  private final TripleBuffer<GameSnapshot> snapshots =
+      new TripleBuffer<>(new GameSnapshot(), new GameSnapshot(), new GameSnapshot());
+  /** Whether the thread is running. */
+  private volatile boolean isRunning = true;
+
+  /**
+   * Constructs a SimulationThread that updates the game of the specified GameView.
+   *
+   * @param gameView the GameView
+   * @param gameThread the GameThread that draws the game
+   * @param clock the GameClock
+   * @param timestep the FixedTimestep
+   */
+  SimulationThread(
+      GameView gameView, GameThread gameThread, GameClock clock, FixedTimestep timestep) {
+    super("Game Simulation");
+    this.gameView = gameView;
+    this.gameThread = gameThread;
+    this.clock = clock;
+    this.timestep = timestep;
+  }
+
+  /** Runs this Thread. */
+  @Override
+  public void run() {
+    long startTime = clock.nanoTime();
+    timestep.start(startTime);
+    publish(startTime);
+    while (isRunning && gameThread.isRunning()) {
+      startTime = clock.nanoTime();
+      int updates = timestep.advance(startTime);
+      try {
+        // stop updating as soon as an update ends the game
+        for (int i = 0; i < updates && gameThread.isRunning(); i++) {
+          gameView.update();
+        }
+        if (updates > 0) {
+          // the updates reach the current time, except for the part of a step left over
+          publish(startTime - (long) (timestep.getAlpha() * timestep.getStepNs()));
+        }
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+
+      long delay = Math.max(0, startTime + timestep.getStepNs() - clock.nanoTime());
+      try {
+        clock.sleep(delay);
+      } catch (InterruptedException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /** Publishes copies of the game's items, as of the given time, to the GameThread. */
+  private void publish(long timeNs) {
+    snapshots.getBack().capture(gameView.gameManager.getGameItems(), timeNs);
+    snapshots.publish();
+  }
+
+  /**
+   * Returns the latest snapshot of the game. It must only be called by the GameThread, and the
+   * snapshot is only valid until it is called again.
+   *
+   * @return the latest GameSnapshot
+   */
+  GameSnapshot getLatestSnapshot() {
+    return snapshots.getLatest();
+  }
+
+  /**
+   * Sets isRunning.
+   *
+   * @param isRunning isRunning
+   */
+  void setRunning(boolean isRunning) {
+    this.isRunning = isRunning;
+  }
+}
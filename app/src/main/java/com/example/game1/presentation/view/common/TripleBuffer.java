@@ -0,0 +1,72 @@
+package com.example.game1.presentation.view.common;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Three buffers that pass the latest of a stream of values from one writing thread to one reading
+ * thread without either ever waiting for the other. The writer fills the back buffer and publishes
+ * it, which swaps it with the ready buffer. The reader swaps the ready buffer with the front
+ * buffer when something new was published, and reads the front buffer until it asks again. Each
+ * thread only ever touches its own buffer, so a buffer can be reused instead of allocated for
+ * every value.
+ *
+ * @param <T> the type of the buffers
+ */
+public class TripleBuffer<T> {
+  /** The bits of state that hold the index of the ready buffer. */
+  private static final int INDEX_MASK = 3;
+  /** The bit of state that is set while the ready buffer has not been read yet. */
+  private static final int FRESH = 4;
+
+  /** The buffers. */
+  private final Object[] buffers;
+  /** The index of the ready buffer, and whether it has been published since it was last read. */
+  private final AtomicInteger state;
+  /** The index of the buffer the writer fills. Only the writer uses it. */
+  private int backIndex;
+  /** The index of the buffer the reader reads. Only the reader uses it. */
+  private int frontIndex;
+
+  /**
+   * Constructs a TripleBuffer of the specified buffers. The reader reads the first one until the
+   * writer publishes.
+   *
+   * @param front the buffer the reader reads first
+   * @param ready the buffer that is swapped with the others first
+   * @param back the buffer the writer fills first
+   */
+  public TripleBuffer(T front, T ready, T back) {
+    buffers = new Object[] {front, ready, back};
+    frontIndex = 0;
+    state = new AtomicInteger(1);
+    backIndex = 2;
+  }
+
+  /**
+   * Returns the buffer for the writer to fill. It stays the writer's until it is published.
+   *
+   * @return the back buffer
+   */
+  @SuppressWarnings("unchecked")
+  public T getBack() {
+    return (T) buffers[backIndex];
+  }
+
+  /** Publishes the back buffer to the reader, and gives the writer a new back buffer. */
+  public void publish() {
+    backIndex = state.getAndSet(backIndex | FRESH) & INDEX_MASK;
+  }
+
+  /**
+   * Returns the buffer that was published last. It stays the reader's until this is called again.
+   *
+   * @return the front buffer
+   */
+  @SuppressWarnings("unchecked")
+  public T getLatest() {
+    if ((state.get() & FRESH) != 0) {
+      frontIndex = state.getAndSet(frontIndex) & INDEX_MASK;
+    }
+    return (T) buffers[frontIndex];
+  }
+}
@@ -15,6 +15,7 @@ import com.example.game1.R;
 import com.example.game1.presentation.model.Game;
 import com.example.game1.presentation.model.common.GameItem;
 import com.example.game1.presentation.model.jumpinggame.Jumper;
+import com.example.game1.presentation.presenter.common.GameInput;
 import com.example.game1.presentation.presenter.jumpinggame.JumpingGameManager;
 import com.example.game1.presentation.view.common.GameThread;
 import com.example.game1.presentation.view.common.GameView;
@@ -121,7 +122,7 @@ public class JumpingGameView extends GameView implements View.OnClickListener {
               @Override
               /** increment number of click by 1 when there is a click */
               public void onClick(View v) {
-                gameManager.incrementNumTaps();
+                gameManager.postInput(new GameInput(GameInput.Type.TAP));
               }
             };
   }
@@ -185,7 +186,7 @@ public class JumpingGameView extends GameView implements View.OnClickListener {
    */
   @Override
   public boolean onTouchEvent(MotionEvent event) {
-    ((JumpingGameManager) gameManager).onTouchEvent();
+    gameManager.postInput(new GameInput(GameInput.Type.TOUCH, event.getX()));
     return super.onTouchEvent(event);
   }
 
@@ -196,7 +197,7 @@ public class JumpingGameView extends GameView implements View.OnClickListener {
    * @param View a View
    */
   public void onClick(View v) {
-    gameManager.incrementNumTaps();
+    gameManager.postInput(new GameInput(GameInput.Type.TAP));
   }
 
   @Override
@@ -211,8 +212,8 @@ public class JumpingGameView extends GameView implements View.OnClickListener {
     // key used to extract bitmaps from the hash map
     String key;
     // get coordinates of this game item
-    double xCoordinate = item.getXCoordinate();
-    double yCoordinate = item.getYCoordinate();
+    double xCoordinate = getDrawnXCoordinate(item);
+    double yCoordinate = getDrawnYCoordinate(item);
     // If the game item is a jumper
     if (item instanceof Jumper) {
       // Generate key according to class name and charactor color scheme according to the
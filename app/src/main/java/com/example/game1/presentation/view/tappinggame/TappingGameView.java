@@ -16,6 +16,7 @@ import com.example.game1.presentation.model.Game;
 import com.example.game1.presentation.model.common.GameItem;
 import com.example.game1.presentation.model.tappinggame.Runner;
 import com.example.game1.presentation.model.tappinggame.TappingCircle;
+import com.example.game1.presentation.presenter.common.GameInput;
 import com.example.game1.presentation.presenter.tappinggame.TappingGameManager;
 import com.example.game1.presentation.view.common.GameThread;
 import com.example.game1.presentation.view.common.GameView;
@@ -112,7 +113,7 @@ public class TappingGameView extends GameView implements View.OnClickListener {
               public void onClick(View v) {
                 if (gameStarted) {
                   numOfTaps++;
-                  gameManager.setNumTaps(numOfTaps);
+                  gameManager.postInput(new GameInput(GameInput.Type.TAP));
                 }
               }
             };
@@ -174,10 +175,8 @@ public class TappingGameView extends GameView implements View.OnClickListener {
               @Override
               public void onTick(long millisUntilFinished) {
                 secondLeft--;
-                if (gameManager instanceof TappingGameManager) {
-                  // decrement seconds left in tapping game manager
-                  ((TappingGameManager) gameManager).setSecondsLeft(secondLeft);
-                }
+                // decrement seconds left in tapping game manager
+                gameManager.postInput(new GameInput(GameInput.Type.SECONDS_LEFT, secondLeft));
                 // display the remaining time
                 long timeTillEnd = (millisUntilFinished / 1000) + 1;
                 long secondsPassed = 10 - timeTillEnd;
@@ -186,9 +185,7 @@ public class TappingGameView extends GameView implements View.OnClickListener {
                   // generate average speed
                   speed = (int) (numOfTaps / secondsPassed);
                   // set speed in game manager
-                  if (gameManager instanceof TappingGameManager) {
-                    ((TappingGameManager) gameManager).setTappingSpeed(speed);
-                  }
+                  gameManager.postInput(new GameInput(GameInput.Type.TAPPING_SPEED, speed));
                 }
               }
 
@@ -219,7 +216,7 @@ public class TappingGameView extends GameView implements View.OnClickListener {
   public void onClick(View v) {
     if (gameStarted) {
       numOfTaps++;
-      gameManager.setNumTaps(numOfTaps);
+      gameManager.postInput(new GameInput(GameInput.Type.TAP));
     }
   }
 
@@ -231,8 +228,8 @@ public class TappingGameView extends GameView implements View.OnClickListener {
    */
   public void drawItem(Canvas canvas, GameItem item) {
     setupPaintText();
-    double xCoordinate = item.getXCoordinate();
-    double yCoordinate = item.getYCoordinate();
+    double xCoordinate = getDrawnXCoordinate(item);
+    double yCoordinate = getDrawnYCoordinate(item);
     // key used to extract bitmaps from the hash map
     String key = "";
     // If item is a Runner or a Tapping Circle
@@ -37,7 +37,9 @@ public class RegistrationActivity extends AppCompatActivity {
     EditText confirmPasswordText = findViewById(R.id.confirmPasswordText);
     String confirmPassword = confirmPasswordText.getText().toString();
 
-    if (password.equals(confirmPassword)) {
+    if (!userManager.canSaveUser(userName.toLowerCase(), password)) {
+      messageText.setText(R.string.reg_too_long);
+    } else if (password.equals(confirmPassword)) {
       if (userManager.registerUser(userName.toLowerCase(), password)) {
         // Registration successful. Go to the user menu.
         startActivity(intent);
@@ -14,6 +14,7 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.game1.AppManager;
 import com.example.game1.R;
+import com.example.game1.presentation.model.User;
 import com.example.game1.presentation.presenter.UserManager;
 
 import java.util.ArrayList;
@@ -67,19 +68,16 @@ public class ScoreboardActivity extends AppCompatActivity {
 
         // Get the user names and statistics
         List<Pair<String, String>> usernameToStat = new ArrayList<>();
-        int numUsers = userManager.getTopUsers(5, selection).size();
-        for (int i = 0; i < numUsers; i++) {
-            String username = userManager.getTopUsers(5, selection).get(i).getUserName();
+        List<User> topUsers = userManager.getTopUsers(5, selection);
+        for (User user : topUsers) {
+            String username = user.getUserName();
             int stat;
             if ("Points".equals(selection)) {
-                stat = userManager.getTopUsers(
-                        5, selection).get(i).getTopIndividualStats().getPoints();
+                stat = user.getTopIndividualStats().getPoints();
             } else if ("Stars".equals(selection)) {
-                stat = userManager.getTopUsers(
-                        5, selection).get(i).getTopIndividualStats().getStars();
+                stat = user.getTopIndividualStats().getStars();
             } else if ("Taps".equals(selection)) {
-                stat = userManager.getTopUsers(
-                        5, selection).get(i).getTopIndividualStats().getTaps();
+                stat = user.getTopIndividualStats().getTaps();
             } else {  // "Total Score".equals(selection)
                 stat = userManager.getTopScore(username);
             }
@@ -30,6 +30,7 @@ public class StatisticsActivity extends AppCompatActivity {
     displayCurrentGameStats();
     displayTopGameStats();
     displayTopIndividualStats();
+    displayPercentile();
   }
 
   /**
@@ -90,6 +91,28 @@ public class StatisticsActivity extends AppCompatActivity {
             String.valueOf(userManager.getCurrentUser().getTopIndividualStats().getTaps()));
   }
 
+  /**
+   * Displays the percentage of players whose top score the user's top score beats
+   */
+  private void displayPercentile(){
+    final EditText percentileText = findViewById(R.id.percentileText);
+    final String usernameOfCurrUser = userManager.getCurrentUser().getUserName();
+    // Comparing the user with every other user may wait for the game that just finished to be
+    // written, so it is done off the main thread and shown once it is ready
+    new Thread(new Runnable() {
+      @Override
+      public void run() {
+        final int percentile = (int) userManager.getPercentile(usernameOfCurrUser, "Total Score");
+        runOnUiThread(new Runnable() {
+          @Override
+          public void run() {
+            percentileText.setText(getString(R.string.stats_percentile, percentile));
+          }
+        });
+      }
+    }, "Percentile Lookup").start();
+  }
+
   /** Changes the theme of the page based on the user's customization choice */
   private void setTheme() {
     if ("LIGHT"
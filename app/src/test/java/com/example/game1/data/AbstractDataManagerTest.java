@@ -0,0 +1,77 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of how AbstractDataManager tracks which users have unsaved changes.
+ */
+public class AbstractDataManagerTest {
+
+    private InMemoryDataManager dataManager;
+
+    @Before
+    public void setUp() {
+        dataManager = new InMemoryDataManager();
+    }
+
+    @Test
+    public void savedUserIsClean() {
+        User user = new User("player", "password");
+        dataManager.createUser(user);
+        assertFalse(user.isDirty());
+        assertEquals(1, dataManager.getLastSaveRecordCount());
+
+        // A user without changes is not saved again
+        dataManager.updateUser(user);
+        assertEquals(1, dataManager.getWrites());
+        assertEquals(0, dataManager.getLastSaveRecordCount());
+    }
+
+    @Test
+    public void failedSaveLeavesUserDirty() {
+        User user = new User("player", "password");
+        dataManager.setFailing(true);
+        dataManager.createUser(user);
+        assertTrue(user.isDirty());
+        assertEquals(0, dataManager.getLastSaveRecordCount());
+        assertEquals(0, dataManager.getRecordsWritten());
+
+        // The user is saved again by its next update, even though it did not change since
+        dataManager.setFailing(false);
+        dataManager.updateUser(user);
+        assertEquals(2, dataManager.getWrites());
+        assertFalse(user.isDirty());
+        assertEquals(1, dataManager.getRecordsWritten());
+    }
+
+    @Test
+    public void failedBatchSaveLeavesUsersDirty() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            users.add(new User("user" + i, "password"));
+        }
+        dataManager.setFailing(true);
+        dataManager.createUsers(users);
+        for (User user : users) {
+            assertTrue(user.isDirty());
+        }
+        assertEquals(0, dataManager.getRecordsWritten());
+    }
+
+    @Test
+    public void failedSaveStillChangesTheUsers() {
+        long before = dataManager.getModificationCount();
+        dataManager.setFailing(true);
+        dataManager.createUser(new User("player", "password"));
+        assertNotNull(dataManager.getUser("player"));
+        assertTrue(dataManager.getModificationCount() > before);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading the same users from the text format of FileDataManager and from the binary
+ * format of BinaryFileDataManager.
+ *
+ * <p>Run with {@code ./gradlew benchmark -Pbenchmarks=BinaryFileDataManagerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryFileDataManagerBenchmark {
+
+    @Param({"10000", "100000"})
+    private int users;
+
+    private File directory;
+    private File textFile;
+    private File binaryFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = TestUsers.newDirectory();
+        textFile = new File(directory, "game_data.txt");
+        binaryFile = new File(directory, "game_data.bin");
+        FileDataManager textDataManager = new FileDataManager(textFile, 1);
+        textDataManager.load();
+        List<User> newUsers = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            newUsers.add(TestUsers.newUser("user" + i, i));
+        }
+        textDataManager.createUsers(newUsers);
+        // The first load converts the text file into the binary one
+        new BinaryFileDataManager(binaryFile, textFile).load();
+    }
+
+    @TearDown
+    public void tearDown() {
+        TestUsers.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public User loadText() {
+        FileDataManager dataManager = new FileDataManager(textFile, 1);
+        dataManager.load();
+        return dataManager.getUser("user" + (users - 1));
+    }
+
+    @Benchmark
+    public User loadBinary() {
+        BinaryFileDataManager dataManager = new BinaryFileDataManager(binaryFile, textFile);
+        dataManager.load();
+        return dataManager.getUser("user" + (users - 1));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static com.example.game1.data.TestUsers.assertSameUser;
+import static com.example.game1.data.TestUsers.newUser;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of how BinaryFileDataManager converts the text file and survives torn writes.
+ */
+public class BinaryFileDataManagerTest {
+
+    /* The number of users in the text file */
+    private static final int USERS = 10;
+
+    /* The size of the file header */
+    private static final int HEADER_SIZE = 8;
+
+    private File directory;
+    private File textFile;
+    private File binaryFile;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = TestUsers.newDirectory();
+        textFile = new File(directory, "game_data.txt");
+        binaryFile = new File(directory, "game_data.bin");
+        FileDataManager textDataManager = new FileDataManager(textFile, 1);
+        textDataManager.load();
+        for (int i = 0; i < USERS; i++) {
+            textDataManager.createUser(newUser("user" + i, i));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        TestUsers.deleteDirectory(directory);
+    }
+
+    private BinaryFileDataManager load() {
+        BinaryFileDataManager dataManager = new BinaryFileDataManager(binaryFile, textFile);
+        dataManager.load();
+        return dataManager;
+    }
+
+    @Test
+    public void conversionKeepsEveryUser() {
+        BinaryFileDataManager converted = load();
+        assertTrue(converted.hasDataFile());
+        BinaryFileDataManager reopened = load();
+        for (int i = 0; i < USERS; i++) {
+            assertSameUser(newUser("user" + i, i), converted.getUser("user" + i));
+            assertSameUser(newUser("user" + i, i), reopened.getUser("user" + i));
+        }
+    }
+
+    @Test
+    public void conversionFailsRatherThanDropAUser() {
+        FileDataManager textDataManager = new FileDataManager(textFile, 1);
+        textDataManager.load();
+        String longName = "";
+        for (int i = 0; i < 7; i++) {
+            longName += "0123456789";
+        }
+        textDataManager.createUser(new User(longName, "password"));
+
+        BinaryFileDataManager dataManager = load();
+        assertFalse(dataManager.hasDataFile());
+        assertFalse(binaryFile.exists());
+        assertFalse(dataManager.canSave(new User(longName, "password")));
+        // The text file keeps every user for the text format to fall back to
+        assertNotNull(dataManager.getUser(longName));
+    }
+
+    @Test
+    public void savesSurviveAReopen() {
+        BinaryFileDataManager dataManager = load();
+        User newcomer = newUser("newcomer", USERS);
+        dataManager.createUser(newcomer);
+        for (int round = 1; round <= 3; round++) {
+            User user = dataManager.getUser("user3");
+            user.getStatsOfCurrentGame().setPoints(1000 * round);
+            dataManager.updateUser(user);
+        }
+
+        BinaryFileDataManager reopened = load();
+        assertSameUser(dataManager.getUser("user3"), reopened.getUser("user3"));
+        assertEquals(3000, reopened.getUser("user3").getStatsOfCurrentGame().getPoints());
+        assertSameUser(newcomer, reopened.getUser("newcomer"));
+    }
+
+    @Test
+    public void tornWriteFallsBackToTheOlderCopy() throws IOException {
+        BinaryFileDataManager dataManager = load();
+        User user = dataManager.getUser("user0");
+        user.getStatsOfCurrentGame().setPoints(1000);
+        dataManager.updateUser(user);
+        User saved = user.copy();
+        user.getStatsOfCurrentGame().setPoints(2000);
+        dataManager.updateUser(user);
+
+        // Tear the latest write of the user, whichever slot and copy it went to
+        BinaryFileDataManager reopened = load();
+        assertEquals(2000, reopened.getUser("user0").getStatsOfCurrentGame().getPoints());
+        assertTrue(corruptCopyHolding(2000));
+
+        reopened = load();
+        assertSameUser(saved, reopened.getUser("user0"));
+        for (int i = 1; i < USERS; i++) {
+            assertSameUser(newUser("user" + i, i), reopened.getUser("user" + i));
+        }
+    }
+
+    @Test
+    public void userWithoutAnIntactRecordIsDiscarded() throws IOException {
+        BinaryFileDataManager dataManager = load();
+        dataManager.createUser(newUser("newcomer", USERS));
+
+        // A crash in the middle of appending the newcomer's slot
+        try (RandomAccessFile file = new RandomAccessFile(binaryFile, "rw")) {
+            file.setLength(file.length() - 10);
+        }
+
+        BinaryFileDataManager reopened = load();
+        assertNull(reopened.getUser("newcomer"));
+        for (int i = 0; i < USERS; i++) {
+            assertSameUser(newUser("user" + i, i), reopened.getUser("user" + i));
+        }
+    }
+
+    /**
+     * Flips a byte in the middle of the record copy whose current game points are the given ones.
+     *
+     * @return true if such a copy was found
+     */
+    private boolean corruptCopyHolding(int points) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(binaryFile, "rw")) {
+            int record = BinaryFileDataManager.RECORD_SIZE;
+            // Current game points follow two 64-byte string fields, four bytes and six ints
+            int pointsOffset = 2 * 64 + 4 + 6 * 4;
+            for (long offset = HEADER_SIZE; offset + record <= file.length(); offset += record) {
+                file.seek(offset + pointsOffset);
+                if (file.readInt() == points) {
+                    file.seek(offset + pointsOffset);
+                    file.writeInt(points + 1);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long FileDataManager takes to save one user as the number of users grows. Each
+ * save appends a single record to the journal, so the time should stay flat, apart from the
+ * compactions that are spread over the saves.
+ *
+ * <p>Run with {@code ./gradlew benchmark -Pbenchmarks=FileDataManagerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FileDataManagerBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    private int users;
+
+    private final Random random = new Random(1);
+    private File directory;
+    private FileDataManager dataManager;
+    private List<User> savedUsers;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = TestUsers.newDirectory();
+        dataManager = new FileDataManager(new File(directory, FileDataManager.DATA_FILE), 1);
+        dataManager.load();
+        savedUsers = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            savedUsers.add(TestUsers.newUser("user" + i, i));
+        }
+        dataManager.createUsers(savedUsers);
+    }
+
+    @TearDown
+    public void tearDown() {
+        TestUsers.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public void saveOneUser() {
+        User user = savedUsers.get(random.nextInt(users));
+        user.getStatsOfCurrentGame().setPoints(random.nextInt(1000));
+        dataManager.updateUser(user);
+    }
+}
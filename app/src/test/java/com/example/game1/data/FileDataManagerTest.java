@@ -0,0 +1,174 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.game1.data.TestUsers.assertSameUser;
+import static com.example.game1.data.TestUsers.newUser;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of how FileDataManager appends records to its persistence file, replays them on load,
+ * and compacts the file.
+ */
+public class FileDataManagerTest {
+
+    /* The number of users in the persistence file */
+    private static final int USERS = 10;
+
+    private File directory;
+    private File dataFile;
+    private FileDataManager dataManager;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = TestUsers.newDirectory();
+        dataFile = new File(directory, FileDataManager.DATA_FILE);
+        dataManager = load();
+        for (int i = 0; i < USERS; i++) {
+            dataManager.createUser(newUser("user" + i, i));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        TestUsers.deleteDirectory(directory);
+    }
+
+    private FileDataManager load() {
+        FileDataManager loaded = new FileDataManager(dataFile, 1);
+        loaded.load();
+        return loaded;
+    }
+
+    private int countRecords() throws IOException {
+        String contents = new String(Files.readAllBytes(dataFile.toPath()), StandardCharsets.UTF_8);
+        int records = 0;
+        for (String line : contents.split("\n")) {
+            if (line.startsWith(FileDataManager.USERNAME + ":")) {
+                records++;
+            }
+        }
+        return records;
+    }
+
+    @Test
+    public void latestRecordOfEachUserWins() throws IOException {
+        User user = dataManager.getUser("user3");
+        user.getStatsOfCurrentGame().setPoints(500);
+        dataManager.updateUser(user);
+        user.setLastCompletedLevel(2);
+        dataManager.updateUser(user);
+        // Each save appends a record instead of rewriting the file
+        assertEquals(USERS + 2, countRecords());
+
+        FileDataManager reloaded = load();
+        assertEquals(USERS, reloaded.getUserCount());
+        assertSameUser(user, reloaded.getUser("user3"));
+        assertEquals(500, reloaded.getUser("user3").getTopIndividualStats().getPoints());
+        for (int i = 0; i < USERS; i++) {
+            if (i != 3) {
+                assertSameUser(newUser("user" + i, i), reloaded.getUser("user" + i));
+            }
+        }
+    }
+
+    @Test
+    public void tornRecordNeverOverridesAnEarlierOne() throws IOException {
+        User user = dataManager.getUser("user3");
+        user.setLastCompletedLevel(0);
+        dataManager.updateUser(user);
+        // Cut the appended record inside the value of its last field, before its line break
+        try (RandomAccessFile file = new RandomAccessFile(dataFile, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+
+        FileDataManager reloaded = load();
+        assertSameUser(newUser("user3", 3), reloaded.getUser("user3"));
+
+        // The next append starts on a new line, so the torn record does not swallow it
+        User other = reloaded.getUser("user4");
+        other.setLastCompletedLevel(1);
+        reloaded.updateUser(other);
+        FileDataManager again = load();
+        assertEquals(1, again.getUser("user4").getLastCompletedLevel());
+        assertEquals(3, again.getUser("user3").getLastCompletedLevel());
+    }
+
+    @Test
+    public void tornRecordOfANewUserIsStillLoaded() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(dataFile, true)) {
+            out.write((FileDataManager.USERNAME + ":newcomer\n"
+                    + FileDataManager.PASSWORD + ":secret\n"
+                    + FileDataManager.LAST_COMP_LVL + ":1").getBytes(StandardCharsets.UTF_8));
+        }
+        FileDataManager reloaded = load();
+        assertEquals(USERS + 1, reloaded.getUserCount());
+        assertEquals("secret", reloaded.getUser("newcomer").getPassword());
+    }
+
+    @Test
+    public void fileIsCompactedOnceMostRecordsAreSuperseded() throws IOException {
+        User user = dataManager.getUser("user0");
+        for (int i = 1; i <= 100; i++) {
+            user.getStatsOfCurrentGame().setPoints(i);
+            dataManager.updateUser(user);
+        }
+        // The file was compacted to one record per user along the way
+        assertTrue(countRecords() < USERS + 100);
+
+        FileDataManager reloaded = load();
+        assertEquals(USERS, reloaded.getUserCount());
+        assertEquals(100, reloaded.getUser("user0").getStatsOfCurrentGame().getPoints());
+        assertEquals(100, reloaded.getUser("user0").getTopIndividualStats().getPoints());
+
+        reloaded.compact();
+        assertEquals(USERS, countRecords());
+        assertSameUser(user, load().getUser("user0"));
+    }
+
+    @Test
+    public void parallelLoadAgreesWithASequentialOne() throws IOException {
+        // Enough records for the file to be split into chunks
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 18000; i++) {
+            users.add(newUser("player" + i, i));
+        }
+        dataManager.createUsers(users);
+        // Later records of the same users, spread over every chunk, override the earlier ones
+        List<User> updated = new ArrayList<>();
+        for (int i = 0; i < users.size(); i += 7) {
+            User user = users.get(i);
+            user.getStatsOfCurrentGame().setPoints(100000 + i);
+            updated.add(user);
+        }
+        dataManager.updateUsers(updated);
+        try (FileOutputStream out = new FileOutputStream(dataFile, true)) {
+            out.write((FileDataManager.USERNAME + ":player5\n").getBytes(StandardCharsets.UTF_8));
+        }
+        assertTrue(dataFile.length() >= 4 * 1024 * 1024);
+
+        FileDataManager sequential = load();
+        for (int parallelism : new int[]{2, 3, 8}) {
+            FileDataManager parallel = new FileDataManager(dataFile, parallelism);
+            parallel.load();
+            assertEquals(sequential.getUserCount(), parallel.getUserCount());
+            for (User user : users) {
+                assertSameUser(user, parallel.getUser(user.getUserName()));
+            }
+            assertSameUser(newUser("user3", 3), parallel.getUser("user3"));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the full ranking scales with the number of cores, against a single-threaded sort
+ * of the User objects. Arrays.parallelSort runs its tasks in the pool of the thread that calls it,
+ * so the ranking is built on a ForkJoinPool with the given number of threads.
+ *
+ * <p>Run with {@code ./gradlew benchmark -Pbenchmarks=FullRankingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FullRankingBenchmark {
+
+    /* Sorts users by score, as sortUsers did */
+    private static final Comparator<User> BY_SCORE = new Comparator<User>() {
+        @Override
+        public int compare(User a, User b) {
+            return Integer.compare(Criterion.SCORE.getValue(b), Criterion.SCORE.getValue(a));
+        }
+    };
+
+    @Param({"1000000"})
+    private int users;
+
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    private InMemoryDataManager dataManager;
+    private List<User> allUsers;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        dataManager = new InMemoryDataManager();
+        allUsers = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            User user = new User("user" + i, "password");
+            user.getStatsOfTopGame().setPoints(random.nextInt(100000));
+            allUsers.add(user);
+        }
+        dataManager.createUsers(allUsers);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * The single-threaded baseline, which does not depend on the number of threads.
+     */
+    @Benchmark
+    public List<User> sortUsers() {
+        List<User> sorted = new ArrayList<>(allUsers);
+        Collections.sort(sorted, BY_SCORE);
+        return sorted;
+    }
+
+    @Benchmark
+    public List<User> fullRanking() throws InterruptedException, ExecutionException {
+        return pool.submit(new Callable<List<User>>() {
+            @Override
+            public List<User> call() {
+                return dataManager.getFullRanking(Criterion.SCORE);
+            }
+        }).get();
+    }
+}
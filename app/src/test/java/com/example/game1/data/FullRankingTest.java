@@ -0,0 +1,103 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the full ranking of an AbstractDataManager against its leaderboards.
+ */
+public class FullRankingTest {
+
+    private InMemoryDataManager dataManager;
+
+    @Before
+    public void setUp() {
+        dataManager = new InMemoryDataManager();
+        // Added out of alphabetical order, with every value tied with at least one other user
+        String[] names = {"mallory", "bob", "trent", "alice", "eve", "carol", "dave", "oscar"};
+        for (int i = 0; i < names.length; i++) {
+            User user = new User(names[i], "password");
+            user.getTopIndividualStats().setPoints(10 * (i % 3));
+            dataManager.createUser(user);
+        }
+    }
+
+    @Test
+    public void tiesAreOrderedByUsername() {
+        List<User> ranking = dataManager.getFullRanking(Criterion.POINTS);
+        assertEquals(8, ranking.size());
+        for (int i = 1; i < ranking.size(); i++) {
+            User previous = ranking.get(i - 1);
+            User user = ranking.get(i);
+            int previousPoints = previous.getTopIndividualStats().getPoints();
+            int points = user.getTopIndividualStats().getPoints();
+            assertTrue(previousPoints >= points);
+            if (previousPoints == points) {
+                assertTrue(previous.getUserName().compareTo(user.getUserName()) < 0);
+            }
+        }
+    }
+
+    @Test
+    public void orderAgreesWithLeaderboards() {
+        for (Criterion criterion : Criterion.values()) {
+            List<User> ranking = dataManager.getFullRanking(criterion);
+            assertEquals(dataManager.topK(ranking.size(), criterion), ranking);
+            for (int i = 0; i < ranking.size(); i++) {
+                // A rank is one more than the number of users ahead with a higher value
+                int rank = dataManager.getRank(ranking.get(i).getUserName(), criterion);
+                assertTrue(rank <= i + 1);
+                assertEquals(criterion.getValue(ranking.get(rank - 1)),
+                        criterion.getValue(ranking.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void largeRankingAgreesWithASortOfTheUsers() {
+        dataManager = new InMemoryDataManager();
+        Random random = new Random(11);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            User user = new User("player" + random.nextInt(1000000), "password");
+            // Negative and extreme values have to survive being packed into a long
+            int points = random.nextInt(5) == 0 ? Integer.MIN_VALUE + random.nextInt(3)
+                    : random.nextInt(2000) - 1000;
+            user.getTopIndividualStats().setPoints(points);
+            dataManager.createUser(user);
+        }
+        users.addAll(dataManager.getFullRanking(Criterion.STARS));
+        Collections.sort(users, new Comparator<User>() {
+            @Override
+            public int compare(User a, User b) {
+                int pointsA = a.getTopIndividualStats().getPoints();
+                int pointsB = b.getTopIndividualStats().getPoints();
+                return pointsA != pointsB ? Integer.compare(pointsB, pointsA)
+                        : a.getUserName().compareTo(b.getUserName());
+            }
+        });
+
+        FullRanking ranking = (FullRanking) dataManager.getFullRanking(Criterion.POINTS);
+        assertEquals(users.size(), ranking.size());
+        for (int i = 0; i < users.size(); i++) {
+            assertSame(users.get(i), ranking.get(i));
+            assertEquals(users.get(i).getTopIndividualStats().getPoints(), ranking.getValue(i));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void positionPastTheEndIsRejected() {
+        List<User> ranking = dataManager.getFullRanking(Criterion.POINTS);
+        ranking.get(ranking.size());
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.Game;
+import com.example.game1.presentation.model.GameScore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of how GameLeaderboards rolls finished games up into daily and weekly buckets, and
+ * expires the buckets.
+ */
+public class GameLeaderboardsTest {
+
+    /* Runs the appends to the journal right away */
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable task) {
+            task.run();
+        }
+    };
+
+    private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+
+    private File directory;
+    private File rollupFile;
+    private GameLeaderboards leaderboards;
+
+    /* Noon of today, so that a few hours either way stay on the same day */
+    private long now;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = TestUsers.newDirectory();
+        rollupFile = new File(directory, "game_rollups.txt");
+        leaderboards = new GameLeaderboards(rollupFile, DIRECT);
+        long time = System.currentTimeMillis();
+        long localTime = time + TimeZone.getDefault().getOffset(time);
+        now = time - Math.floorMod(localTime, DAY_MS) + DAY_MS / 2;
+    }
+
+    @After
+    public void tearDown() {
+        TestUsers.deleteDirectory(directory);
+    }
+
+    private static Game finishedGame(Game.GameName name, int points) {
+        Game game = new Game(name);
+        game.getStatistics().setPoints(points);
+        return game;
+    }
+
+    private List<GameScore> topOfToday(GameLeaderboards gameLeaderboards, long timeMs) {
+        return gameLeaderboards.topK(Game.GameName.APPLE, GameLeaderboards.Period.DAY, 10, timeMs);
+    }
+
+    @Test
+    public void eachUserKeepsTheirBestScoreInABucket() {
+        leaderboards.recordGame("alice", finishedGame(Game.GameName.APPLE, 10), now);
+        leaderboards.recordGame("bob", finishedGame(Game.GameName.APPLE, 30), now);
+        leaderboards.recordGame("Alice", finishedGame(Game.GameName.APPLE, 50), now + 1000);
+        leaderboards.recordGame("alice", finishedGame(Game.GameName.APPLE, 20), now + 2000);
+        leaderboards.recordGame("carol", finishedGame(Game.GameName.BRICK, 99), now);
+
+        List<GameScore> top = topOfToday(leaderboards, now);
+        assertEquals(2, top.size());
+        assertEquals("Alice", top.get(0).getUserName());
+        assertEquals(50, top.get(0).getScore());
+        assertEquals("bob", top.get(1).getUserName());
+        assertEquals(1, leaderboards.topK(Game.GameName.APPLE, GameLeaderboards.Period.DAY, 1,
+                now).size());
+    }
+
+    @Test
+    public void bucketsExpireAfterTheirRetention() {
+        long lastWeek = now - 7 * DAY_MS;
+        leaderboards.recordGame("alice", finishedGame(Game.GameName.APPLE, 10), lastWeek);
+        assertEquals(1, topOfToday(leaderboards, lastWeek).size());
+        // Yesterday's bucket is not today's
+        assertTrue(topOfToday(leaderboards, lastWeek + DAY_MS).isEmpty());
+
+        leaderboards.recordGame("bob", finishedGame(Game.GameName.APPLE, 20), now);
+        // Seven daily buckets are kept, including today's, so last week's has expired
+        assertTrue(topOfToday(leaderboards, lastWeek).isEmpty());
+        List<GameScore> lastWeekly = leaderboards.topK(
+                Game.GameName.APPLE, GameLeaderboards.Period.WEEK, 10, lastWeek);
+        assertEquals(1, lastWeekly.size());
+        assertEquals("alice", lastWeekly.get(0).getUserName());
+
+        // Four weekly buckets are kept
+        leaderboards.recordGame("carol", finishedGame(Game.GameName.APPLE, 30),
+                now + 28 * DAY_MS);
+        assertTrue(leaderboards.topK(
+                Game.GameName.APPLE, GameLeaderboards.Period.WEEK, 10, lastWeek).isEmpty());
+    }
+
+    @Test
+    public void loadDropsTheGamesOfExpiredBuckets() throws IOException {
+        leaderboards.recordGame("alice", finishedGame(Game.GameName.APPLE, 10), now);
+        leaderboards.recordGame("bob", finishedGame(Game.GameName.TAPPING, 20),
+                now - 60 * DAY_MS);
+        Files.write(rollupFile.toPath(), "not a game\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        assertEquals(3, Files.readAllLines(rollupFile.toPath()).size());
+
+        GameLeaderboards reloaded = new GameLeaderboards(rollupFile, DIRECT);
+        List<GameScore> top = topOfToday(reloaded, now);
+        assertEquals(1, top.size());
+        assertEquals(10, top.get(0).getScore());
+        // The file is rewritten with only the games that were kept
+        assertEquals(1, Files.readAllLines(rollupFile.toPath()).size());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A data manager for tests that keeps users in memory only. It counts its writes and remembers
+ * the current points of each user it saved, and fails every save while failing is set.
+ */
+public class InMemoryDataManager extends AbstractDataManager {
+
+    /* The current points of each saved user, keyed by username */
+    private final Map<String, Integer> savedPoints = new HashMap<>();
+
+    /* Whether every save fails */
+    private volatile boolean failing;
+
+    /* The number of saves, counting a batch as one, and the number of users they saved */
+    private int writes;
+    private int records;
+
+    @Override
+    protected boolean saveUser(User user) {
+        writes++;
+        return save(user);
+    }
+
+    @Override
+    protected boolean saveUsers(Collection<User> users) {
+        writes++;
+        boolean saved = true;
+        for (User user : users) {
+            saved &= save(user);
+        }
+        return saved;
+    }
+
+    private boolean save(User user) {
+        if (failing) {
+            return false;
+        }
+        records++;
+        savedPoints.put(user.getUserName(), user.getStatsOfCurrentGame().getPoints());
+        return true;
+    }
+
+    /**
+     * Makes every save fail, or succeed again.
+     *
+     * @param failing whether every save fails
+     */
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    /**
+     * Returns the number of saves, counting a batch as one, including the ones that failed.
+     *
+     * @return the number of saves
+     */
+    public int getWrites() {
+        return writes;
+    }
+
+    /**
+     * Returns the number of users saved successfully.
+     *
+     * @return the number of saved users
+     */
+    public int getRecords() {
+        return records;
+    }
+
+    /**
+     * Returns the current points the user with the given username had when it was last saved.
+     *
+     * @param username the username of a User
+     * @return the saved points, or null if the user was never saved
+     */
+    public Integer getSavedPoints(String username) {
+        return savedPoints.get(username);
+    }
+
+    /**
+     * Returns the number of users saved at least once.
+     *
+     * @return the number of saved users
+     */
+    public int getSavedUserCount() {
+        return savedPoints.size();
+    }
+
+    /**
+     * Resets the counts of saves and saved users.
+     */
+    public void resetCounts() {
+        writes = 0;
+        records = 0;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static com.example.game1.data.TestUsers.assertSameUser;
+import static com.example.game1.data.TestUsers.newUser;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of how LazyFileDataManager loads users on demand from the index of its persistence file.
+ */
+public class LazyFileDataManagerTest {
+
+    /* The number of users in the persistence file */
+    private static final int USERS = 20;
+
+    private File directory;
+    private File dataFile;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = TestUsers.newDirectory();
+        dataFile = new File(directory, FileDataManager.DATA_FILE);
+        FileDataManager dataManager = new FileDataManager(dataFile, 1);
+        dataManager.load();
+        for (int i = 0; i < USERS; i++) {
+            dataManager.createUser(newUser("user" + i, i));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        TestUsers.deleteDirectory(directory);
+    }
+
+    private LazyFileDataManager load(int cacheSize) {
+        LazyFileDataManager dataManager = new LazyFileDataManager(dataFile, cacheSize);
+        dataManager.load();
+        return dataManager;
+    }
+
+    @Test
+    public void usersAreLoadedWhenLookedUp() {
+        LazyFileDataManager dataManager = load(4);
+        for (int i = 0; i < USERS; i++) {
+            assertSameUser(newUser("user" + i, i), dataManager.getUser("user" + i));
+        }
+        assertNull(dataManager.getUser("nobody"));
+    }
+
+    @Test
+    public void evictedUserKeepsItsChanges() {
+        LazyFileDataManager dataManager = load(2);
+        User user = dataManager.getUser("user0");
+        user.getStatsOfCurrentGame().setPoints(1000);
+        dataManager.updateUser(user);
+
+        // Looking up more users than the cache holds evicts user0
+        for (int i = 1; i < USERS; i++) {
+            dataManager.getUser("user" + i);
+        }
+        User reloaded = dataManager.getUser("user0");
+        assertNotSame(user, reloaded);
+        assertSameUser(user, reloaded);
+        assertEquals(1000, reloaded.getTopIndividualStats().getPoints());
+    }
+
+    @Test
+    public void rankingsAgreeWithTheEagerDataManager() {
+        LazyFileDataManager lazy = load(1);
+        FileDataManager eager = new FileDataManager(dataFile, 1);
+        eager.load();
+        for (Criterion criterion : Criterion.values()) {
+            assertSameUsers(eager.topK(5, criterion), lazy.topK(5, criterion));
+            assertSameUsers(eager.getFullRanking(criterion), lazy.getFullRanking(criterion));
+            assertEquals(eager.getRank("user7", criterion), lazy.getRank("user7", criterion));
+        }
+    }
+
+    @Test
+    public void compactionKeepsTheLatestRecordOfEveryUser() {
+        LazyFileDataManager dataManager = load(4);
+        long initialLength = dataFile.length();
+        // Enough updates for the superseded records to be compacted away
+        for (int round = 1; round <= 10; round++) {
+            for (int i = 0; i < USERS; i++) {
+                User user = dataManager.getUser("user" + i);
+                user.getStatsOfCurrentGame().setPoints(1000 * round + i);
+                dataManager.updateUser(user);
+            }
+        }
+        assertTrue(dataFile.length() < 10 * initialLength);
+
+        LazyFileDataManager reopened = load(4);
+        for (int i = 0; i < USERS; i++) {
+            User user = reopened.getUser("user" + i);
+            assertEquals(10000 + i, user.getStatsOfCurrentGame().getPoints());
+            assertSameUser(dataManager.getUser("user" + i), user);
+        }
+    }
+
+    @Test
+    public void tornRecordIsCutOffBeforeTheNextAppend() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(dataFile, true)) {
+            out.write((FileDataManager.USERNAME + ":newcomer\n"
+                    + FileDataManager.PASSWORD + ":secret\n"
+                    + FileDataManager.LAST_COMP_LVL + ":1").getBytes(StandardCharsets.UTF_8));
+        }
+        LazyFileDataManager dataManager = load(1);
+        User user = dataManager.getUser("user0");
+        user.getStatsOfCurrentGame().setPoints(1000);
+        dataManager.updateUser(user);
+
+        // The cache only holds user0, so newcomer is read again from what is left of its record
+        User newcomer = dataManager.getUser("newcomer");
+        assertEquals("secret", newcomer.getPassword());
+        assertEquals(0, newcomer.getLastCompletedLevel());
+        assertEquals(1000, load(1).getUser("user0").getStatsOfCurrentGame().getPoints());
+    }
+
+    @Test
+    public void loadingAgainReplacesTheIndex() {
+        LazyFileDataManager dataManager = load(4);
+        dataManager.createUser(newUser("newcomer", USERS));
+        assertEquals(USERS + 1, dataManager.getFullRanking(Criterion.SCORE).size());
+
+        TestUsers.deleteDirectory(directory);
+        dataManager.load();
+        assertNull(dataManager.getUser("user0"));
+        assertEquals(0, dataManager.getFullRanking(Criterion.SCORE).size());
+    }
+
+    /**
+     * Asserts that the given lists hold users with the same usernames in the same order.
+     */
+    private static void assertSameUsers(List<User> expected, List<User> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getUserName(), actual.get(i).getUserName());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.game1.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the rank, neighborhood and page queries of a LeaderboardIndex against a sort of every
+ * user.
+ */
+public class LeaderboardIndexTest {
+
+    /* The number of users in the index, and the range of their values, which makes ties common */
+    private static final int USERS = 300;
+    private static final int VALUES = 50;
+
+    private LeaderboardIndex index;
+    private Map<String, int[]> values;
+    private Random random;
+
+    @Before
+    public void setUp() {
+        index = new LeaderboardIndex();
+        values = new HashMap<>();
+        random = new Random(7);
+        for (int i = 0; i < USERS; i++) {
+            put("user" + i);
+        }
+    }
+
+    private void put(String key) {
+        int[] userValues = new int[Criterion.values().length];
+        for (int c = 0; c < userValues.length; c++) {
+            userValues[c] = random.nextInt(VALUES);
+        }
+        values.put(key, userValues);
+        index.update(key, userValues.clone());
+    }
+
+    /**
+     * Returns the keys sorted by the given criterion, highest value first and ties by username.
+     */
+    private List<String> sortedKeys(final Criterion criterion) {
+        List<String> keys = new ArrayList<>(values.keySet());
+        Collections.sort(keys, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                int valueA = values.get(a)[criterion.ordinal()];
+                int valueB = values.get(b)[criterion.ordinal()];
+                return valueA != valueB ? Integer.compare(valueB, valueA) : a.compareTo(b);
+            }
+        });
+        return keys;
+    }
+
+    private void assertAgreesWithASort() {
+        for (Criterion criterion : Criterion.values()) {
+            List<String> sorted = sortedKeys(criterion);
+            assertEquals(sorted, index.keysInRange(criterion, 0, sorted.size()));
+            assertEquals(sorted.subList(0, 10), index.topKeys(10, criterion));
+            for (int position = 0; position < sorted.size(); position++) {
+                String key = sorted.get(position);
+                int value = values.get(key)[criterion.ordinal()];
+                assertEquals(position, index.positionOf(key, criterion));
+                // Tied users share the rank of the first of them
+                int firstTied = position;
+                while (firstTied > 0
+                        && values.get(sorted.get(firstTied - 1))[criterion.ordinal()] == value) {
+                    firstTied--;
+                }
+                assertEquals(firstTied + 1, index.rank(key, criterion));
+                assertEquals(firstTied, index.countHigherThan(value, criterion));
+            }
+        }
+    }
+
+    @Test
+    public void queriesAgreeWithASortAsUsersMove() {
+        assertAgreesWithASort();
+        for (int i = 0; i < 100; i++) {
+            put("user" + random.nextInt(USERS));
+        }
+        put("newcomer");
+        assertAgreesWithASort();
+        assertEquals(USERS + 1, index.size());
+        assertEquals(0, index.rank("nobody", Criterion.SCORE));
+        assertEquals(-1, index.positionOf("nobody", Criterion.SCORE));
+    }
+
+    @Test
+    public void indexBuiltAfterItsUpdatesAgreesWithASort() {
+        index.clear();
+        for (Map.Entry<String, int[]> user : values.entrySet()) {
+            index.update(user.getKey(), user.getValue().clone());
+        }
+        assertFalse(index.isBuilt());
+        assertAgreesWithASort();
+        assertTrue(index.isBuilt());
+    }
+
+    @Test
+    public void neighborhoodIsClippedToTheLeaderboard() {
+        Criterion criterion = Criterion.POINTS;
+        List<String> sorted = sortedKeys(criterion);
+        String top = sorted.get(0);
+        int position = index.positionOf(top, criterion);
+        assertEquals(sorted.subList(0, 3),
+                index.keysInRange(criterion, position - 2, position + 3));
+        String last = sorted.get(USERS - 1);
+        position = index.positionOf(last, criterion);
+        assertEquals(sorted.subList(USERS - 3, USERS),
+                index.keysInRange(criterion, position - 2, position + 3));
+        assertTrue(index.keysInRange(criterion, USERS, USERS + 5).isEmpty());
+    }
+
+    @Test
+    public void pagesCoverEveryUserOnceAndResumeAfterMoves() {
+        Criterion criterion = Criterion.STARS;
+        List<String> sorted = sortedKeys(criterion);
+        List<String> paged = new ArrayList<>();
+        LeaderboardIndex.Entry after = null;
+        while (true) {
+            List<LeaderboardIndex.Entry> page = index.entriesAfter(criterion, after, 32);
+            if (page.isEmpty()) {
+                break;
+            }
+            for (LeaderboardIndex.Entry entry : page) {
+                paged.add(entry.key);
+            }
+            // Going through a cursor, as a client would
+            after = LeaderboardIndex.decodeCursor(
+                    LeaderboardIndex.encodeCursor(page.get(page.size() - 1)));
+        }
+        assertEquals(sorted, paged);
+
+        // The user a cursor points at moves to the top, and the next page still starts below
+        // where it used to be
+        LeaderboardIndex.Entry first = index.entriesAfter(criterion, null, 10).get(9);
+        String cursor = LeaderboardIndex.encodeCursor(first);
+        int[] moved = values.get(first.key);
+        moved[criterion.ordinal()] = VALUES * 2;
+        index.update(first.key, moved.clone());
+        List<LeaderboardIndex.Entry> next =
+                index.entriesAfter(criterion, LeaderboardIndex.decodeCursor(cursor), 5);
+        for (int i = 0; i < next.size(); i++) {
+            assertEquals(sorted.get(10 + i), next.get(i).key);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void malformedCursorIsRejected() {
+        LeaderboardIndex.decodeCursor("not a cursor");
+    }
+
+    @Test
+    public void indexReadBackAgreesWithTheOriginal() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            index.writeTo(out);
+        }
+        index = new LeaderboardIndex();
+        try (DataInputStream in =
+                     new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            index.readFrom(in);
+        }
+        assertEquals(USERS, index.size());
+        assertAgreesWithASort();
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import static com.example.game1.data.TestUsers.newUser;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of how a LeaderboardSnapshot is stamped with the generation of its persistence file, and
+ * of how the warm-up replays what the loaded leaderboards miss.
+ */
+public class LeaderboardSnapshotTest {
+
+    /* The number of users in the persistence file */
+    private static final int USERS = 30;
+
+    private File directory;
+    private File dataFile;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = TestUsers.newDirectory();
+        dataFile = new File(directory, FileDataManager.DATA_FILE);
+        FileDataManager dataManager = new FileDataManager(dataFile, 1);
+        dataManager.load();
+        for (int i = 0; i < USERS; i++) {
+            dataManager.createUser(newUser("user" + i, i));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        TestUsers.deleteDirectory(directory);
+    }
+
+    private FileDataManager load() {
+        FileDataManager dataManager = new FileDataManager(dataFile, 1);
+        dataManager.load();
+        return dataManager;
+    }
+
+    private long readSnapshot(LeaderboardIndex index) throws IOException {
+        ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(dataFile.toPath()));
+        return LeaderboardSnapshot.read(dataFile, contents, index);
+    }
+
+    @Test
+    public void snapshotOnlyMatchesTheFileItWasTakenOf() throws IOException {
+        FileDataManager dataManager = load();
+        LeaderboardIndex index = new LeaderboardIndex();
+        for (int i = 0; i < USERS; i++) {
+            index.update(dataManager.getUser("user" + i));
+        }
+        LeaderboardSnapshot.write(dataFile, index);
+        long length = dataFile.length();
+
+        LeaderboardIndex loaded = new LeaderboardIndex();
+        assertEquals(length, readSnapshot(loaded));
+        assertEquals(USERS, loaded.size());
+        assertEquals(index.rank("user7", Criterion.SCORE), loaded.rank("user7", Criterion.SCORE));
+
+        // Records appended to the journal leave the covered prefix intact
+        try (FileOutputStream out = new FileOutputStream(dataFile, true)) {
+            out.write("UserName:someone\n".getBytes("UTF-8"));
+        }
+        assertEquals(length, readSnapshot(new LeaderboardIndex()));
+
+        // Any change to the covered prefix starts a new generation
+        try (RandomAccessFile file = new RandomAccessFile(dataFile, "rw")) {
+            file.seek(length / 2);
+            int b = file.read();
+            file.seek(length / 2);
+            file.write(b ^ 1);
+        }
+        LeaderboardIndex stale = new LeaderboardIndex();
+        assertEquals(-1, readSnapshot(stale));
+        assertEquals(0, stale.size());
+    }
+
+    @Test
+    public void warmUpReplaysTheRecordsAppendedSinceTheSnapshot() {
+        FileDataManager dataManager = load();
+        dataManager.warmUp();
+        assertTrue(new File(dataFile.getPath() + ".leaderboards").exists());
+
+        // Move the lowest ranked user to the top after the snapshot was taken
+        User user = dataManager.getUser("user0");
+        user.getTopIndividualStats().setPoints(100000);
+        dataManager.updateUser(user);
+
+        FileDataManager reopened = load();
+        reopened.warmUp();
+        assertEquals(1, reopened.getRank("user0", Criterion.POINTS));
+        for (int i = 1; i < USERS; i++) {
+            assertEquals(USERS - i + 1, reopened.getRank("user" + i, Criterion.POINTS));
+        }
+    }
+
+    @Test
+    public void compactionStartsANewGeneration() {
+        FileDataManager dataManager = load();
+        dataManager.warmUp();
+        dataManager.compact();
+        FileDataManager reopened = load();
+        LeaderboardIndex index = new LeaderboardIndex();
+        index.clear();
+        // Compacting saves a snapshot of the new file right away
+        assertTrue(reopened.loadLeaderboards(index));
+        assertEquals(USERS, index.size());
+    }
+
+    @Test
+    public void warmUpReindexesUsersTheLoadedLeaderboardsMiss() {
+        final User stale = newUser("stale", 1);
+        final User changed = newUser("changed", 2);
+        final InMemoryDataManager dataManager = new InMemoryDataManager() {
+            @Override
+            protected boolean loadLeaderboards(LeaderboardIndex index) {
+                // A snapshot that misses the failed save of stale, while changed is updated
+                // during the warm-up
+                index.update(newUser("stale", 1));
+                index.update(newUser("changed", 2));
+                changed.getTopIndividualStats().setPoints(5000);
+                updateUser(changed);
+                return true;
+            }
+        };
+        dataManager.createUser(changed);
+        dataManager.setFailing(true);
+        stale.getTopIndividualStats().setPoints(1000);
+        dataManager.createUser(stale);
+        dataManager.setFailing(false);
+        // As after a load, so that the warm-up has something to do
+        dataManager.invalidateLeaderboards();
+
+        dataManager.warmUp();
+        assertEquals(1, dataManager.getRank("changed", Criterion.POINTS));
+        assertEquals(2, dataManager.getRank("stale", Criterion.POINTS));
+    }
+}
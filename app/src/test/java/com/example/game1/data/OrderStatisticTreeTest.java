@@ -0,0 +1,71 @@
+package com.example.game1.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the positional queries of an OrderStatisticTree against a TreeSet.
+ */
+public class OrderStatisticTreeTest {
+
+    @Test
+    public void randomAddsAndRemovesAgreeWithATreeSet() {
+        Random random = new Random(42);
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 5000; i++) {
+            int element = random.nextInt(1000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(element), tree.remove(element));
+            } else {
+                assertEquals(expected.add(element), tree.add(element));
+            }
+            assertEquals(expected.size(), tree.size());
+            int probe = random.nextInt(1100) - 50;
+            assertEquals(expected.headSet(probe).size(), tree.rank(probe));
+        }
+        assertEquals(new ArrayList<>(expected), tree.toList());
+        int position = 0;
+        for (int element : expected) {
+            assertEquals(element, (int) tree.get(position));
+            assertEquals(position, tree.rank(element));
+            position++;
+        }
+    }
+
+    @Test
+    public void treeBuiltFromSortedElementsStaysUsable() {
+        List<Integer> elements = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            elements.add(2 * i);
+        }
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>();
+        tree.buildFromSorted(elements);
+        assertEquals(1000, tree.size());
+        assertEquals(elements, tree.toList());
+        assertEquals(500, tree.rank(999));
+
+        assertTrue(tree.add(999));
+        assertFalse(tree.add(998));
+        assertTrue(tree.remove(0));
+        assertEquals(999, (int) tree.get(499));
+        assertEquals(1000, tree.size());
+
+        tree.clear();
+        assertEquals(0, tree.size());
+        assertTrue(tree.toList().isEmpty());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void positionPastTheEndIsRejected() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>();
+        tree.add(1);
+        tree.get(1);
+    }
+}
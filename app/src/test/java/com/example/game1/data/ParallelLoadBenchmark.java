@@ -0,0 +1,80 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how FileDataManager's load scales with the number of threads that parse the
+ * persistence file, on a synthetic file of a few million records. Each user has two records, so
+ * the merge of the chunks has superseded records to resolve as well.
+ *
+ * <p>Run with {@code ./gradlew benchmark -Pbenchmarks=ParallelLoadBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class ParallelLoadBenchmark {
+
+    /* The number of users, each of which has two records in the file */
+    private static final int USERS = 1000000;
+
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    private File directory;
+    private File dataFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = TestUsers.newDirectory();
+        dataFile = new File(directory, FileDataManager.DATA_FILE);
+        FileDataManager dataManager = new FileDataManager(dataFile, 1);
+        dataManager.load();
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(TestUsers.newUser("user" + i, i));
+        }
+        dataManager.createUsers(users);
+        // One more record per user, which leaves the file just short of being compacted
+        for (int from = 0; from < USERS; from += USERS / 10) {
+            List<User> batch = users.subList(from, Math.min(USERS, from + USERS / 10));
+            for (User user : batch) {
+                user.setLastCompletedLevel(user.getLastCompletedLevel() + 1);
+            }
+            dataManager.updateUsers(batch);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        TestUsers.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public User load() {
+        FileDataManager dataManager = new FileDataManager(dataFile, threads);
+        dataManager.load();
+        return dataManager.getUser("user0");
+    }
+}
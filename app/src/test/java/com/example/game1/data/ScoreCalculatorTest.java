@@ -0,0 +1,60 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of how the scores cached on a User are kept up to date with the user's statistics.
+ */
+public class ScoreCalculatorTest {
+
+    @Test
+    public void cachedScoresFollowEveryStatistic() {
+        User user = TestUsers.newUser("alice", 1);
+        assertEquals(User.NO_CACHED_SCORE, user.getCachedTopScore());
+        assertEquals(14 + 15 + 16, ScoreCalculator.calculateTopScore(user));
+        assertEquals(17 + 18 + 19, ScoreCalculator.calculateCurrentScore(user));
+        assertEquals(14 + 15 + 16, user.getCachedTopScore());
+        assertEquals(17 + 18 + 19, user.getCachedCurrentScore());
+
+        user.getStatsOfTopGame().setPoints(100);
+        assertEquals(User.NO_CACHED_SCORE, user.getCachedTopScore());
+        assertEquals(100 + 15 + 16, ScoreCalculator.calculateTopScore(user));
+        user.getStatsOfTopGame().setStars(200);
+        assertEquals(100 + 200 + 16, ScoreCalculator.calculateTopScore(user));
+        user.getStatsOfTopGame().setTaps(300);
+        assertEquals(600, ScoreCalculator.calculateTopScore(user));
+
+        // A change to any of the statistics invalidates both scores
+        user.getTopIndividualStats().setTaps(1);
+        assertEquals(User.NO_CACHED_SCORE, user.getCachedCurrentScore());
+        user.getStatsOfCurrentGame().setPoints(0);
+        user.getStatsOfCurrentGame().setStars(0);
+        user.getStatsOfCurrentGame().setTaps(5);
+        assertEquals(5, ScoreCalculator.calculateCurrentScore(user));
+        assertEquals(600, ScoreCalculator.calculateTopScore(user));
+    }
+
+    @Test
+    public void scoreComputedBeforeAChangeIsNotCached() {
+        User user = TestUsers.newUser("bob", 2);
+        int statsVersion = user.getStatsVersion();
+        int staleScore = ScoreCalculator.calculateScore(24, 25, 26);
+        // The statistics change while the score is being computed
+        user.getStatsOfTopGame().setPoints(1000);
+        user.cacheTopScore(staleScore, statsVersion);
+        assertEquals(User.NO_CACHED_SCORE, user.getCachedTopScore());
+        assertEquals(1000 + 25 + 26, ScoreCalculator.calculateTopScore(user));
+    }
+
+    @Test
+    public void scoreCriterionReadsTheCachedScore() {
+        User user = TestUsers.newUser("carol", 3);
+        assertEquals(ScoreCalculator.calculateTopScore(user), Criterion.SCORE.getValue(user));
+        user.getStatsOfTopGame().setPoints(0);
+        assertEquals(35 + 36, Criterion.SCORE.getValue(user));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.game1.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the counts of a ScoreHistogram against the exact counts, within its error bound.
+ */
+public class ScoreHistogramTest {
+
+    /* The relative width of a bucket, 1/32 */
+    private static final double BUCKET_WIDTH = 1.0 / 32;
+
+    /**
+     * Returns the number of the given sorted values that are at least from and less than to.
+     */
+    private static int countInRange(int[] sorted, long from, long to) {
+        int count = 0;
+        for (int value : sorted) {
+            if (value >= from && value < to) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void bucketsAreOrderedAndCoverEveryInt() {
+        int previous = ScoreHistogram.bucketOf(Integer.MIN_VALUE);
+        assertEquals(0, previous);
+        assertEquals(0, ScoreHistogram.bucketOf(-1));
+        for (long value = 0; value <= Integer.MAX_VALUE; value += 1 + value / 97) {
+            int bucket = ScoreHistogram.bucketOf((int) value);
+            assertTrue(bucket >= previous);
+            previous = bucket;
+        }
+        assertEquals(ScoreHistogram.BUCKET_COUNT - 1,
+                ScoreHistogram.bucketOf(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void countsStayWithinTheErrorBound() {
+        Random random = new Random(13);
+        int[] values = new int[5000];
+        ScoreHistogram histogram = new ScoreHistogram();
+        for (int i = 0; i < values.length; i++) {
+            // Small values, which are counted exactly, and values spread over every magnitude
+            values[i] = i % 3 == 0 ? random.nextInt(32)
+                    : random.nextInt() >>> 1 + random.nextInt(31);
+            histogram.add(values[i]);
+        }
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        assertEquals(values.length, histogram.size());
+
+        for (int i = 0; i < 2000; i++) {
+            int value = i < 40 ? i : values[random.nextInt(values.length)] + random.nextInt(5);
+            int exact = countInRange(sorted, Integer.MIN_VALUE, value);
+            int counted = histogram.countBelow(value);
+            assertTrue(counted <= exact);
+            if (value < 32) {
+                assertEquals(exact, counted);
+            } else {
+                // Only the values within a bucket's width below the value can be missed
+                long lowest = (long) Math.floor(value * (1 - BUCKET_WIDTH));
+                assertTrue(exact - counted <= countInRange(sorted, lowest, value));
+            }
+        }
+    }
+
+    @Test
+    public void removingValuesUndoesAddingThem() {
+        ScoreHistogram histogram = new ScoreHistogram();
+        histogram.add(5);
+        histogram.add(1000);
+        histogram.add(-20);
+        histogram.add(1000000);
+        assertEquals(1, histogram.countBelow(5));
+        // The negative value is counted as 0
+        assertEquals(4, histogram.countBelow(2000000));
+
+        histogram.remove(1000);
+        histogram.remove(-20);
+        assertEquals(2, histogram.size());
+        assertEquals(0, histogram.countBelow(5));
+        assertEquals(1, histogram.countBelow(999999));
+
+        histogram.clear();
+        assertEquals(0, histogram.size());
+        assertEquals(0, histogram.countBelow(Integer.MAX_VALUE));
+    }
+}
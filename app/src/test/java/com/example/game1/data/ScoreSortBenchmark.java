@@ -0,0 +1,91 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares sorting users by score when each comparison computes both scores from the users'
+ * statistics, as a comparator did before scores were cached, and when it reads the scores cached
+ * on the users.
+ *
+ * <p>Run with {@code ./gradlew benchmark -Pbenchmarks=ScoreSortBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoreSortBenchmark {
+
+    /* Computes both scores on every comparison */
+    private static final Comparator<User> RECOMPUTED = new Comparator<User>() {
+        @Override
+        public int compare(User a, User b) {
+            return Integer.compare(
+                    ScoreCalculator.calculateScore(a.getStatsOfTopGame().getPoints(),
+                            a.getStatsOfTopGame().getStars(), a.getStatsOfTopGame().getTaps()),
+                    ScoreCalculator.calculateScore(b.getStatsOfTopGame().getPoints(),
+                            b.getStatsOfTopGame().getStars(), b.getStatsOfTopGame().getTaps()));
+        }
+    };
+
+    /* Reads both scores off the users */
+    private static final Comparator<User> CACHED = new Comparator<User>() {
+        @Override
+        public int compare(User a, User b) {
+            return Integer.compare(ScoreCalculator.calculateTopScore(a),
+                    ScoreCalculator.calculateTopScore(b));
+        }
+    };
+
+    @Param({"100000", "1000000"})
+    private int users;
+
+    private List<User> shuffled;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        shuffled = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            User user = new User("user" + i, "password");
+            user.getStatsOfTopGame().setPoints(random.nextInt(10000));
+            user.getStatsOfTopGame().setStars(random.nextInt(100));
+            user.getStatsOfTopGame().setTaps(random.nextInt(1000));
+            shuffled.add(user);
+        }
+    }
+
+    @Benchmark
+    public List<User> sortRecomputingScores() {
+        List<User> sorted = new ArrayList<>(shuffled);
+        Collections.sort(sorted, RECOMPUTED);
+        return sorted;
+    }
+
+    @Benchmark
+    public List<User> sortReadingCachedScores() {
+        List<User> sorted = new ArrayList<>(shuffled);
+        Collections.sort(sorted, CACHED);
+        return sorted;
+    }
+}
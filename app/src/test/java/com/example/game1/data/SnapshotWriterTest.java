@@ -0,0 +1,98 @@
+package com.example.game1.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of how a SnapshotWriter replaces its target file, and leaves it untouched when a snapshot
+ * does not complete.
+ */
+public class SnapshotWriterTest {
+
+    private File directory;
+    private File target;
+    private File temp;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = TestUsers.newDirectory();
+        target = new File(directory, "target.txt");
+        temp = new File(target.getPath() + ".tmp");
+        Files.write(target.toPath(), "old".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void tearDown() {
+        TestUsers.deleteDirectory(directory);
+    }
+
+    private String readTarget() throws IOException {
+        return new String(Files.readAllBytes(target.toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void committedSnapshotReplacesTheTarget() throws IOException {
+        for (SnapshotWriter.DurabilityPolicy policy : SnapshotWriter.DurabilityPolicy.values()) {
+            // More than one buffer's worth, written a byte and a block at a time
+            byte[] block = new byte[100 * 1024];
+            for (int i = 0; i < block.length; i++) {
+                block[i] = (byte) ('a' + i % 26);
+            }
+            try (SnapshotWriter snapshot = new SnapshotWriter(target, policy)) {
+                snapshot.write('>');
+                snapshot.write(block, 0, block.length);
+                snapshot.commit();
+                assertTrue(snapshot.getBytesPerWrite() > 1);
+            }
+            byte[] contents = Files.readAllBytes(target.toPath());
+            assertEquals(block.length + 1, contents.length);
+            assertEquals('>', contents[0]);
+            assertEquals(block[block.length - 1], contents[contents.length - 1]);
+            assertFalse(temp.exists());
+        }
+    }
+
+    @Test
+    public void uncommittedSnapshotLeavesTheTargetAsItWas() throws IOException {
+        try (SnapshotWriter snapshot =
+                     new SnapshotWriter(target, SnapshotWriter.DurabilityPolicy.DATA)) {
+            snapshot.write("new".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals("old", readTarget());
+        assertFalse(temp.exists());
+    }
+
+    @Test
+    public void recoveryDeletesTheLeftoverOfACrashedSnapshot() throws IOException {
+        // A crash before the rename leaves a partly written temporary file behind
+        Files.write(temp.toPath(), "ne".getBytes(StandardCharsets.UTF_8));
+        assertTrue(SnapshotWriter.recover(target));
+        assertFalse(temp.exists());
+        assertEquals("old", readTarget());
+        assertFalse(SnapshotWriter.recover(target));
+    }
+
+    @Test
+    public void dataManagerRecoversFromACrashedCompaction() throws IOException {
+        File dataFile = new File(directory, FileDataManager.DATA_FILE);
+        FileDataManager dataManager = new FileDataManager(dataFile, 1);
+        dataManager.load();
+        dataManager.createUser(TestUsers.newUser("alice", 1));
+        File leftover = new File(dataFile.getPath() + ".tmp");
+        Files.write(leftover.toPath(), "UserName:mallory\n".getBytes(StandardCharsets.UTF_8));
+
+        FileDataManager reloaded = new FileDataManager(dataFile, 1);
+        reloaded.load();
+        assertFalse(leftover.exists());
+        assertEquals(1, reloaded.getUserCount());
+        TestUsers.assertSameUser(TestUsers.newUser("alice", 1), reloaded.getUser("alice"));
+    }
+}
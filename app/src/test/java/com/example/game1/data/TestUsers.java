@@ -0,0 +1,91 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.Customization;
+import com.example.game1.presentation.model.Statistics;
+import com.example.game1.presentation.model.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Users and files shared by the tests of the data managers.
+ */
+final class TestUsers {
+
+    private TestUsers() {
+    }
+
+    /**
+     * Returns a new user whose every statistic and customization choice is derived from the given
+     * seed, so that users with different seeds differ in every field.
+     */
+    static User newUser(String username, int seed) {
+        User user = new User(username, "password" + seed);
+        Customization customization = user.getCustomization();
+        Customization.CharacterColour[] colours = Customization.CharacterColour.values();
+        customization.setCharacterColour(colours[seed % colours.length]);
+        Customization.ColourScheme[] schemes = Customization.ColourScheme.values();
+        customization.setColourScheme(schemes[seed % schemes.length]);
+        Customization.MusicPath[] songs = Customization.MusicPath.values();
+        customization.setMusicPath(songs[seed % songs.length]);
+        user.getTopIndividualStats().setPoints(10 * seed + 1);
+        user.getTopIndividualStats().setStars(10 * seed + 2);
+        user.getTopIndividualStats().setTaps(10 * seed + 3);
+        user.getStatsOfTopGame().setPoints(10 * seed + 4);
+        user.getStatsOfTopGame().setStars(10 * seed + 5);
+        user.getStatsOfTopGame().setTaps(10 * seed + 6);
+        user.getStatsOfCurrentGame().setPoints(10 * seed + 7);
+        user.getStatsOfCurrentGame().setStars(10 * seed + 8);
+        user.getStatsOfCurrentGame().setTaps(10 * seed + 9);
+        user.setLastCompletedLevel(seed % 4);
+        return user;
+    }
+
+    /**
+     * Asserts that the given users have the same username, password, customization and
+     * statistics.
+     */
+    static void assertSameUser(User expected, User actual) {
+        assertEquals(expected.getUserName(), actual.getUserName());
+        assertEquals(expected.getPassword(), actual.getPassword());
+        assertEquals(expected.getCustomization().getCharacterColour(),
+                actual.getCustomization().getCharacterColour());
+        assertEquals(expected.getCustomization().getColourScheme(),
+                actual.getCustomization().getColourScheme());
+        assertEquals(expected.getCustomization().getMusicPath(),
+                actual.getCustomization().getMusicPath());
+        assertSameStats(expected.getTopIndividualStats(), actual.getTopIndividualStats());
+        assertSameStats(expected.getStatsOfTopGame(), actual.getStatsOfTopGame());
+        assertSameStats(expected.getStatsOfCurrentGame(), actual.getStatsOfCurrentGame());
+        assertEquals(expected.getLastCompletedLevel(), actual.getLastCompletedLevel());
+    }
+
+    private static void assertSameStats(Statistics expected, Statistics actual) {
+        assertEquals(expected.getPoints(), actual.getPoints());
+        assertEquals(expected.getStars(), actual.getStars());
+        assertEquals(expected.getTaps(), actual.getTaps());
+    }
+
+    /**
+     * Returns a new empty temporary directory for a test to keep its persistence files in.
+     */
+    static File newDirectory() throws IOException {
+        return Files.createTempDirectory("game_data").toFile();
+    }
+
+    /**
+     * Deletes the given temporary directory along with the files in it.
+     */
+    static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+}
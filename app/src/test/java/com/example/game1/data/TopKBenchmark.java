@@ -0,0 +1,80 @@
+package com.example.game1.data;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways of finding the top users under a criterion: sorting every user, as the
+ * scoreboard used to, selecting them with a bounded heap in one pass, as topK does while the
+ * leaderboards are not built, and reading them off the built leaderboards.
+ *
+ * <p>Run with {@code ./gradlew benchmark -Pbenchmarks=TopKBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopKBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int users;
+
+    @Param({"10", "100"})
+    private int k;
+
+    private List<LeaderboardIndex.Entry> entries;
+    private LeaderboardIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        entries = new ArrayList<>(users);
+        index = new LeaderboardIndex();
+        int[] values = new int[Criterion.values().length];
+        for (int i = 0; i < users; i++) {
+            int points = random.nextInt(100000);
+            entries.add(new LeaderboardIndex.Entry(points, "user" + i));
+            values[Criterion.POINTS.ordinal()] = points;
+            index.update("user" + i, values.clone());
+        }
+        index.build();
+    }
+
+    @Benchmark
+    public List<LeaderboardIndex.Entry> sortEveryUser() {
+        List<LeaderboardIndex.Entry> sorted = new ArrayList<>(entries);
+        Collections.sort(sorted, Collections.<LeaderboardIndex.Entry>reverseOrder());
+        return new ArrayList<>(sorted.subList(0, k));
+    }
+
+    @Benchmark
+    public List<String> selectWithABoundedHeap() {
+        TopKSelector selector = new TopKSelector(k);
+        for (LeaderboardIndex.Entry entry : entries) {
+            selector.offer(entry.value, entry.key);
+        }
+        return selector.getKeys();
+    }
+
+    @Benchmark
+    public List<String> readTheLeaderboard() {
+        return index.topKeys(k, Criterion.POINTS);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the users a TopKSelector selects against a sort of every user.
+ */
+public class TopKSelectorTest {
+
+    @Test
+    public void selectionAgreesWithASort() {
+        Random random = new Random(3);
+        final List<LeaderboardIndex.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // Few distinct values, so that many users are tied
+            entries.add(new LeaderboardIndex.Entry(random.nextInt(40), "user" + i));
+        }
+        List<LeaderboardIndex.Entry> sorted = new ArrayList<>(entries);
+        Collections.sort(sorted, Collections.<LeaderboardIndex.Entry>reverseOrder());
+
+        for (int k : new int[]{0, 1, 10, 499, 500, 600}) {
+            TopKSelector selector = new TopKSelector(k);
+            for (LeaderboardIndex.Entry entry : entries) {
+                selector.offer(entry.value, entry.key);
+            }
+            List<String> expected = new ArrayList<>();
+            for (LeaderboardIndex.Entry entry : sorted.subList(0, Math.min(k, sorted.size()))) {
+                expected.add(entry.key);
+            }
+            assertEquals(expected, selector.getKeys());
+        }
+        assertTrue(new TopKSelector(-1).getKeys().isEmpty());
+    }
+
+    @Test
+    public void selectedUsersMatchTheBuiltLeaderboards() {
+        InMemoryDataManager dataManager = new InMemoryDataManager();
+        Random random = new Random(5);
+        for (int i = 0; i < 200; i++) {
+            User user = TestUsers.newUser("user" + i, random.nextInt(20));
+            dataManager.createUser(user);
+        }
+        for (Criterion criterion : Criterion.values()) {
+            // Invalidated leaderboards make topK select in a single pass over the users
+            dataManager.invalidateLeaderboards();
+            List<User> selected = dataManager.topK(25, criterion);
+            // A rank query builds them, after which topK reads them off the trees
+            dataManager.getRank("user0", criterion);
+            assertEquals(dataManager.topK(25, criterion), selected);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast UserRecordParser parses and indexes a mapped persistence file. Run it with
+ * JMH's allocation profiler to see the bytes allocated per record, e.g.
+ * {@code ./gradlew benchmark -Pbenchmarks="UserRecordParserBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserRecordParserBenchmark {
+
+    @Param({"100000"})
+    private int users;
+
+    private File directory;
+    private RandomAccessFile file;
+    private MappedByteBuffer buffer;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = TestUsers.newDirectory();
+        File dataFile = new File(directory, FileDataManager.DATA_FILE);
+        FileDataManager dataManager = new FileDataManager(dataFile, 1);
+        dataManager.load();
+        List<User> newUsers = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            newUsers.add(TestUsers.newUser("user" + i, i));
+        }
+        dataManager.createUsers(newUsers);
+        file = new RandomAccessFile(dataFile, "r");
+        FileChannel channel = file.getChannel();
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        buffer.load();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        file.close();
+        TestUsers.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public Map<String, User> parse() {
+        Map<String, User> parsed = new HashMap<>(2 * users);
+        new UserRecordParser().parse(buffer, 0, buffer.limit(), parsed);
+        return parsed;
+    }
+
+    @Benchmark
+    public Map<String, UserIndexEntry> index() {
+        Map<String, UserIndexEntry> index = new HashMap<>(2 * users);
+        new UserRecordParser().index(buffer, 0, buffer.limit(), index);
+        return index;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.Customization;
+import com.example.game1.presentation.model.User;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.example.game1.data.TestUsers.assertSameUser;
+import static com.example.game1.data.TestUsers.newUser;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of how UserRecordParser parses and indexes the records written by FileDataManager.
+ */
+public class UserRecordParserTest {
+
+    private static ByteBuffer bufferOf(String records) {
+        return ByteBuffer.wrap(records.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String record(String username, int points, int level) {
+        return FileDataManager.USERNAME + ":" + username + "\n"
+                + FileDataManager.PASSWORD + ":password\n"
+                + FileDataManager.TOP_IND_POINTS + ":" + points + "\n"
+                + FileDataManager.LAST_COMP_LVL + ":" + level + "\n";
+    }
+
+    @Test
+    public void recordsWrittenByTheDataManagerParseBackToTheSameUsers() throws IOException {
+        File directory = TestUsers.newDirectory();
+        try {
+            File dataFile = new File(directory, FileDataManager.DATA_FILE);
+            FileDataManager dataManager = new FileDataManager(dataFile, 1);
+            dataManager.load();
+            for (int i = 0; i < 12; i++) {
+                dataManager.createUser(newUser("user" + i, i));
+            }
+            // Multi-byte characters in a username take the same path as any other bytes
+            dataManager.createUser(newUser("Zo\u00eb", 5));
+
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(dataFile.toPath()));
+            Map<String, User> users = new HashMap<>();
+            UserRecordParser parser = new UserRecordParser();
+            assertEquals(13, parser.parse(buffer, 0, buffer.limit(), users));
+            assertTrue(parser.getIncompleteKeys().isEmpty());
+            for (int i = 0; i < 12; i++) {
+                User user = users.get("user" + i);
+                assertSameUser(newUser("user" + i, i), user);
+                assertFalse(user.isDirty());
+            }
+            assertSameUser(newUser("Zo\u00eb", 5), users.get("zo\u00eb"));
+        } finally {
+            TestUsers.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void laterRecordsOverrideEarlierOnes() {
+        ByteBuffer buffer = bufferOf(record("alice", 1, 0) + record("bob", 2, 0)
+                + record("Alice", 3, 1));
+        Map<String, User> users = new HashMap<>();
+        assertEquals(3, new UserRecordParser().parse(buffer, 0, buffer.limit(), users));
+        assertEquals(2, users.size());
+        assertEquals("Alice", users.get("alice").getUserName());
+        assertEquals(3, users.get("alice").getTopIndividualStats().getPoints());
+        assertEquals(1, users.get("alice").getLastCompletedLevel());
+    }
+
+    @Test
+    public void incompleteRecordOnlyFillsAGap() {
+        String torn = FileDataManager.USERNAME + ":carol\n"
+                + FileDataManager.PASSWORD + ":password\n";
+        String unterminated = record("bob", 5, 3);
+        unterminated = unterminated.substring(0, unterminated.length() - 1);
+        ByteBuffer buffer = bufferOf(record("alice", 1, 0) + record("carol", 4, 2)
+                + torn.replace("carol", "dave") + unterminated);
+        Map<String, User> users = new HashMap<>();
+        UserRecordParser parser = new UserRecordParser();
+        assertEquals(4, parser.parse(buffer, 0, buffer.limit(), users));
+        // bob's only record lacks its final line break and dave's lacks its last field
+        assertEquals(2, parser.getIncompleteKeys().size());
+        assertTrue(parser.getIncompleteKeys().contains("bob"));
+        assertTrue(parser.getIncompleteKeys().contains("dave"));
+        assertEquals(4, users.size());
+
+        // A torn record never overrides a complete one
+        buffer = bufferOf(record("carol", 4, 2) + torn);
+        users.clear();
+        parser.parse(buffer, 0, buffer.limit(), users);
+        assertEquals(4, users.get("carol").getTopIndividualStats().getPoints());
+        assertTrue(parser.getIncompleteKeys().isEmpty());
+    }
+
+    @Test
+    public void malformedLinesAndValuesAreSkipped() {
+        ByteBuffer buffer = bufferOf("garbage before the first record\n"
+                + FileDataManager.USERNAME + ":erin\r\n"
+                + "\r\n"
+                + "UnknownKey:value\r\n"
+                + FileDataManager.CHARAC_COLOUR + ":RED\r\n"
+                + FileDataManager.COLOUR_SCHEME + ":PURPLE\r\n"
+                + FileDataManager.MUSIC + ":SONG3\r\n"
+                + FileDataManager.TOP_IND_STARS + ":12x\r\n"
+                + FileDataManager.TOP_IND_TAPS + ":\r\n"
+                + FileDataManager.CURR_GAME_POINTS + ":-7\r\n"
+                + FileDataManager.LAST_COMP_LVL + ":2\r\n");
+        Map<String, User> users = new HashMap<>();
+        assertEquals(1, new UserRecordParser().parse(buffer, 0, buffer.limit(), users));
+        User user = users.get("erin");
+        assertEquals("erin", user.getUserName());
+        assertEquals(Customization.CharacterColour.RED,
+                user.getCustomization().getCharacterColour());
+        // An unknown constant falls back to the default one
+        assertEquals(Customization.ColourScheme.DARK, user.getCustomization().getColourScheme());
+        assertEquals(Customization.MusicPath.SONG3, user.getCustomization().getMusicPath());
+        assertEquals(0, user.getTopIndividualStats().getStars());
+        assertEquals(0, user.getTopIndividualStats().getTaps());
+        assertEquals(-7, user.getStatsOfCurrentGame().getPoints());
+        assertEquals(2, user.getLastCompletedLevel());
+    }
+
+    @Test
+    public void integersAreParsedOverTheirWholeRange() {
+        assertEquals(0, UserRecordParser.parseInt(bufferOf("0"), 0, 1));
+        assertEquals(Integer.MAX_VALUE, UserRecordParser.parseInt(bufferOf("2147483647"), 0, 10));
+        assertEquals(Integer.MIN_VALUE, UserRecordParser.parseInt(bufferOf("-2147483648"), 0, 11));
+        String[] invalid = {"2147483648", "-2147483649", "99999999999999999999", "-", "", "1-2"};
+        for (String value : invalid) {
+            try {
+                UserRecordParser.parseInt(bufferOf(value), 0, value.length());
+                fail("Parsed " + value);
+            } catch (NumberFormatException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void indexAgreesWithParse() {
+        String records = record("alice", 1, 0) + record("bob", 2, 0) + record("alice", 3, 1)
+                + FileDataManager.USERNAME + ":alice\n";
+        ByteBuffer buffer = bufferOf(records);
+        Map<String, UserIndexEntry> index = new HashMap<>();
+        assertEquals(4, new UserRecordParser().index(buffer, 0, buffer.limit(), index));
+        assertEquals(2, index.size());
+
+        // alice's entry locates her last complete record, not the torn one after it
+        UserIndexEntry alice = index.get("alice");
+        assertTrue(alice.complete);
+        assertEquals(3, alice.topPoints);
+        String located = records.substring((int) alice.offset, (int) alice.offset + alice.length);
+        assertEquals(record("alice", 3, 1), located);
+
+        Map<String, User> users = new HashMap<>();
+        ByteBuffer recordBuffer = bufferOf(located);
+        new UserRecordParser().parse(recordBuffer, 0, recordBuffer.limit(), users);
+        assertEquals(alice.topPoints, users.get("alice").getTopIndividualStats().getPoints());
+    }
+
+    @Test
+    public void recordStartsAreFoundAtLineStartsOnly() {
+        String first = record("alice", 1, 0);
+        ByteBuffer buffer = bufferOf(first + record("bob", 2, 0));
+        assertEquals(0, UserRecordParser.nextRecordStart(buffer, 0, buffer.limit()));
+        assertEquals(first.length(), UserRecordParser.nextRecordStart(buffer, 1, buffer.limit()));
+        assertEquals(buffer.limit(),
+                UserRecordParser.nextRecordStart(buffer, first.length() + 1, buffer.limit()));
+
+        // A username that looks like a key does not start a record
+        buffer = bufferOf(record(FileDataManager.USERNAME + ":x", 1, 0));
+        assertEquals(buffer.limit(), UserRecordParser.nextRecordStart(buffer, 1, buffer.limit()));
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.game1.data;
+
+import com.example.game1.presentation.model.User;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of what WriteBehindDataManager hands to the data manager it wraps.
+ */
+public class WriteBehindDataManagerTest {
+
+    private InMemoryDataManager wrapped;
+    private WriteBehindDataManager dataManager;
+
+    @Before
+    public void setUp() {
+        wrapped = new InMemoryDataManager();
+        dataManager = new WriteBehindDataManager(wrapped);
+    }
+
+    @Test
+    public void flushWritesEverythingQueued() throws InterruptedException {
+        for (int i = 0; i < 20; i++) {
+            dataManager.createUser(new User("user" + i, "password"));
+        }
+        dataManager.flush();
+        assertEquals(0, dataManager.getQueueDepth());
+        assertEquals(20, wrapped.getSavedUserCount());
+        for (int i = 0; i < 20; i++) {
+            assertNotNull(wrapped.getUser("user" + i));
+        }
+    }
+
+    @Test
+    public void flushWaitsForExecutedWrites() throws InterruptedException {
+        final List<Integer> ran = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final int task = i;
+            dataManager.execute(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (ran) {
+                        ran.add(task);
+                    }
+                }
+            });
+        }
+        dataManager.flush();
+        synchronized (ran) {
+            assertEquals(10, ran.size());
+            for (int i = 0; i < 10; i++) {
+                assertEquals(Integer.valueOf(i), ran.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void changesAfterQueueingAreNotWritten() throws InterruptedException {
+        User user = new User("player", "password");
+        user.getStatsOfCurrentGame().setPoints(5);
+        dataManager.createUser(user);
+        user.getStatsOfCurrentGame().setPoints(99);
+        dataManager.flush();
+
+        assertEquals(Integer.valueOf(5), wrapped.getSavedPoints("player"));
+        assertEquals(5, wrapped.getUser("player").getStatsOfCurrentGame().getPoints());
+        assertTrue(user.isDirty());
+    }
+
+    @Test
+    public void mergedWriteKeepsEarlierChanges() throws InterruptedException {
+        User user = new User("player", "password");
+        synchronized (wrapped) {
+            // Hold the writer back so that both writes are queued together
+            dataManager.createUser(user);
+            dataManager.updateUser(user);
+        }
+        dataManager.flush();
+        assertNotNull(wrapped.getSavedPoints("player"));
+        assertFalse(user.isDirty());
+    }
+
+    @Test
+    public void failedWriteLeavesUserDirty() throws InterruptedException {
+        User user = new User("player", "password");
+        wrapped.setFailing(true);
+        dataManager.createUser(user);
+        dataManager.flush();
+        assertNull(wrapped.getSavedPoints("player"));
+        assertTrue(user.isDirty());
+
+        // The next write of the user saves it
+        wrapped.setFailing(false);
+        dataManager.updateUser(user);
+        dataManager.flush();
+        assertNotNull(wrapped.getSavedPoints("player"));
+        assertFalse(user.isDirty());
+    }
+
+    @Test
+    public void getUserNeverReturnsTheWrappedUser() throws InterruptedException {
+        User user = new User("player", "password");
+        dataManager.createUser(user);
+        dataManager.flush();
+        assertSame(user, dataManager.getUser("player"));
+        assertNotSame(wrapped.getUser("player"), dataManager.getUser("player"));
+
+        WriteBehindDataManager reopened = new WriteBehindDataManager(wrapped);
+        User loaded = reopened.getUser("player");
+        assertNotNull(loaded);
+        assertNotSame(wrapped.getUser("player"), loaded);
+        assertSame(loaded, reopened.getUser("player"));
+        assertNull(reopened.getUser("nobody"));
+    }
+
+    @Test
+    public void queriesNeverReturnWrappedUsers() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            User user = new User("user" + i, "password");
+            user.getTopIndividualStats().setPoints(i);
+            wrapped.createUser(user);
+        }
+        dataManager.getUser("user3");
+
+        List<User> users = new ArrayList<>(dataManager.topK(5, Criterion.POINTS));
+        users.addAll(dataManager.getNeighborhood("user2", Criterion.POINTS, 2));
+        users.addAll(dataManager.getLeaderboardPage(Criterion.POINTS, null, 5).getUsers());
+        users.addAll(dataManager.getFullRanking(Criterion.POINTS));
+        assertEquals(20, users.size());
+        for (User user : users) {
+            String key = user.getUserName().toLowerCase();
+            assertNotSame(wrapped.getUser(key), user);
+            assertSame(dataManager.getUser(key), user);
+        }
+    }
+}
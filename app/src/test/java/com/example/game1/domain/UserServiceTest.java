@@ -0,0 +1,87 @@
+package com.example.game1.domain;
+
+import com.example.game1.data.InMemoryDataManager;
+import com.example.game1.presentation.model.User;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the leaderboard cache of UserService.
+ */
+public class UserServiceTest {
+
+    private UserServiceIntf userService;
+
+    @Before
+    public void setUp() {
+        UserService service = new UserService();
+        service.setDataManager(new InMemoryDataManager());
+        userService = service;
+        for (int i = 0; i < 5; i++) {
+            User user = new User("user" + i, "password");
+            user.getStatsOfCurrentGame().setPoints(10 * i);
+            userService.registerUser(user);
+        }
+    }
+
+    @Test
+    public void repeatedQueryIsAHit() {
+        List<User> first = userService.getTopUsers(3, "Total Score");
+        assertEquals(0, userService.getLeaderboardCacheHits());
+        assertEquals(1, userService.getLeaderboardCacheMisses());
+
+        List<User> second = userService.getTopUsers(3, "Total Score");
+        assertEquals(1, userService.getLeaderboardCacheHits());
+        assertEquals(1, userService.getLeaderboardCacheMisses());
+        assertSame(first, second);
+    }
+
+    @Test
+    public void otherSizeOrCriterionIsAMiss() {
+        userService.getTopUsers(3, "Total Score");
+        userService.getTopUsers(4, "Total Score");
+        userService.getTopUsers(3, "Points");
+        assertEquals(0, userService.getLeaderboardCacheHits());
+        assertEquals(3, userService.getLeaderboardCacheMisses());
+    }
+
+    @Test
+    public void writingAUserMakesTheNextQueryAMiss() {
+        userService.getTopUsers(3, "Total Score");
+        userService.getTopUsers(3, "Total Score");
+
+        User user = userService.getUser("user1", "password");
+        user.getStatsOfCurrentGame().setPoints(1000);
+        userService.updateUser(user);
+
+        List<User> users = userService.getTopUsers(3, "Total Score");
+        assertEquals(1, userService.getLeaderboardCacheHits());
+        assertEquals(2, userService.getLeaderboardCacheMisses());
+        assertEquals("user1", users.get(0).getUserName());
+    }
+
+    @Test
+    public void onlyADataManagerThatCannotSaveAUserRejectsIt() {
+        String longName = "";
+        for (int i = 0; i < 10; i++) {
+            longName += "0123456789";
+        }
+        assertTrue(userService.canSave(new User(longName, "password")));
+        assertTrue(userService.registerUser(new User(longName, "password")));
+
+        UserService service = new UserService();
+        service.setDataManager(new InMemoryDataManager() {
+            @Override
+            public boolean canSave(User user) {
+                return user.getUserName().length() <= 10;
+            }
+        });
+        assertFalse(service.registerUser(new User(longName, "password")));
+        assertTrue(service.registerUser(new User("player", "password")));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.game1.presentation.presenter;
+
+import com.example.game1.data.GameLeaderboards;
+import com.example.game1.data.InMemoryDataManager;
+import com.example.game1.domain.UserService;
+import com.example.game1.presentation.model.Game;
+import com.example.game1.presentation.model.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of what UserManager writes when a game finishes.
+ */
+public class UserManagerTest {
+
+    private File rollupFile;
+    private InMemoryDataManager dataManager;
+    private UserManager userManager;
+
+    @Before
+    public void setUp() throws IOException {
+        rollupFile = File.createTempFile("game_rollups", ".txt");
+        rollupFile.delete();
+        dataManager = new InMemoryDataManager();
+        UserService userService = new UserService();
+        userService.setDataManager(dataManager);
+        userService.setGameLeaderboards(new GameLeaderboards(rollupFile, new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                task.run();
+            }
+        }));
+        userManager = new UserManager();
+        userManager.setUserService(userService);
+
+        assertTrue(userManager.registerUser("player", "password"));
+        dataManager.resetCounts();
+    }
+
+    @After
+    public void tearDown() {
+        rollupFile.delete();
+    }
+
+    /**
+     * Returns a finished game with the given statistics.
+     */
+    private static Game finishedGame(int points, int stars, int taps) {
+        Game game = new Game(Game.GameName.APPLE);
+        game.getStatistics().setPoints(points);
+        game.getStatistics().setStars(stars);
+        game.getStatistics().setTaps(taps);
+        return game;
+    }
+
+    @Test
+    public void oneGameOverWritesOneRecord() {
+        userManager.updateCurrentUsersGame(finishedGame(10, 2, 30));
+        assertEquals(1, dataManager.getWrites());
+        assertEquals(1, dataManager.getRecords());
+    }
+
+    @Test
+    public void eachGameOverWritesOneRecord() {
+        for (int i = 1; i <= 5; i++) {
+            userManager.updateCurrentUsersGame(finishedGame(i, 1, 3));
+            assertEquals(i, dataManager.getWrites());
+            assertEquals(i, dataManager.getRecords());
+        }
+    }
+}
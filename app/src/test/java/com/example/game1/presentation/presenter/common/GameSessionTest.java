@@ -0,0 +1,149 @@
+package com.example.game1.presentation.presenter.common;
+
+import com.example.game1.presentation.model.Game;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of how a GameSession is written, read back, and replayed to the state it recorded.
+ */
+public class GameSessionTest {
+
+    /* The number of ticks each game is played for, about a minute of play */
+    private static final int TICKS = 2000;
+
+    private File sessionFile;
+
+    @Before
+    public void setUp() throws IOException {
+        sessionFile = File.createTempFile("game_session", ".rec");
+    }
+
+    @After
+    public void tearDown() {
+        sessionFile.delete();
+    }
+
+    /**
+     * Plays the given game with its default script, recording it, and returns the recording.
+     */
+    private static GameSession play(Game.GameName game, long seed) {
+        GameManager gameManager = HeadlessGameRunner.buildGameManager(game, 1080, 1920);
+        gameManager.setRecording(true);
+        gameManager.setSeed(seed);
+        new HeadlessGameRunner(gameManager, HeadlessGameRunner.defaultScript(game)).run(TICKS);
+        return gameManager.getSession();
+    }
+
+    /**
+     * Checks that the given sessions hold the same game, screen, inputs and final state.
+     */
+    private static void assertSameSession(GameSession expected, GameSession actual) {
+        assertEquals(expected.getGame(), actual.getGame());
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getScreenWidth(), actual.getScreenWidth());
+        assertEquals(expected.getScreenHeight(), actual.getScreenHeight());
+        assertEquals(expected.getGridWidth(), actual.getGridWidth());
+        assertEquals(expected.getGridHeight(), actual.getGridHeight());
+        assertEquals(expected.getTicks(), actual.getTicks());
+        assertEquals(expected.getFinalStateHash(), actual.getFinalStateHash());
+        List<GameSession.Entry> expectedEntries = expected.getEntries();
+        List<GameSession.Entry> actualEntries = actual.getEntries();
+        assertEquals(expectedEntries.size(), actualEntries.size());
+        for (int i = 0; i < expectedEntries.size(); i++) {
+            GameInput expectedInput = expectedEntries.get(i).getInput();
+            GameInput actualInput = actualEntries.get(i).getInput();
+            assertEquals(expectedEntries.get(i).getTick(), actualEntries.get(i).getTick());
+            assertEquals(expectedInput.getType(), actualInput.getType());
+            assertEquals(expectedInput.getValue(), actualInput.getValue(), 0);
+        }
+    }
+
+    @Test
+    public void everyGameReplaysExactlyFromItsFile() throws IOException {
+        for (Game.GameName game : Game.GameName.values()) {
+            GameSession session = play(game, 42 + game.ordinal());
+            assertTrue(session.getTicks() > 0);
+            assertFalse(session.getEntries().isEmpty());
+
+            session.writeTo(sessionFile);
+            GameSession read = GameSession.readFrom(sessionFile);
+            assertSameSession(session, read);
+
+            HeadlessGameRunner.Report report = HeadlessGameRunner.replay(read);
+            assertEquals(session.getTicks(), report.getTicks());
+            assertEquals(session.getFinalStateHash(), report.getStateHash());
+        }
+    }
+
+    @Test
+    public void replayWithAnotherSeedDiverges() throws IOException {
+        GameSession session = play(Game.GameName.APPLE, 7);
+        session.writeTo(sessionFile);
+        byte[] bytes = Files.readAllBytes(sessionFile.toPath());
+        // The seed follows the magic number, the version and the game
+        bytes[6 + 7] ^= 1;
+        Files.write(sessionFile.toPath(), bytes);
+
+        GameSession read = GameSession.readFrom(sessionFile);
+        assertEquals(6, read.getSeed());
+        assertTrue(session.getFinalStateHash() != HeadlessGameRunner.replay(read).getStateHash());
+    }
+
+    @Test
+    public void distantTicksAndValuesSurviveTheRoundTrip() throws IOException {
+        GameSession session = new GameSession(-1);
+        session.record(0, new GameInput(GameInput.Type.TAP));
+        session.record(127, new GameInput(GameInput.Type.TOUCH, -12.75));
+        session.record(128, new GameInput(GameInput.Type.SECONDS_LEFT, 3));
+        session.record(1L << 40, new GameInput(GameInput.Type.TOUCH, Double.MAX_VALUE));
+        GameManager gameManager = HeadlessGameRunner.buildGameManager(
+                Game.GameName.TAPPING, 1080, 1920);
+        session.finish(gameManager);
+
+        session.writeTo(sessionFile);
+        assertSameSession(session, GameSession.readFrom(sessionFile));
+    }
+
+    @Test
+    public void fullSessionIsTruncated() {
+        GameSession session = new GameSession(0);
+        for (int i = 0; i < GameSession.MAX_ENTRIES; i++) {
+            session.record(i, new GameInput(GameInput.Type.TAP));
+        }
+        assertFalse(session.isTruncated());
+        session.record(GameSession.MAX_ENTRIES, new GameInput(GameInput.Type.TAP));
+        assertTrue(session.isTruncated());
+        assertEquals(GameSession.MAX_ENTRIES, session.getEntries().size());
+    }
+
+    @Test(expected = IOException.class)
+    public void fileThatIsNotASessionIsRejected() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(sessionFile))) {
+            out.writeInt(0x12345678);
+            out.writeByte(1);
+        }
+        GameSession.readFrom(sessionFile);
+    }
+
+    @Test(expected = IOException.class)
+    public void sessionWithAnUnknownGameIsRejected() throws IOException {
+        GameSession session = play(Game.GameName.TAPPING, 3);
+        session.writeTo(sessionFile);
+        byte[] bytes = Files.readAllBytes(sessionFile.toPath());
+        bytes[5] = 100;
+        Files.write(sessionFile.toPath(), bytes);
+        GameSession.readFrom(sessionFile);
+    }
+}
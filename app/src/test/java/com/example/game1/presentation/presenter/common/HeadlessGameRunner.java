@@ -0,0 +1,439 @@
+package com.example.game1.presentation.presenter.common;
+
+import com.example.game1.presentation.model.Game;
+import com.example.game1.presentation.model.applegame.Apple;
+import com.example.game1.presentation.model.common.GameItem;
+import com.example.game1.presentation.model.jumpinggame.Jumper;
+import com.example.game1.presentation.model.jumpinggame.Obstacle;
+import com.example.game1.presentation.presenter.GameManagerFactory;
+import com.example.game1.presentation.presenter.applegame.AppleGameManager;
+import com.example.game1.presentation.presenter.brickgame.BrickGameManager;
+import com.example.game1.presentation.presenter.jumpinggame.JumpingGameManager;
+import com.example.game1.presentation.presenter.tappinggame.TappingGameManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs the updates of a GameManager as fast as possible, without a view, a music player or an
+ * activity, so that the cost of simulating a game can be measured apart from the cost of drawing
+ * it. The input a player would give is scripted by an InputScript, which is asked for the input
+ * of every tick before the tick's update.
+ *
+ * <p>It is a tool for development, kept with the unit tests so that it is not part of the app. It
+ * can be run on the JVM from the compiled test classes, with the Android classes on the class path
+ * only to load the GameManagers, e.g. for the apple game over 100000 ticks:
+ *
+ * <pre>java HeadlessGameRunner APPLE 100000</pre>
+ *
+ * <p>It also replays the sessions that the game views record, pulled from a device, and checks
+ * that each replay ends in the state the game ended in:
+ *
+ * <pre>java HeadlessGameRunner --replay last_session_apple.rec</pre>
+ *
+ * <p>The bytes allocated per tick are read from the JVM's thread bean, which Android does not
+ * have. They are reported as unavailable there.
+ */
+public class HeadlessGameRunner {
+
+    /**
+     * The input of a player, given to a GameManager before each tick.
+     */
+    public interface InputScript {
+
+        /**
+         * Gives the input of the given tick to the given GameManager, by posting it.
+         *
+         * @param gameManager the GameManager being run
+         * @param tick        the number of the tick about to be updated, starting from 0
+         */
+        void beforeTick(GameManager gameManager, long tick);
+    }
+
+    /**
+     * The measurements of a run.
+     */
+    public static class Report {
+
+        private final Game.GameName game;
+        private final long ticks;
+        private final long elapsedNs;
+        private final long allocatedBytes;
+        private final boolean gameOver;
+        private final long stateHash;
+
+        /**
+         * Constructs a Report.
+         *
+         * @param game           the game that was run
+         * @param ticks          the number of ticks updated
+         * @param elapsedNs      the time the ticks took in nanoseconds
+         * @param allocatedBytes the bytes allocated during the ticks, or -1 if unknown
+         * @param gameOver       whether the game ended before all the ticks were run
+         * @param stateHash      the hash of the game's state after the ticks
+         */
+        Report(Game.GameName game, long ticks, long elapsedNs, long allocatedBytes,
+               boolean gameOver, long stateHash) {
+            this.game = game;
+            this.ticks = ticks;
+            this.elapsedNs = elapsedNs;
+            this.allocatedBytes = allocatedBytes;
+            this.gameOver = gameOver;
+            this.stateHash = stateHash;
+        }
+
+        /**
+         * Returns the number of ticks updated.
+         *
+         * @return the number of ticks
+         */
+        public long getTicks() {
+            return ticks;
+        }
+
+        /**
+         * Returns whether the game ended before all the ticks were run.
+         *
+         * @return whether the game ended
+         */
+        public boolean isGameOver() {
+            return gameOver;
+        }
+
+        /**
+         * Returns the hash of the game's state after the ticks.
+         *
+         * @return the state hash
+         */
+        public long getStateHash() {
+            return stateHash;
+        }
+
+        /**
+         * Returns the number of ticks updated per second.
+         *
+         * @return the number of ticks per second
+         */
+        public double getTicksPerSecond() {
+            return elapsedNs == 0 ? 0 : ticks * 1e9 / elapsedNs;
+        }
+
+        /**
+         * Returns the average number of bytes allocated by a tick.
+         *
+         * @return the bytes allocated per tick, or -1 if allocations could not be measured
+         */
+        public double getAllocatedBytesPerTick() {
+            if (allocatedBytes < 0 || ticks == 0) {
+                return -1;
+            }
+            return (double) allocatedBytes / ticks;
+        }
+
+        @Override
+        public String toString() {
+            String allocations = allocatedBytes < 0 ? "allocations unavailable"
+                    : String.format(Locale.US, "%.0f bytes/tick", getAllocatedBytesPerTick());
+            return String.format(Locale.US, "%s: %d ticks%s, %.0f ticks/s, %s", game, ticks,
+                    gameOver ? " (game over)" : "", getTicksPerSecond(), allocations);
+        }
+    }
+
+    /* The size of the screen the games are run on by main */
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 1920;
+
+    /* The size of a character on the screen, which the text-based games lay out their grid by */
+    private static final int CHAR_WIDTH = 26;
+    private static final int CHAR_HEIGHT = 42;
+
+    /* The length of a tick in seconds, as in GameThread */
+    private static final double TICK_SECONDS = 1.0 / 30;
+
+    /* The method that returns the bytes allocated by a thread, or null if there is none */
+    private static final Method ALLOCATED_BYTES = findAllocatedBytesMethod();
+    private static final Object THREAD_BEAN = findThreadBean();
+
+    /* The GameManager being run */
+    private final GameManager gameManager;
+    /* The input given to the GameManager */
+    private final InputScript script;
+    /* The number of ticks run so far, over every run */
+    private long tick;
+
+    /**
+     * Constructs a HeadlessGameRunner of the specified GameManager, whose items have been created.
+     *
+     * @param gameManager the GameManager to run
+     * @param script      the input to give the GameManager before each tick
+     */
+    public HeadlessGameRunner(GameManager gameManager, InputScript script) {
+        this.gameManager = gameManager;
+        this.script = script;
+    }
+
+    /**
+     * Builds a GameManager of the given game for the given screen, set up the way its game view
+     * sets it up, and creates its items.
+     *
+     * @param game   the game
+     * @param width  the width of the screen
+     * @param height the height of the screen
+     * @return a GameManager ready to be run
+     */
+    public static GameManager buildGameManager(Game.GameName game, int width, int height) {
+        return buildGameManager(game, width, height, width / CHAR_WIDTH, height / CHAR_HEIGHT);
+    }
+
+    /**
+     * Builds a GameManager of the given game for the given screen and grid, set up the way its
+     * game view sets it up, and creates its items.
+     *
+     * @param game       the game
+     * @param width      the width of the screen
+     * @param height     the height of the screen
+     * @param gridWidth  the width of the grid, in characters
+     * @param gridHeight the height of the grid, in characters
+     * @return a GameManager ready to be run
+     */
+    public static GameManager buildGameManager(Game.GameName game, int width, int height,
+                                               int gridWidth, int gridHeight) {
+        GameManager gameManager;
+        if (game == Game.GameName.APPLE) {
+            gameManager = new GameManagerFactory().getGameManager(game, height, width, null);
+        } else {
+            gameManager = new GameManagerFactory().getGameManager(
+                    game, gridHeight, gridWidth, null);
+            gameManager.setScreenHeight(height);
+            gameManager.setScreenWidth(width);
+        }
+        gameManager.setNumSeconds(TICK_SECONDS);
+        gameManager.setRecording(false);
+
+        // the sizes of the items are the ones the game views use
+        if (gameManager instanceof AppleGameManager) {
+            ((AppleGameManager) gameManager).setItemSize(100, 100, 80, 80, 100, 100);
+        } else if (gameManager instanceof JumpingGameManager) {
+            ((JumpingGameManager) gameManager).setItemSize(100, 200, 100, 100, 80, 80);
+        } else if (gameManager instanceof TappingGameManager) {
+            ((TappingGameManager) gameManager).setGridWidthHeight(gridWidth, gridHeight);
+            ((TappingGameManager) gameManager).setItemSize(
+                    (int) (width * 0.2), (int) (width * 0.2));
+        }
+        gameManager.createGameItems();
+        return gameManager;
+    }
+
+    /**
+     * Returns an InputScript that plays the given game reasonably well, so that a run lasts long
+     * enough to be measured: it keeps the basket under the lowest apple, jumps just before each
+     * obstacle, keeps the paddle under the ball, and taps 7.5 times a second for 10 seconds.
+     *
+     * @param game the game
+     * @return an InputScript for the game
+     */
+    public static InputScript defaultScript(Game.GameName game) {
+        switch (game) {
+            case APPLE:
+                return new InputScript() {
+                    @Override
+                    public void beforeTick(GameManager gameManager, long tick) {
+                        GameItem lowest = null;
+                        for (GameItem item : gameManager.getGameItems()) {
+                            if (item instanceof Apple && (lowest == null
+                                    || item.getYCoordinate() > lowest.getYCoordinate())) {
+                                lowest = item;
+                            }
+                        }
+                        if (lowest != null) {
+                            gameManager.postInput(new GameInput(
+                                    GameInput.Type.TOUCH, (int) lowest.getXCoordinate()));
+                        }
+                    }
+                };
+            case JUMPING:
+                return new InputScript() {
+                    @Override
+                    public void beforeTick(GameManager gameManager, long tick) {
+                        GameItem jumper = null;
+                        for (GameItem item : gameManager.getGameItems()) {
+                            if (item instanceof Jumper) {
+                                jumper = item;
+                            }
+                        }
+                        for (GameItem item : gameManager.getGameItems()) {
+                            double gap = item.getXCoordinate() - jumper.getXCoordinate();
+                            if (item instanceof Obstacle && gap > 0 && gap < 200) {
+                                gameManager.postInput(new GameInput(GameInput.Type.TOUCH));
+                            }
+                        }
+                    }
+                };
+            case BRICK:
+                return new InputScript() {
+                    @Override
+                    public void beforeTick(GameManager gameManager, long tick) {
+                        GameItem ball = ((BrickGameManager) gameManager).getBall();
+                        gameManager.postInput(new GameInput(GameInput.Type.TOUCH,
+                                ball.getXCoordinate() + ball.getWidth() / 2));
+                    }
+                };
+            case TAPPING:
+                return new InputScript() {
+                    @Override
+                    public void beforeTick(GameManager gameManager, long tick) {
+                        if (tick % 4 == 0) {
+                            gameManager.postInput(new GameInput(GameInput.Type.TAP));
+                        }
+                        if (tick % 30 == 0) {
+                            gameManager.postInput(new GameInput(GameInput.Type.SECONDS_LEFT,
+                                    (int) Math.max(0, 10 - tick * TICK_SECONDS)));
+                        }
+                    }
+                };
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Runs the given number of ticks, or until the game ends, and measures them.
+     *
+     * @param ticks the number of ticks to run
+     * @return the measurements of the run
+     */
+    public Report run(long ticks) {
+        long startBytes = allocatedBytes();
+        long startTime = System.nanoTime();
+        long run = 0;
+        boolean gameOver = false;
+        while (run < ticks && !gameOver) {
+            script.beforeTick(gameManager, tick);
+            gameOver = !gameManager.tick();
+            tick++;
+            run++;
+        }
+        long elapsedNs = System.nanoTime() - startTime;
+        long endBytes = allocatedBytes();
+        long allocated = startBytes < 0 || endBytes < 0 ? -1 : endBytes - startBytes;
+        return new Report(gameManager.getGame().getName(), run, elapsedNs, allocated, gameOver,
+                gameManager.getStateHash());
+    }
+
+    /**
+     * Returns an InputScript that posts each input recorded in the given session just before the
+     * tick it was applied at, to replay the session on a GameManager built with the same seed and
+     * screen.
+     *
+     * @param session the recorded session
+     * @return an InputScript replaying the session
+     */
+    public static InputScript replayScript(GameSession session) {
+        final List<GameSession.Entry> entries = session.getEntries();
+        return new InputScript() {
+            private int next = 0;
+
+            @Override
+            public void beforeTick(GameManager gameManager, long tick) {
+                while (next < entries.size()
+                        && entries.get(next).getTick() == gameManager.getTickCount()) {
+                    gameManager.postInput(entries.get(next).getInput());
+                    next++;
+                }
+            }
+        };
+    }
+
+    /**
+     * Replays the given session: builds a GameManager for the session's screen, seeds it with the
+     * session's seed, and runs the session's ticks with its recorded input. The replay is exact
+     * if the report's state hash is the session's final state hash.
+     *
+     * @param session the recorded session
+     * @return the measurements of the replay
+     */
+    public static Report replay(GameSession session) {
+        GameManager gameManager = buildGameManager(session.getGame(), session.getScreenWidth(),
+                session.getScreenHeight(), session.getGridWidth(), session.getGridHeight());
+        gameManager.setSeed(session.getSeed());
+        return new HeadlessGameRunner(gameManager, replayScript(session)).run(session.getTicks());
+    }
+
+    /**
+     * Runs the given games for the given number of ticks each, with their default scripts, after
+     * a warm-up run of the same length, and prints a report of each. Or, given --replay and the
+     * files of recorded sessions, replays each session and prints whether it replayed exactly.
+     *
+     * @param args the number of ticks, optionally preceded by the names of the games to run, or
+     *             --replay followed by the session files
+     * @throws IOException if a session file could not be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--replay")) {
+            for (int i = 1; i < args.length; i++) {
+                GameSession session = GameSession.readFrom(new File(args[i]));
+                Report report = replay(session);
+                System.out.println(report + (report.getStateHash() == session.getFinalStateHash()
+                        ? ", replayed exactly" : ", DIVERGED from the recording"));
+            }
+            return;
+        }
+        long ticks = Long.parseLong(args[args.length - 1]);
+        Game.GameName[] games = Game.GameName.values();
+        if (args.length > 1) {
+            games = new Game.GameName[args.length - 1];
+            for (int i = 0; i < games.length; i++) {
+                games[i] = Game.GameName.valueOf(args[i].toUpperCase(Locale.US));
+            }
+        }
+        for (Game.GameName game : games) {
+            new HeadlessGameRunner(buildGameManager(game, SCREEN_WIDTH, SCREEN_HEIGHT),
+                    defaultScript(game)).run(ticks);
+            HeadlessGameRunner runner = new HeadlessGameRunner(
+                    buildGameManager(game, SCREEN_WIDTH, SCREEN_HEIGHT), defaultScript(game));
+            System.out.println(runner.run(ticks));
+        }
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread so far, or -1 if they cannot be measured.
+     */
+    private static long allocatedBytes() {
+        if (ALLOCATED_BYTES == null || THREAD_BEAN == null) {
+            return -1;
+        }
+        try {
+            return (Long) ALLOCATED_BYTES.invoke(THREAD_BEAN, Thread.currentThread().getId());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the JVM's method that returns the bytes allocated by a thread. It is looked up by
+     * reflection, since Android has no java.lang.management to compile against.
+     */
+    private static Method findAllocatedBytesMethod() {
+        try {
+            return Class.forName("com.sun.management.ThreadMXBean")
+                    .getMethod("getThreadAllocatedBytes", long.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the JVM's thread bean, or null if there is none.
+     */
+    private static Object findThreadBean() {
+        try {
+            return Class.forName("java.lang.management.ManagementFactory")
+                    .getMethod("getThreadMXBean").invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.game1.presentation.view.common;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of FixedTimestep, driven by a GameClock that only moves when the test advances it.
+ */
+public class FixedTimestepTest {
+
+    /* The length of a step and the cap on updates per frame, as in GameThread */
+    private static final long STEP_NS = GameThread.FRAME_DURATION_NS;
+    private static final int MAX_UPDATES = 5;
+
+    /**
+     * A GameClock advanced by hand. Sleeping advances it by the time slept.
+     */
+    private static class FakeClock implements GameClock {
+        private long now = 1000000000L;
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+
+        @Override
+        public void sleep(long durationNs) {
+            now += durationNs;
+        }
+
+        void advance(long durationNs) {
+            now += durationNs;
+        }
+    }
+
+    private FakeClock clock;
+    private FixedTimestep timestep;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock();
+        timestep = new FixedTimestep(STEP_NS, MAX_UPDATES);
+        timestep.start(clock.nanoTime());
+    }
+
+    @Test
+    public void updatesKeepUpWithElapsedTime() {
+        long start = clock.nanoTime();
+        long[] frameTimes = {STEP_NS / 3, STEP_NS, 2 * STEP_NS + 7, STEP_NS / 2, 0, 3 * STEP_NS};
+        long updates = 0;
+        for (int frame = 0; frame < 300; frame++) {
+            clock.advance(frameTimes[frame % frameTimes.length]);
+            updates += timestep.advance(clock.nanoTime());
+
+            // every step of the elapsed time is updated for, and only the part of a step is left
+            long elapsed = clock.nanoTime() - start;
+            assertEquals(elapsed / STEP_NS, updates);
+            assertEquals((double) (elapsed % STEP_NS) / STEP_NS, timestep.getAlpha(), 1e-9);
+        }
+        assertEquals(0, timestep.getDroppedNs());
+    }
+
+    @Test
+    public void sleepingUntilTheNextStepRunsOneUpdatePerFrame() {
+        for (int frame = 0; frame < 100; frame++) {
+            long frameStart = clock.nanoTime();
+            clock.advance(STEP_NS / 4);
+            clock.sleep(Math.max(0, frameStart + STEP_NS - clock.nanoTime()));
+            assertEquals(1, timestep.advance(clock.nanoTime()));
+        }
+    }
+
+    @Test
+    public void longFrameIsCappedAndTheRestDropped() {
+        clock.advance(20 * STEP_NS + STEP_NS / 4);
+        assertEquals(MAX_UPDATES, timestep.advance(clock.nanoTime()));
+        assertEquals((20 - MAX_UPDATES) * STEP_NS, timestep.getDroppedNs());
+        assertEquals((double) (STEP_NS / 4) / STEP_NS, timestep.getAlpha(), 1e-9);
+
+        // the game carries on from the cap instead of catching up on the dropped time
+        clock.advance(STEP_NS);
+        assertEquals(1, timestep.advance(clock.nanoTime()));
+        assertEquals((20 - MAX_UPDATES) * STEP_NS, timestep.getDroppedNs());
+    }
+
+    @Test
+    public void alphaStaysBelowOne() {
+        long[] frameTimes = {1, STEP_NS - 1, STEP_NS, STEP_NS + 1, 7 * STEP_NS - 1, 50 * STEP_NS};
+        for (int frame = 0; frame < 600; frame++) {
+            clock.advance(frameTimes[(frame * 7) % frameTimes.length]);
+            int updates = timestep.advance(clock.nanoTime());
+            assertTrue(updates >= 0 && updates <= MAX_UPDATES);
+            assertTrue(timestep.getAlpha() >= 0);
+            assertTrue(timestep.getAlpha() < 1);
+        }
+    }
+
+    @Test
+    public void clockGoingBackwardsRunsNoUpdates() {
+        clock.advance(STEP_NS / 2);
+        timestep.advance(clock.nanoTime());
+        clock.advance(-STEP_NS);
+        assertEquals(0, timestep.advance(clock.nanoTime()));
+        assertEquals((double) (STEP_NS / 2) / STEP_NS, timestep.getAlpha(), 1e-9);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.game1.presentation.view.common;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the percentiles, recent frames and budget counts of FrameStats.
+ */
+public class FrameStatsTest {
+
+    /* The frame budget of a 60 fps game, in nanoseconds */
+    private static final long BUDGET_NS = 16666667;
+    /* The width of a histogram bucket, which bounds the error of a percentile */
+    private static final long BUCKET_NS = 100000;
+
+    private FrameStats stats;
+
+    @Before
+    public void setUp() {
+        stats = new FrameStats(BUDGET_NS);
+    }
+
+    /**
+     * Records a frame that starts at the given time and spends the given time in each phase.
+     */
+    private static long[] marks(long startNs, long... phaseNs) {
+        long[] marks = new long[phaseNs.length + 1];
+        marks[0] = startNs;
+        for (int i = 0; i < phaseNs.length; i++) {
+            marks[i + 1] = marks[i] + phaseNs[i];
+        }
+        return marks;
+    }
+
+    @Test
+    public void noFramesGiveZero() {
+        assertEquals(0, stats.getFrameCount());
+        assertEquals(0, stats.getFramePercentileNs(50));
+        assertEquals(0, stats.getPhasePercentileNs(FrameStats.Phase.DRAW, 99));
+        assertEquals(0, stats.getRecentFrameNs().length);
+    }
+
+    @Test
+    public void percentilesAreWithinABucketOfTheSortedTimes() {
+        Random random = new Random(5);
+        int frames = 5000;
+        long[] frameNs = new long[frames];
+        long[] drawNs = new long[frames];
+        long start = 0;
+        for (int i = 0; i < frames; i++) {
+            // Mostly quick frames with a long tail, all under the 250 ms the histogram covers
+            long update = 500000 + random.nextInt(2000000);
+            long draw = random.nextInt(10) == 0 ? 20000000 + random.nextInt(100000000)
+                    : 3000000 + random.nextInt(5000000);
+            long[] frame = marks(start, 100000, update, draw, 200000, random.nextInt(8000000));
+            stats.recordFrame(frame);
+            frameNs[i] = frame[5] - frame[0];
+            drawNs[i] = draw;
+            start = frame[5];
+        }
+        Arrays.sort(frameNs);
+        Arrays.sort(drawNs);
+
+        double[] percentiles = {0, 1, 25, 50, 90, 95, 99, 99.9, 100};
+        for (double percentile : percentiles) {
+            int rank = Math.max(1, (int) Math.ceil(percentile / 100 * frames));
+            long frame = stats.getFramePercentileNs(percentile);
+            assertTrue(frame >= frameNs[rank - 1]);
+            assertTrue(frame <= frameNs[rank - 1] + BUCKET_NS);
+            long draw = stats.getPhasePercentileNs(FrameStats.Phase.DRAW, percentile);
+            assertTrue(draw >= drawNs[rank - 1]);
+            assertTrue(draw <= drawNs[rank - 1] + BUCKET_NS);
+        }
+        // The top percentile is capped at the longest time rather than the end of its bucket
+        assertEquals(frameNs[frames - 1], stats.getFramePercentileNs(100));
+    }
+
+    @Test
+    public void timesPastTheLastBucketAreCappedAtTheLongest() {
+        stats.recordFrame(marks(0, 0, 1000000, 0, 0, 0));
+        stats.recordFrame(marks(0, 0, 400000000, 0, 0, 0));
+        assertEquals(400000000, stats.getFramePercentileNs(100));
+        assertEquals(1100000, stats.getFramePercentileNs(50));
+    }
+
+    @Test
+    public void recentFramesAreKeptOldestFirst() {
+        int frames = FrameStats.RECENT_FRAMES + 10;
+        for (int i = 1; i <= frames; i++) {
+            stats.recordFrame(marks(0, 0, i * 1000, 0, 0, 0));
+        }
+        long[] recent = stats.getRecentFrameNs();
+        assertEquals(FrameStats.RECENT_FRAMES, recent.length);
+        assertEquals(11 * 1000, recent[0]);
+        assertEquals(frames * 1000, recent[recent.length - 1]);
+        long[] update = stats.getRecentPhaseNs(FrameStats.Phase.UPDATE);
+        assertEquals(recent[0], update[0]);
+        assertEquals(0, stats.getRecentPhaseNs(FrameStats.Phase.DRAW)[0]);
+        assertEquals(frames, stats.getFrameCount());
+    }
+
+    @Test
+    public void slowFramesCountDroppedSlotsAndOverruns() {
+        // On budget, with most of it spent sleeping
+        stats.recordFrame(marks(0, 0, 2000000, 3000000, 0, BUDGET_NS - 5000000));
+        // Over two and a half budgets of work, which rounds to three slots and misses two
+        stats.recordFrame(marks(0, 0, BUDGET_NS, BUDGET_NS * 8 / 5, 0, 0));
+        // Work just within budget, with a sleep that overshoots into the next slot
+        stats.recordFrame(marks(0, 0, BUDGET_NS - 1000, 0, 0, BUDGET_NS));
+        assertEquals(3, stats.getDroppedFrames());
+        assertEquals(1, stats.getBudgetOverruns());
+
+        stats.reset();
+        assertEquals(0, stats.getFrameCount());
+        assertEquals(0, stats.getDroppedFrames());
+        assertEquals(0, stats.getBudgetOverruns());
+        assertEquals(0, stats.getFramePercentileNs(100));
+        assertEquals(0, stats.getRecentFrameNs().length);
+    }
+
+    @Test
+    public void phaseThatWasNotReachedTakesNoTime() {
+        // No canvas was locked, so the thread went from locking straight to sleeping
+        long[] marks = {0, 100000, 100000, 100000, 100000, 900000};
+        stats.recordFrame(marks);
+        assertEquals(100000, stats.getRecentPhaseNs(FrameStats.Phase.LOCK_CANVAS)[0]);
+        assertEquals(0, stats.getRecentPhaseNs(FrameStats.Phase.UPDATE)[0]);
+        assertEquals(0, stats.getRecentPhaseNs(FrameStats.Phase.DRAW)[0]);
+        assertEquals(800000, stats.getRecentPhaseNs(FrameStats.Phase.SLEEP)[0]);
+        assertEquals(900000, stats.getRecentFrameNs()[0]);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.game1.presentation.view.common;
+
+import com.example.game1.presentation.model.applegame.LivesCounter;
+import com.example.game1.presentation.model.brickgame.Ball;
+import com.example.game1.presentation.model.common.GameItem;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of how GameSnapshot copies the items of a game and reuses the copies.
+ */
+public class GameSnapshotTest {
+
+    private GameSnapshot snapshot;
+    private Ball ball;
+    private LivesCounter lives;
+    private List<GameItem> gameItems;
+
+    @Before
+    public void setUp() {
+        snapshot = new GameSnapshot();
+        ball = new Ball(10, 10);
+        ball.setPosition(1, 2);
+        ball.setXVelocity(3);
+        lives = new LivesCounter(3);
+        gameItems = new ArrayList<>();
+        gameItems.add(ball);
+        gameItems.add(lives);
+    }
+
+    @Test
+    public void copiesAreReusedAndBroughtUpToDate() {
+        snapshot.capture(gameItems, 0);
+        GameItem ballCopy = snapshot.getItems().get(0);
+        GameItem livesCopy = snapshot.getItems().get(1);
+        assertNotSame(ball, ballCopy);
+
+        ball.updatePositionAndVelocity(1);
+        lives.subtractLife();
+        snapshot.capture(gameItems, 1);
+        assertSame(ballCopy, snapshot.getItems().get(0));
+        assertSame(livesCopy, snapshot.getItems().get(1));
+        assertEquals(ball.getXCoordinate(), ballCopy.getXCoordinate(), 0);
+        assertEquals(ball.getXCoordinateAfter(0.5), ballCopy.getXCoordinateAfter(0.5), 0);
+        assertEquals(2, ((LivesCounter) livesCopy).getLivesRemaining());
+        assertEquals(lives.getDescription(), livesCopy.getDescription());
+    }
+
+    @Test
+    public void copiesDoNotChangeWithTheItems() {
+        snapshot.capture(gameItems, 0);
+        ball.updatePositionAndVelocity(1);
+        assertEquals(1, snapshot.getItems().get(0).getXCoordinate(), 0);
+    }
+
+    @Test
+    public void slotWithAnotherClassGetsANewCopy() {
+        snapshot.capture(gameItems, 0);
+        gameItems.remove(0);
+        snapshot.capture(gameItems, 1);
+        assertEquals(1, snapshot.getItems().size());
+        assertTrue(snapshot.getItems().get(0) instanceof LivesCounter);
+        assertEquals(3, ((LivesCounter) snapshot.getItems().get(0)).getLivesRemaining());
+    }
+}
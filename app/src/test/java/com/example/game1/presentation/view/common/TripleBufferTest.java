@@ -0,0 +1,75 @@
+package com.example.game1.presentation.view.common;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the handoff of buffers between the writer and the reader of a TripleBuffer.
+ */
+public class TripleBufferTest {
+
+    /* The number of values the writer publishes in the concurrent test */
+    private static final int VALUES = 200000;
+
+    @Test
+    public void readerKeepsItsBufferUntilSomethingIsPublished() {
+        long[] front = new long[1];
+        TripleBuffer<long[]> buffer = new TripleBuffer<>(front, new long[1], new long[1]);
+        assertSame(front, buffer.getLatest());
+        assertSame(front, buffer.getLatest());
+
+        long[] back = buffer.getBack();
+        back[0] = 7;
+        buffer.publish();
+        assertSame(back, buffer.getLatest());
+        assertEquals(7, buffer.getLatest()[0]);
+    }
+
+    @Test
+    public void writerAndReaderNeverShareABuffer() {
+        TripleBuffer<long[]> buffer = new TripleBuffer<>(new long[1], new long[1], new long[1]);
+        for (int i = 0; i < 100; i++) {
+            assertNotSame(buffer.getBack(), buffer.getLatest());
+            buffer.getBack()[0] = i;
+            buffer.publish();
+            assertNotSame(buffer.getBack(), buffer.getLatest());
+            if (i % 3 == 0) {
+                // Publishing twice without a read drops the older value
+                buffer.getBack()[0] = i;
+                buffer.publish();
+            }
+            assertEquals(i, buffer.getLatest()[0]);
+        }
+    }
+
+    @Test
+    public void readerSeesWholeValuesInOrder() throws InterruptedException {
+        final TripleBuffer<long[]> buffer =
+                new TripleBuffer<>(new long[2], new long[2], new long[2]);
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (long value = 1; value <= VALUES; value++) {
+                    long[] back = buffer.getBack();
+                    back[0] = value;
+                    back[1] = -value;
+                    buffer.publish();
+                }
+            }
+        }, "Triple Buffer Writer");
+        writer.start();
+
+        long last = 0;
+        while (last < VALUES) {
+            long[] front = buffer.getLatest();
+            long value = front[0];
+            // The writer never writes into the buffer being read, so both halves always match
+            assertEquals(-value, front[1]);
+            assertTrue(value >= last);
+            last = value;
+        }
+        writer.join();
+        assertEquals(VALUES, buffer.getLatest()[0]);
+    }
+}